@@ -0,0 +1,72 @@
+/*** PrecisionCheck.java ******************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Checks the double-double and quad-double Mandelbrot        *
+ *                 iterators against Apcomplex at exactly representable       *
+ *                 centers.                                                   *
+\******************************************************************************/
+
+import org.apfloat.Apcomplex;
+import org.apfloat.Apfloat;
+import org.apfloat.ApfloatMath;
+
+
+/* Iterates a small grid of pixels around centers whose coordinates are short binary fractions (-0.75, -2, 0.25 and i)
+   with the extended tier a view of that scale gets (double-double at 1e-20, quad-double at 1e-40) and with
+   iterate_mandelbrot() at the digits the engine would use, and counts the pixels whose iteration counts differ. Such
+   centers are the easy ones to get wrong: the high double holds the center exactly, so the pixel offsets live entirely
+   in the lower parts. Run from the repository root after `mvn compile`, as a single source file:
+
+     java -cp "target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)" run/PrecisionCheck.java
+
+   Exits with 0 if every pixel matches.
+*/
+public class PrecisionCheck {
+  private static final int width = 32, height = 24;
+  private static final int maxIterations = 1000;
+
+  public static void main(String[] args) {
+    FractalIterator.maxIterations = maxIterations;
+    FractalIterator.maxPrecision = 1408;
+    FractalIterator.escapeThreshold2 = ApfloatMath.pow(new Apfloat(2), 2);
+    FractalIterator.interiorChecks = false; // Compare the iterators themselves, not the shortcuts in front of them
+    FractalIterator.periodicityChecks = false;
+
+    final String[][] centers = {{"-0.75", "0"}, {"-2", "0"}, {"0.25", "0"}, {"0", "1"}};
+    final String[] scales = {"1e-20", "1e-40"};
+    int failures = 0;
+    for(String[] center : centers) {
+      for(String scale : scales) {
+        final RenderView view = RenderView.centered(
+            new Apcomplex(new Apfloat(center[0], 100), new Apfloat(center[1], 100)), new Apfloat(scale, 100), width,
+            height, 100);
+        final PrecisionTier tier = PrecisionTier.forView(view);
+        final FractalIterator iterator = new FractalIterator(FractalIterator.mandelbrotSet, FractalIterator.emptySlot,
+            FractalIterator.emptySlot, Apcomplex.ONE, Apcomplex.ONE, new boolean[] {false, false}, false);
+        iterator.setPrecision(PrecisionTier.digitsNeeded(view) + 10); // 10 is the default fv.defaults.precisionMargin
+        final ExtendedFractal extended = iterator.extended(tier);
+
+        int differing = 0;
+        for(int y = 0; y < height; y++) {
+          for(int x = 0; x < width; x++) {
+            final Apcomplex c = view.point(x, y);
+            if(extended.iterateMandelbrot(c) != iterator.iterate_mandelbrot(c)) {
+              differing++;
+            }
+          }
+        }
+        System.out.println(center[0] + (center[1].equals("0") ? "" : "+" + center[1] + "i") + " at " + scale + " ("
+            + tier + "): " + differing + " of " + width * height + " pixels differ");
+        if(differing > 0) {
+          failures++;
+        }
+      }
+    }
+
+    if(failures > 0) {
+      System.out.println("FAILED: " + failures + " views differ from Apcomplex.");
+      System.exit(1);
+    }
+    System.out.println("OK: every view matches Apcomplex.");
+  }
+}
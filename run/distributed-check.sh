@@ -0,0 +1,68 @@
+#!/bin/sh
+# Renders a view on this machine alone, then through a coordinator with two workers on localhost, and checks that both
+# images are byte for byte the same. Run from the repository root after `mvn package`:
+#
+#   run/distributed-check.sh [-k] [classpath]
+#
+# The classpath defaults to target/classes plus the dependencies Maven resolves. Every process gets its own directory
+# under a temporary one, with a copy of run/FractalVoyager.properties and a few overrides appended: a 320x240 image, no
+# render cache (the coordinator would otherwise read back the local render's tiles), no thermal governor or JMX, and a
+# port of its own. With -k the image is 1280x960 instead, and one worker is killed a second after both have joined, to
+# check that its tiles get reassigned. Exits with 0 if the images match.
+
+KILL=0
+SIZE='\nfv.output.width=320\nfv.output.height=240'
+if [ "$1" = "-k" ]; then
+  KILL=1
+  SIZE='\nfv.output.width=1280\nfv.output.height=960'
+  shift
+fi
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+CP=${1:-"$ROOT/target/classes:$(cd "$ROOT" && mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)"}
+WORK=$(mktemp -d)
+PORT=7157
+
+JAVA="java --add-modules jdk.incubator.vector -cp $CP Main FractalVoyager.properties"
+
+setup() { # setup <directory> <distributed mode>
+  mkdir -p "$WORK/$1"
+  cp "$ROOT/run/FractalVoyager.properties" "$WORK/$1/"
+  printf "$SIZE" >> "$WORK/$1/FractalVoyager.properties"
+  printf '\nfv.cache.enabled=false\nfv.thermal.enabled=false' >> "$WORK/$1/FractalVoyager.properties"
+  printf '\nfv.metrics.jmx=false\nfv.distributed.mode=%s\nfv.distributed.port=%s' "$2" "$PORT" >> "$WORK/$1/FractalVoyager.properties"
+  printf '\nfv.distributed.retrySeconds=1\nfv.distributed.timeoutSeconds=8' >> "$WORK/$1/FractalVoyager.properties"
+}
+
+setup local off
+setup coordinator coordinator
+setup worker1 worker
+setup worker2 worker
+
+echo "Rendering locally..."
+(cd "$WORK/local" && $JAVA > out.log 2>&1)
+
+echo "Rendering on two workers..."
+(cd "$WORK/worker1" && exec $JAVA > out.log 2>&1) &
+WORKER1=$!
+(cd "$WORK/worker2" && exec $JAVA > out.log 2>&1) &
+WORKER2=$!
+if [ $KILL = 1 ]; then
+  (
+    while [ "$(grep -c "joined" "$WORK/coordinator/out.log" 2>/dev/null)" != 2 ]; do sleep 0.2; done
+    sleep 1
+    kill -9 $WORKER1
+    echo "Killed worker 1."
+  ) &
+fi
+(cd "$WORK/coordinator" && $JAVA > out.log 2>&1)
+kill -9 $WORKER1 $WORKER2 2>/dev/null
+wait 2>/dev/null
+
+grep "Coordinator:" "$WORK/coordinator/out.log"
+if [ -f "$WORK/local/mandelbrot.png" ] && cmp -s "$WORK/local/mandelbrot.png" "$WORK/coordinator/mandelbrot.png"; then
+  echo "OK: the distributed render matches the local one. Logs are in $WORK"
+  exit 0
+fi
+echo "FAILED: the images differ or one is missing. Logs are in $WORK"
+exit 1
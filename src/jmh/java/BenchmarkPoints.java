@@ -0,0 +1,58 @@
+/*** BenchmarkPoints.java *****************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Sets up the global iterator settings and the points the    *
+ *                 benchmarks iterate.                                        *
+\******************************************************************************/
+
+import org.apfloat.Apcomplex;
+import org.apfloat.Apfloat;
+import org.apfloat.ApfloatMath;
+
+
+/* Every point benchmark runs on the same three kinds of points, whose costs differ by orders of magnitude:
+
+   - interior: inside the main cardioid, so it runs all maxIterations (the interior shortcuts are turned off, otherwise
+     it would measure the cardioid test instead of the iterator)
+   - boundary: near the Seahorse Valley, escapes after a long, irregular orbit
+   - escape:   far outside, escapes within a couple of iterations, so it measures the fixed cost per point
+*/
+public class BenchmarkPoints {
+  public static final int MAX_ITERATIONS = 1000;
+
+  private BenchmarkPoints() {} // Prevent instantiation
+
+  // Sets FractalIterator's globals the way Main does, with room for `precision` digits
+  public static void configure(long precision) {
+    FractalIterator.maxIterations = MAX_ITERATIONS;
+    FractalIterator.maxPrecision = (int)precision;
+    FractalIterator.escapeThreshold2 = ApfloatMath.pow(new Apfloat(2), 2);
+    FractalIterator.interiorChecks = false;
+    FractalIterator.periodicityChecks = false;
+  }
+
+  // The named point, with `precision` digits
+  public static Apcomplex point(String name, long precision) {
+    switch(name) {
+      case "interior":
+        return new Apcomplex(new Apfloat("-0.1", precision), new Apfloat("0.1", precision));
+      case "boundary":
+        return new Apcomplex(new Apfloat("-0.7436438870371587", precision), new Apfloat("0.1318259042053119", precision));
+      case "escape":
+        return new Apcomplex(new Apfloat("1.5", precision), new Apfloat("1.5", precision));
+      default:
+        throw new IllegalArgumentException("\nERROR: Unknown benchmark point \"" + name + "\"");
+    }
+  }
+
+  // The Mandelbrot Set with `fast` as given
+  public static FractalIterator mandelbrot(boolean fast) {
+    return new FractalIterator(FractalIterator.mandelbrotSet, FractalIterator.emptySlot, FractalIterator.emptySlot,
+        Apcomplex.ONE, Apcomplex.ONE, new boolean[] {false, false}, fast);
+  }
+
+  // What a workload factory throws for an operation it doesn't have
+  public static IllegalArgumentException unknownOperation(String operation) {
+    return new IllegalArgumentException("\nERROR: Unknown benchmark operation \"" + operation + "\"");
+  }
+}
@@ -0,0 +1,47 @@
+/*** ColorWorkloads.java ******************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Sets up the operations of ColorBenchmark.                  *
+\******************************************************************************/
+
+import benchmark.Workload;
+
+import org.apfloat.Apfloat;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+
+/* Factory for benchmark.ColorBenchmark, which describes what's measured. The only param is the ColorMapper.Mode. */
+public class ColorWorkloads {
+  private static final int width = 1024, height = 768;
+
+  private ColorWorkloads() {} // Prevent instantiation
+
+  public static Workload create(String operation, String... params) {
+    if(!operation.equals("color")) {
+      throw BenchmarkPoints.unknownOperation(operation);
+    }
+    final ColorMapper.Mode mode = ColorMapper.Mode.valueOf(params[0]);
+
+    BenchmarkPoints.configure(30);
+    RenderCache.enabled = false;
+    RenderMetrics.enabled = false;
+    RenderEngine.smoothValues = true;
+
+    final RenderEngine engine = new RenderEngine(BenchmarkPoints.mandelbrot(true), Runtime.getRuntime().availableProcessors());
+    final PrintStream out = System.out;
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    final IterationBuffer buffer;
+    try {
+      buffer = engine.render(RenderView.centered(BenchmarkPoints.point("boundary", 30), new Apfloat("1e-3", 30), width,
+          height, 30));
+    } finally {
+      System.setOut(out);
+      engine.shutdown();
+    }
+    final Palette palette = Palette.parse("ultra", 0);
+
+    return blackhole -> blackhole.consume(ColorMapper.color(buffer, mode, palette));
+  }
+}
@@ -0,0 +1,58 @@
+/*** FastIteratorWorkloads.java ***********************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Sets up the operations of FastIteratorBenchmark.           *
+\******************************************************************************/
+
+import benchmark.Workload;
+
+import org.apfloat.Apcomplex;
+
+import java.util.Arrays;
+
+
+/* Factory for benchmark.FastIteratorBenchmark, which describes what's measured. The only param is the point. */
+public class FastIteratorWorkloads {
+  private static final int vectorRow = 64; // Points per VectorMandelbrotKernel call, all on the same point
+
+  private FastIteratorWorkloads() {} // Prevent instantiation
+
+  public static Workload create(String operation, String... params) {
+    BenchmarkPoints.configure(16);
+    final FractalIterator iterator = BenchmarkPoints.mandelbrot(true);
+    final Apcomplex c = BenchmarkPoints.point(params[0], 16);
+    final double cr = c.real().doubleValue();
+    final double ci = c.imag().doubleValue();
+
+    switch(operation) {
+      case "iterate_mandelbrot_fast":
+        return blackhole -> blackhole.consume(iterator.iterate_mandelbrot_fast(cr, ci));
+      case "iterate_multibrot_fast": // The same set by the general path, to compare with the above
+        return blackhole -> blackhole.consume(iterator.iterate_multibrot_fast(cr, ci, 2));
+      case "vectorRow": {
+        if(!RenderEngine.VECTOR_API) { // Fail the one benchmark, not the setup the others share
+          return blackhole -> {
+            throw new IllegalStateException("Needs --add-modules jdk.incubator.vector");
+          };
+        }
+        final double[] row = new double[vectorRow];
+        Arrays.fill(row, cr);
+        final int[] counts = new int[vectorRow];
+        return blackhole -> {
+          VectorMandelbrotKernel.iterateRow(iterator, row, 0, vectorRow, ci, counts, 0, null);
+          blackhole.consume(counts);
+        };
+      }
+      case "doubleDouble": {
+        final ExtendedFractal doubleDouble = iterator.extended(PrecisionTier.DOUBLE_DOUBLE);
+        return blackhole -> blackhole.consume(doubleDouble.iterateMandelbrot(c));
+      }
+      case "quadDouble": {
+        final ExtendedFractal quadDouble = iterator.extended(PrecisionTier.QUAD_DOUBLE);
+        return blackhole -> blackhole.consume(quadDouble.iterateMandelbrot(c));
+      }
+      default:
+        throw BenchmarkPoints.unknownOperation(operation);
+    }
+  }
+}
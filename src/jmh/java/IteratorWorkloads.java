@@ -0,0 +1,32 @@
+/*** IteratorWorkloads.java ***************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Sets up the operations of IteratorBenchmark.               *
+\******************************************************************************/
+
+import benchmark.Workload;
+
+import org.apfloat.Apcomplex;
+
+
+/* Factory for benchmark.IteratorBenchmark, which describes what's measured. params are the point and the precision. */
+public class IteratorWorkloads {
+  private IteratorWorkloads() {} // Prevent instantiation
+
+  public static Workload create(String operation, String... params) {
+    final String point = params[0];
+    final long precision = Long.parseLong(params[1]);
+
+    BenchmarkPoints.configure(precision);
+    final FractalIterator iterator = BenchmarkPoints.mandelbrot(false);
+    iterator.setPrecision(precision);
+    final Apcomplex c = BenchmarkPoints.point(point, precision);
+
+    switch(operation) {
+      case "iterate_mandelbrot":
+        return blackhole -> blackhole.consume(iterator.iterate_mandelbrot(c));
+      default:
+        throw BenchmarkPoints.unknownOperation(operation);
+    }
+  }
+}
@@ -0,0 +1,66 @@
+/*** RenderWorkloads.java *****************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Sets up the operations of RenderBenchmark.                 *
+\******************************************************************************/
+
+import benchmark.Workload;
+
+import org.apfloat.Apcomplex;
+import org.apfloat.Apfloat;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+
+/* Factory for benchmark.RenderBenchmark, which describes what's measured. params are the view, whether to use
+   perturbation and whether RenderMetrics is on. System.out goes to a null stream until the workload is closed.
+*/
+public class RenderWorkloads {
+  private static final int width = 320, height = 240;
+
+  private RenderWorkloads() {} // Prevent instantiation
+
+  public static Workload create(String operation, String... params) {
+    if(!operation.equals("render")) {
+      throw BenchmarkPoints.unknownOperation(operation);
+    }
+    final String view = params[0];
+
+    BenchmarkPoints.configure(1408);
+    RenderCache.enabled = false;
+    RenderMetrics.enabled = Boolean.parseBoolean(params[2]);
+    RenderMetrics.jmx = false;
+    RenderMetrics.logSeconds = 0;
+    RenderMetrics.start();
+
+    final FractalIterator iterator = BenchmarkPoints.mandelbrot(false);
+    iterator.perturbation = Boolean.parseBoolean(params[1]);
+    final RenderEngine engine = new RenderEngine(iterator, Runtime.getRuntime().availableProcessors());
+
+    final RenderView renderView;
+    if(view.equals("overview")) {
+      renderView = RenderView.centered(new Apcomplex(new Apfloat("-0.75", 1408)), new Apfloat("2.5", 1408), width, height,
+          1408);
+    } else {
+      renderView = RenderView.centered(BenchmarkPoints.point("boundary", 1408), new Apfloat(view, 1408), width, height,
+          1408);
+    }
+
+    final PrintStream out = System.out;
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    return new Workload() {
+      @Override
+      public void run(Blackhole blackhole) {
+        blackhole.consume(engine.render(renderView));
+      }
+
+      @Override
+      public void close() {
+        engine.shutdown();
+        System.setOut(out);
+      }
+    };
+  }
+}
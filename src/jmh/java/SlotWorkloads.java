@@ -0,0 +1,91 @@
+/*** SlotWorkloads.java *******************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Sets up the operations of SlotBenchmark.                   *
+\******************************************************************************/
+
+import benchmark.Workload;
+
+import org.apfloat.Apcomplex;
+import org.apfloat.Apfloat;
+
+
+/* Factory for benchmark.SlotBenchmark, which describes what's measured. params are the function, the number of slots
+   and the precision.
+*/
+public class SlotWorkloads {
+  private static final int maxIterations = 64; // The general iterators are slow enough without the Mandelbrot's 1000
+
+  private SlotWorkloads() {} // Prevent instantiation
+
+  public static Workload create(String operation, String... params) {
+    final String function = params[0];
+    final int slots = Integer.parseInt(params[1]);
+    final long precision = Long.parseLong(params[2]);
+
+    BenchmarkPoints.configure(precision);
+    FractalIterator.maxIterations = maxIterations;
+    final Apcomplex c = BenchmarkPoints.point("interior", precision);
+    final Apcomplex z = new Apcomplex(new Apfloat("0.25", precision), new Apfloat("0.5", precision));
+
+    switch(operation) {
+      case "iterate_arbitrary_fractal": {
+        final Slot[] s = new Slot[3];
+        for(int i = 0; i < 3; i++) {
+          s[i] = i < slots ? slot(function, slots, precision) : FractalIterator.emptySlot;
+        }
+        final FractalIterator iterator = new FractalIterator(s[0], s[1], s[2], Apcomplex.ONE, Apcomplex.ONE,
+            new boolean[] {false, false}, false);
+        iterator.setPrecision(precision);
+        switch(slots) {
+          case 1:
+            return blackhole -> blackhole.consume(iterator.iterate_arbitrary_fractal_1s(c));
+          case 2:
+            return blackhole -> blackhole.consume(iterator.iterate_arbitrary_fractal_2s(c));
+          default:
+            return blackhole -> blackhole.consume(iterator.iterate_arbitrary_fractal_3s(c));
+        }
+      }
+      case "slotEval": {
+        final Slot slot = slot(function, slots, precision);
+        slot.setPrecision(precision);
+        return blackhole -> blackhole.consume(slot.eval(z));
+      }
+      case "planEval": {
+        final Slot slot = slot(function, slots, precision);
+        slot.setPrecision(precision);
+        final SlotPlan plan = slot.compile();
+        return blackhole -> blackhole.consume(plan.eval(z));
+      }
+      default:
+        throw BenchmarkPoints.unknownOperation(operation);
+    }
+  }
+
+  // (1/slots) * function(z), with the parameters described in SlotBenchmark
+  private static Slot slot(String function, int slots, long precision) {
+    final Apcomplex B = new Apcomplex(new Apfloat(1, precision).divide(new Apfloat(slots, precision)));
+    final Apcomplex two = new Apcomplex(new Apfloat(2));
+    final Apcomplex half = new Apcomplex(new Apfloat("0.5", precision));
+    final Apcomplex[] params;
+    switch(function) {
+      case "pow":
+        params = new Apcomplex[] {two};
+        break;
+      case "hyp2f1":
+        params = new Apcomplex[] {half, new Apcomplex(new Apfloat("1.5", precision)), half};
+        break;
+      default:
+        params = new Apcomplex[0];
+    }
+    final boolean[] zPositions = new boolean[5 + params.length];
+
+    if(function.equals("gamma")) { // gamma(2^z)
+      zPositions[3] = true;
+      return new Slot(function, B, Apcomplex.ONE, two, Apcomplex.ONE, Apcomplex.ONE, params, zPositions);
+    }
+    zPositions[2] = true;
+    return new Slot(function, B, Apcomplex.ONE, Apcomplex.ONE, function.equals("identity") ? two : Apcomplex.ONE,
+        Apcomplex.ONE, params, zPositions);
+  }
+}
@@ -0,0 +1,84 @@
+/*** BenchmarkRunner.java *****************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Runs the JMH benchmarks with allocation profiling and      *
+ *                 writes the results as JSON.                                *
+\******************************************************************************/
+
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+
+/* Main class of target/benchmarks.jar (see the benchmark profile in pom.xml). Takes JMH's usual command line, so a
+   subset can be picked by regex and parameters overridden, e.g.
+
+     java --add-modules jdk.incubator.vector -jar target/benchmarks.jar IteratorBenchmark -p precision=128
+
+   On top of what's given there, every run gets the GC profiler (allocation rate and bytes per operation, next to the
+   time) and writes its results to target/jmh-<date>.json (JSON, unless -rf or -rff say otherwise), so runs before and
+   after a change can be compared. The forks get jdk.incubator.vector so the vector kernel can be measured. -h, -l,
+   -lp, -lprof and -lrf only print what they ask for.
+*/
+public class BenchmarkRunner {
+  public static void main(String[] args) throws RunnerException {
+    final CommandLineOptions commandLine;
+    try {
+      commandLine = new CommandLineOptions(args);
+    } catch(CommandLineOptionException e) {
+      System.out.println("ERROR: Bad benchmark options. Details:\n" + e.getMessage());
+      System.exit(1);
+      return;
+    }
+
+    if(commandLine.shouldHelp()) { // The queries JMH answers without running anything
+      try {
+        commandLine.showHelp();
+      } catch(IOException e) {
+        System.out.println("ERROR: Couldn't print the benchmark options. Details:\n" + e.getMessage());
+      }
+      return;
+    }
+    if(commandLine.shouldList() || commandLine.shouldListWithParams()) {
+      final Runner runner = new Runner(commandLine);
+      if(commandLine.shouldListWithParams()) {
+        runner.listWithParams(commandLine);
+      } else {
+        runner.list();
+      }
+      return;
+    }
+    if(commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+      if(commandLine.shouldListProfilers()) {
+        commandLine.listProfilers();
+      }
+      if(commandLine.shouldListResultFormats()) {
+        commandLine.listResultFormats();
+      }
+      return;
+    }
+
+    final ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine)
+        .addProfiler(GCProfiler.class)
+        .jvmArgsAppend("--add-modules", "jdk.incubator.vector");
+    final ResultFormatType format = commandLine.getResultFormat().orElse(ResultFormatType.JSON);
+    options.resultFormat(format);
+    if(!commandLine.getResult().hasValue()) {
+      options.result("target/jmh-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + "."
+          + format.toString().toLowerCase());
+    }
+
+    new Runner(options.build()).run();
+  }
+}
@@ -0,0 +1,52 @@
+/*** ColorBenchmark.java ******************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Benchmarks recoloring a finished render with ColorMapper.  *
+\******************************************************************************/
+
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+
+/* Time to color a 1024x768 buffer in each mode, which is all a recolor costs. The buffer is rendered once per trial:
+   the view around the boundary point at a scale of 1e-3, so its counts spread over most of the iteration range and the
+   histogram modes have something to equalize. It keeps smooth values, so SMOOTH interpolates instead of falling back
+   to HISTOGRAM.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColorBenchmark {
+  @Param({"LINEAR", "HISTOGRAM", "SMOOTH"}) // ColorMapper.Mode
+  public String mode;
+
+  private Workload color;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    color = Workload.create("ColorWorkloads", "color", mode);
+  }
+
+  @Benchmark
+  public void color(Blackhole blackhole) {
+    color.run(blackhole);
+  }
+}
@@ -0,0 +1,75 @@
+/*** FastIteratorBenchmark.java ***********************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Benchmarks the Mandelbrot iterators whose speed doesn't    *
+ *                 depend on the working precision.                           *
+\******************************************************************************/
+
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+
+/* Time per point of the double iterators (scalar and, if jdk.incubator.vector is there, a row of vectorRow points
+   through VectorMandelbrotKernel, so divide by vectorRow to compare) and of the double-double and quad-double iterators
+   that stand in for iterate_mandelbrot() when a view doesn't need more digits.
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FastIteratorBenchmark {
+  @Param({"interior", "boundary", "escape"})
+  public String point;
+
+  private Workload iterate_mandelbrot_fast, iterate_multibrot_fast, vectorRow, doubleDouble, quadDouble;
+
+  @Setup
+  public void setup() {
+    iterate_mandelbrot_fast = Workload.create("FastIteratorWorkloads", "iterate_mandelbrot_fast", point);
+    iterate_multibrot_fast = Workload.create("FastIteratorWorkloads", "iterate_multibrot_fast", point);
+    vectorRow = Workload.create("FastIteratorWorkloads", "vectorRow", point);
+    doubleDouble = Workload.create("FastIteratorWorkloads", "doubleDouble", point);
+    quadDouble = Workload.create("FastIteratorWorkloads", "quadDouble", point);
+  }
+
+  @Benchmark
+  public void iterate_mandelbrot_fast(Blackhole blackhole) {
+    iterate_mandelbrot_fast.run(blackhole);
+  }
+
+  @Benchmark
+  public void iterate_multibrot_fast(Blackhole blackhole) {
+    iterate_multibrot_fast.run(blackhole);
+  }
+
+  @Benchmark
+  public void vectorRow(Blackhole blackhole) {
+    vectorRow.run(blackhole);
+  }
+
+  @Benchmark
+  public void doubleDouble(Blackhole blackhole) {
+    doubleDouble.run(blackhole);
+  }
+
+  @Benchmark
+  public void quadDouble(Blackhole blackhole) {
+    quadDouble.run(blackhole);
+  }
+}
@@ -0,0 +1,53 @@
+/*** IteratorBenchmark.java ***************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Benchmarks the arbitrary precision Mandelbrot              *
+ *                 iterator on single points.                                 *
+\******************************************************************************/
+
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+
+/* Time per point of iterate_mandelbrot() at the working precisions of a shallow (16 digits), medium (128) and deep
+   (1408, the default maxPrecision) zoom. The iterators that don't depend on the precision are in FastIteratorBenchmark.
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IteratorBenchmark {
+  @Param({"interior", "boundary", "escape"})
+  public String point;
+
+  @Param({"16", "128", "1408"})
+  public long precision;
+
+  private Workload iterate_mandelbrot;
+
+  @Setup
+  public void setup() {
+    iterate_mandelbrot = Workload.create("IteratorWorkloads", "iterate_mandelbrot", point, String.valueOf(precision));
+  }
+
+  @Benchmark
+  public void iterate_mandelbrot(Blackhole blackhole) {
+    iterate_mandelbrot.run(blackhole);
+  }
+}
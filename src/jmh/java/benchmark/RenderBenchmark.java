@@ -0,0 +1,69 @@
+/*** RenderBenchmark.java *****************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Benchmarks full-frame renders of the Mandelbrot Set        *
+ *                 through RenderEngine.                                      *
+\******************************************************************************/
+
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+
+/* Time per 320x240 frame, on all available threads, with everything the engine would pick by itself (precision tier,
+   kernel, adaptive precision, series approximation) except the render cache, which would turn every frame after the
+   first into a file read. The views are the whole set and the boundary point at scales of 1e-12, 1e-40 and 1e-80, with
+   and without perturbation; the shallower views never get to use it, so they're a check that it costs nothing there.
+   Each case also runs with RenderMetrics on (sampler running, no JMX or log line) and off, which measures what the
+   per-tile counters cost.
+
+   The engine's progress messages go to a null stream for the duration of the trial.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RenderBenchmark {
+  @Param({"overview", "1e-12", "1e-40", "1e-80"})
+  public String view;
+
+  @Param({"true", "false"})
+  public boolean perturbation;
+
+  @Param({"true", "false"})
+  public boolean metrics;
+
+  private Workload render;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    render = Workload.create("RenderWorkloads", "render", view, String.valueOf(perturbation), String.valueOf(metrics));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    render.close();
+  }
+
+  @Benchmark
+  public void render(Blackhole blackhole) {
+    render.run(blackhole);
+  }
+}
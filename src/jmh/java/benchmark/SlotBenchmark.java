@@ -0,0 +1,75 @@
+/*** SlotBenchmark.java *******************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Benchmarks the general arbitrary precision iterators with  *
+ *                 every function and number of z-slots.                      *
+\******************************************************************************/
+
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+
+/* Every one of the `slots` slots is (1/slots) * function(z), so the fractal stays near the Mandelbrot Set's scale and
+   the interior point runs all maxIterations for most functions. The further parameters are 2 for pow and
+   (0.5, 1.5, 0.5) for hyp2f1; identity is squared (p = 2) to give the Mandelbrot Set itself. gamma has a pole at the
+   orbit's starting point 0, so its argument is 2^z instead of z.
+
+   iterate_arbitrary_fractal_Ns is timed per point. slotEval and planEval time one evaluation of a single slot at a
+   fixed z, through Slot.eval() (PairCoefficient, as the slot is written) and through its SlotPlan (as the iterators
+   evaluate it), to see what the plan saves per function.
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SlotBenchmark {
+  @Param({"identity", "sin", "pow", "gamma", "hyp2f1"})
+  public String function;
+
+  @Param({"1", "2", "3"})
+  public int slots;
+
+  @Param({"16", "128", "1408"})
+  public long precision;
+
+  private Workload iterate_arbitrary_fractal, slotEval, planEval;
+
+  @Setup
+  public void setup() {
+    final String[] params = {function, String.valueOf(slots), String.valueOf(precision)};
+    iterate_arbitrary_fractal = Workload.create("SlotWorkloads", "iterate_arbitrary_fractal", params);
+    slotEval = Workload.create("SlotWorkloads", "slotEval", params);
+    planEval = Workload.create("SlotWorkloads", "planEval", params);
+  }
+
+  @Benchmark
+  public void iterate_arbitrary_fractal(Blackhole blackhole) {
+    iterate_arbitrary_fractal.run(blackhole);
+  }
+
+  @Benchmark
+  public void slotEval(Blackhole blackhole) {
+    slotEval.run(blackhole);
+  }
+
+  @Benchmark
+  public void planEval(Blackhole blackhole) {
+    planEval.run(blackhole);
+  }
+}
@@ -0,0 +1,43 @@
+/*** Workload.java ************************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    One benchmarked operation, set up by a factory in the      *
+ *                 default package.                                           *
+\******************************************************************************/
+
+package benchmark;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.InvocationTargetException;
+
+
+/* The renderer's classes are in the default package, which JMH doesn't allow benchmarks in and which no named package
+   can refer to. So the benchmarks here only hold the parameters, and the work is set up on the other side by a factory
+   class in the default package (IteratorWorkloads etc., next to BenchmarkPoints), which can see both: its
+   create(String operation, String... params) returns the operation as a Workload. create() is looked up by reflection
+   once per trial; after that, every call is an ordinary interface call with a single implementation behind it, which
+   the JIT inlines.
+*/
+public interface Workload {
+  // Runs the operation once, handing its result to the blackhole so it can't be optimized away
+  void run(Blackhole blackhole);
+
+  // Frees whatever the factory set up
+  default void close() {}
+
+  // Calls factory.create(operation, params), where factory is a class in the default package
+  static Workload create(String factory, String operation, String... params) {
+    try {
+      return (Workload)Class.forName(factory).getMethod("create", String.class, String[].class)
+          .invoke(null, operation, params);
+    } catch(InvocationTargetException e) {
+      if(e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException)e.getCause();
+      }
+      throw new IllegalStateException("\nERROR: " + factory + " failed to set up " + operation, e.getCause());
+    } catch(ReflectiveOperationException e) {
+      throw new IllegalStateException("\nERROR: No workload factory " + factory, e);
+    }
+  }
+}
@@ -0,0 +1,392 @@
+/*** BigFloatComplex.java *****************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Implements an arbitrary precision complex number that's    *
+ *                 modified in place, so the Apcomplex-tier hot loops don't   *
+ *                 allocate anything per iteration.                           *
+\******************************************************************************/
+
+import org.apfloat.Apcomplex;
+import org.apfloat.Apfloat;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+
+/* Every Apcomplex operation allocates a new number (and the Apfloats and digit storage inside it), so an Apcomplex
+   Mandelbrot iteration produces about a dozen objects. On the Pi's small heap that's constant garbage collection.
+
+   This is a binary floating-point number with a fixed number of 32-bit limbs per component, all allocated up front.
+   Each real number is a sign, an exponent and a mantissa of `limbs` limbs, normalized so the top bit is set:
+
+     value = (-1)^negative * mantissa * 2^(exp - 32 * limbs),   2^(exp - 1) <= |value| < 2^exp
+
+   Products are computed in full into a shared work buffer and truncated back to `limbs` limbs; sums align the smaller
+   operand by shifting it as it's read. Results are truncated rather than rounded, which costs up to one unit in the
+   last limb per operation. limbsFor() adds a whole guard limb on top of the requested digits to absorb that.
+
+   Multiplication is schoolbook, which at the few hundred digits a deep view typically needs is what Apfloat does too.
+   Only add, multiply, square and integer powers are supported (no sin), which covers the Mandelbrot Set and polynomial
+   fractals; anything else stays on Apcomplex.
+*/
+public class BigFloatComplex extends MutableComplex {
+  private static final long MASK = 0xFFFFFFFFL;
+  private static final double BITS_PER_DIGIT = Math.log(10) / Math.log(2);
+
+  private final int limbs;
+  private final Real re, im;
+  private final Real t0, t1, t2; // Scratch
+  private final int[] work; // Full-length products and aligned operands
+
+  public BigFloatComplex(int limbs) {
+    if(limbs < 2) {
+      throw new IllegalArgumentException("\nERROR: A BigFloatComplex needs at least 2 limbs. Got: " + limbs);
+    }
+    this.limbs = limbs;
+    this.re = new Real(limbs);
+    this.im = new Real(limbs);
+    this.t0 = new Real(limbs);
+    this.t1 = new Real(limbs);
+    this.t2 = new Real(limbs);
+    this.work = new int[2 * limbs];
+  }
+
+  // Number of limbs needed to hold `digits` decimal digits, plus a guard limb
+  public static int limbsFor(long digits) {
+    return Math.max(2, (int)Math.ceil(digits * BITS_PER_DIGIT / 32) + 1);
+  }
+
+  public int limbs() {
+    return limbs;
+  }
+
+  // Binary exponent of 10^digits, rounded down; for converting decimal thresholds
+  public static long bitsFor(long digits) {
+    return (long)Math.floor(digits * BITS_PER_DIGIT);
+  }
+
+  @Override
+  public void set(Apcomplex value) {
+    re.set(value.real());
+    im.set(value.imag());
+  }
+
+  @Override
+  public void set(MutableComplex other) {
+    BigFloatComplex o = (BigFloatComplex)other;
+    re.set(o.re);
+    im.set(o.im);
+  }
+
+  @Override
+  public void setZero() {
+    re.zero = true;
+    im.zero = true;
+  }
+
+  @Override
+  public void setOne() {
+    re.setOne();
+    im.zero = true;
+  }
+
+  @Override
+  public void add(MutableComplex other) {
+    BigFloatComplex o = (BigFloatComplex)other;
+    add(re, re, o.re, false, work);
+    add(im, im, o.im, false, work);
+  }
+
+  public void subtract(BigFloatComplex other) {
+    add(re, re, other.re, true, work);
+    add(im, im, other.im, true, work);
+  }
+
+  @Override
+  public void multiply(MutableComplex other) {
+    BigFloatComplex o = (BigFloatComplex)other; // May be this
+    // (a + bi)(c + di) = (ac - bd) + (ad + bc)i
+    multiply(t0, re, o.re, work);
+    multiply(t1, im, o.im, work);
+    multiply(t2, re, o.im, work);
+    multiply(im, im, o.re, work); // o.re is still the original even if o is this
+    add(im, im, t2, false, work);
+    add(re, t0, t1, true, work);
+  }
+
+  @Override
+  public void square() {
+    // (a + bi)^2 = (a^2 - b^2) + 2abi
+    multiply(t0, re, re, work);
+    multiply(t1, im, im, work);
+    multiply(im, re, im, work);
+    im.exp++; // Times 2; harmless if it's zero
+    add(re, t0, t1, true, work);
+  }
+
+  @Override
+  public double magnitude2() {
+    double x = re.doubleValue(), y = im.doubleValue();
+    return x * x + y * y;
+  }
+
+  @Override
+  protected int compareMagnitude2(double threshold2) {
+    multiply(t0, re, re, work);
+    multiply(t1, im, im, work);
+    add(t0, t0, t1, false, work);
+    t1.set(threshold2);
+    add(t0, t0, t1, true, work);
+    return t0.zero ? 0 : t0.negative ? -1 : 1;
+  }
+
+  @Override
+  public MutableComplex create() {
+    return new BigFloatComplex(limbs);
+  }
+
+  // True if both components of this - other are smaller than 2^exponent in magnitude
+  public boolean isWithin(BigFloatComplex other, long exponent) {
+    add(t0, re, other.re, true, work);
+    add(t1, im, other.im, true, work);
+    return (t0.zero || t0.exp < exponent) && (t1.zero || t1.exp < exponent);
+  }
+
+  // dst = a * b. dst may be a and/or b.
+  private static void multiply(Real dst, Real a, Real b, int[] work) {
+    if(a.zero || b.zero) {
+      dst.zero = true;
+      return;
+    }
+    final int n = a.m.length;
+    final boolean negative = a.negative != b.negative;
+    long exp = a.exp + b.exp;
+
+    Arrays.fill(work, 0, 2 * n, 0);
+    for(int i = 0; i < n; i++) {
+      final long ai = a.m[i] & MASK;
+      if(ai == 0) {
+        continue;
+      }
+      long carry = 0;
+      for(int j = 0; j < n; j++) { // Can't overflow: (2^32 - 1)^2 + 2 * (2^32 - 1) = 2^64 - 1
+        long t = ai * (b.m[j] & MASK) + (work[i + j] & MASK) + carry;
+        work[i + j] = (int)t;
+        carry = t >>> 32;
+      }
+      work[i + n] = (int)carry;
+    }
+
+    if(work[2 * n - 1] >= 0) { // Top bit clear: the product of two normalized mantissas is off by at most one bit
+      for(int k = 2 * n - 1; k >= n; k--) {
+        work[k] = (work[k] << 1) | (work[k - 1] >>> 31);
+      }
+      exp--;
+    }
+    System.arraycopy(work, n, dst.m, 0, n);
+    dst.exp = exp;
+    dst.negative = negative;
+    dst.zero = false;
+  }
+
+  // dst = a + b, or a - b if subtract is set. dst may be a and/or b.
+  private static void add(Real dst, Real a, Real b, boolean subtract, int[] work) {
+    final boolean bNegative = b.negative != subtract;
+    if(b.zero) {
+      dst.set(a);
+      return;
+    }
+    if(a.zero) {
+      dst.set(b);
+      dst.negative = bNegative;
+      return;
+    }
+
+    final Real big, small;
+    final boolean bigNegative, smallNegative;
+    if(compareMagnitude(a, b) >= 0) {
+      big = a;
+      bigNegative = a.negative;
+      small = b;
+      smallNegative = bNegative;
+    } else {
+      big = b;
+      bigNegative = bNegative;
+      small = a;
+      smallNegative = a.negative;
+    }
+
+    final int n = big.m.length;
+    shiftRight(small.m, big.exp - small.exp, work);
+    long exp = big.exp;
+
+    if(bigNegative == smallNegative) { // Magnitudes add up
+      long carry = 0;
+      for(int i = 0; i < n; i++) {
+        long t = (big.m[i] & MASK) + (work[i] & MASK) + carry;
+        work[i] = (int)t;
+        carry = t >>> 32;
+      }
+      if(carry != 0) { // One bit too long
+        for(int i = 0; i < n - 1; i++) {
+          work[i] = (work[i] >>> 1) | (work[i + 1] << 31);
+        }
+        work[n - 1] = (work[n - 1] >>> 1) | 0x80000000;
+        exp++;
+      }
+    } else { // Magnitudes cancel; big is at least as large as small, so this can't go negative
+      long borrow = 0;
+      for(int i = 0; i < n; i++) {
+        long t = (big.m[i] & MASK) - (work[i] & MASK) - borrow;
+        work[i] = (int)t;
+        borrow = t >>> 63;
+      }
+
+      int top = n - 1;
+      while(top >= 0 && work[top] == 0) {
+        top--;
+      }
+      if(top < 0) { // Exact cancellation
+        dst.zero = true;
+        return;
+      }
+      int shift = 32 * (n - 1 - top) + Integer.numberOfLeadingZeros(work[top]);
+      shiftLeft(work, n, shift);
+      exp -= shift;
+    }
+
+    System.arraycopy(work, 0, dst.m, 0, n);
+    dst.exp = exp;
+    dst.negative = bigNegative;
+    dst.zero = false;
+  }
+
+  // Compares |a| and |b|, both non-zero
+  private static int compareMagnitude(Real a, Real b) {
+    if(a.exp != b.exp) {
+      return a.exp > b.exp ? 1 : -1;
+    }
+    for(int i = a.m.length - 1; i >= 0; i--) {
+      int c = Integer.compareUnsigned(a.m[i], b.m[i]);
+      if(c != 0) {
+        return c;
+      }
+    }
+    return 0;
+  }
+
+  // dst[0, src.length) = src >> shift; the bits shifted out are dropped
+  private static void shiftRight(int[] src, long shift, int[] dst) {
+    final int n = src.length;
+    if(shift >= 32L * n) {
+      Arrays.fill(dst, 0, n, 0);
+      return;
+    }
+    final int q = (int)(shift >>> 5), r = (int)(shift & 31);
+    for(int i = 0; i < n; i++) {
+      int lo = i + q < n ? src[i + q] : 0;
+      int hi = i + q + 1 < n ? src[i + q + 1] : 0;
+      dst[i] = r == 0 ? lo : (lo >>> r) | (hi << (32 - r));
+    }
+  }
+
+  // x[0, n) <<= shift in place, for shift < 32 * n
+  private static void shiftLeft(int[] x, int n, int shift) {
+    final int q = shift >>> 5, r = shift & 31;
+    for(int i = n - 1; i >= 0; i--) {
+      int hi = i - q >= 0 ? x[i - q] : 0;
+      int lo = i - q - 1 >= 0 ? x[i - q - 1] : 0;
+      x[i] = r == 0 ? hi : (hi << r) | (lo >>> (32 - r));
+    }
+  }
+
+  // One component
+  private static final class Real {
+    final int[] m; // Mantissa, least significant limb first; meaningless if zero is set
+    long exp;
+    boolean negative;
+    boolean zero = true;
+
+    Real(int limbs) {
+      this.m = new int[limbs];
+    }
+
+    void set(Real other) {
+      System.arraycopy(other.m, 0, m, 0, m.length);
+      exp = other.exp;
+      negative = other.negative;
+      zero = other.zero;
+    }
+
+    void setOne() {
+      Arrays.fill(m, 0);
+      m[m.length - 1] = 0x80000000;
+      exp = 1;
+      negative = false;
+      zero = false;
+    }
+
+    // Converts a normal double exactly
+    void set(double x) {
+      if(x == 0) {
+        zero = true;
+        return;
+      }
+      final int e = Math.getExponent(x); // 2^e <= |x| < 2^(e + 1)
+      final long top = (long)Math.scalb(Math.abs(x), 62 - e) << 1; // All 53 bits, top bit set
+      Arrays.fill(m, 0);
+      m[m.length - 1] = (int)(top >>> 32);
+      m[m.length - 2] = (int)top;
+      exp = e + 1;
+      negative = x < 0;
+      zero = false;
+    }
+
+    // Converts an Apfloat exactly (up to truncation to the mantissa length); allocates, so it's only for setting up
+    void set(Apfloat x) {
+      if(x.signum() == 0) {
+        zero = true;
+        return;
+      }
+      final int bits = 32 * m.length;
+      final BigDecimal decimal = new BigDecimal(x.toString(true));
+      final BigInteger unscaled = decimal.unscaledValue().abs();
+      final int scale = decimal.scale();
+
+      // value = mantissa * 2^exponent with at least `bits` bits in mantissa
+      BigInteger mantissa;
+      long exponent;
+      if(scale <= 0) {
+        mantissa = unscaled.multiply(BigInteger.TEN.pow(-scale));
+        exponent = 0;
+      } else {
+        BigInteger denominator = BigInteger.TEN.pow(scale);
+        int k = bits + 1 - (unscaled.bitLength() - denominator.bitLength());
+        mantissa = k >= 0 ? unscaled.shiftLeft(k).divide(denominator) : unscaled.divide(denominator.shiftLeft(-k));
+        exponent = -k;
+      }
+
+      int drop = mantissa.bitLength() - bits;
+      mantissa = drop >= 0 ? mantissa.shiftRight(drop) : mantissa.shiftLeft(-drop);
+      for(int i = 0; i < m.length; i++) {
+        m[i] = mantissa.shiftRight(32 * i).intValue();
+      }
+      exp = exponent + drop + bits;
+      negative = x.signum() < 0;
+      zero = false;
+    }
+
+    // The value rounded down to a double; overflows to infinity and underflows to zero
+    double doubleValue() {
+      if(zero) {
+        return 0;
+      }
+      final int n = m.length;
+      long top = ((m[n - 1] & MASK) << 32) | (m[n - 2] & MASK);
+      double value = exp > 2048 ? Double.POSITIVE_INFINITY
+          : exp < -2048 ? 0 : Math.scalb((double)(top >>> 11), (int)exp - 53);
+      return negative ? -value : value;
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/*** BoundaryTracer.java ******************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Renders a tile by iterating only the borders of            *
+ *                 rectangles and filling in the ones whose border is         *
+ *                 uniform (Mariani-Silver subdivision).                      *
+\******************************************************************************/
+
+
+/* The Mandelbrot Set and its interior are connected, so a rectangle whose whole border has the same iteration count
+   almost always has that count everywhere inside, too. Instead of iterating every pixel of a tile, this iterates its
+   border first. If every border pixel agrees, the inside is filled with that count without iterating it. Otherwise the
+   rectangle is cut in half across its longer side, the dividing line is iterated, and both halves (whose borders are
+   now all known) are handled the same way. Rectangles too small to be worth splitting are iterated in full.
+
+   Everything is iterated through the render's kernel on thin strips of pixels, so this works with every kernel
+   KernelSelector can pick. It pays off most on the Apcomplex slot iterators, where a single pixel can take seconds, and
+   on large interior regions, which cost maxIterations per pixel. Larger tiles give it more room to skip pixels.
+
+   The assumption can fail for fractals that aren't connected, or when a thin filament passes through a rectangle
+   without touching its border, which is why RenderEngine.boundaryTracing is off by default. With verify set, the
+   center of every rectangle is iterated before it's filled, and a rectangle whose center disagrees with its border is
+   subdivided instead.
+
+   A filled pixel gets the count but no smooth value of its own, since that depends on where its orbit escaped. So when
+   the buffer keeps smooth values, only rectangles that never escaped (whose smooth values don't matter) are filled, and
+   the inside of any other uniform rectangle is iterated, which keeps the bands between counts from coming back.
+*/
+public class BoundaryTracer {
+  private static final int MIN_SIZE = 4; // Rectangles with a side shorter than this are iterated in full
+
+  private final KernelSelector.Kernel kernel;
+  private final FractalIterator iterator;
+  private final RenderView view;
+  private final IterationBuffer buffer;
+  private final boolean verify;
+
+  public long filledPixels; // Pixels whose count was filled in instead of iterated
+  public long rejectedFills; // Rectangles whose center disagreed with their uniform border
+  public long iteratedPixels, iterations; // Pixels that were iterated, and the sum of their counts
+
+  public BoundaryTracer(KernelSelector.Kernel kernel, FractalIterator iterator, RenderView view, IterationBuffer buffer, boolean verify) {
+    this.kernel = kernel;
+    this.iterator = iterator;
+    this.view = view;
+    this.buffer = buffer;
+    this.verify = verify;
+  }
+
+  // Fills in every pixel of the tile [x0, x1) x [y0, y1)
+  public void renderTile(int x0, int y0, int x1, int y1) {
+    if(x1 - x0 < MIN_SIZE || y1 - y0 < MIN_SIZE) {
+      iterate(x0, y0, x1, y1);
+      return;
+    }
+
+    iterate(x0, y0, x1, y0 + 1); // Top row
+    iterate(x0, y1 - 1, x1, y1); // Bottom row
+    iterate(x0, y0 + 1, x0 + 1, y1 - 1); // Left column
+    iterate(x1 - 1, y0 + 1, x1, y1 - 1); // Right column
+    trace(x0, y0, x1, y1);
+  }
+
+  // Fills in the inside of the rectangle [x0, x1) x [y0, y1), whose border pixels are already in the buffer
+  private void trace(int x0, int y0, int x1, int y1) {
+    final int w = x1 - x0, h = y1 - y0;
+    if(w <= 2 || h <= 2) { // No inside
+      return;
+    }
+
+    final int count = uniformBorder(x0, y0, x1, y1);
+    if(count >= 0 && count < buffer.maxIterations && buffer.smooth != null) { // See the class comment
+      iterate(x0 + 1, y0 + 1, x1 - 1, y1 - 1);
+      return;
+    }
+    if(count >= 0) {
+      final int cx = (x0 + x1) >>> 1, cy = (y0 + y1) >>> 1;
+      if(verify) {
+        iterate(cx, cy, cx + 1, cy + 1);
+      }
+      if(!verify || buffer.get(cx, cy) == count) {
+        for(int y = y0 + 1; y < y1 - 1; y++) {
+          for(int x = x0 + 1; x < x1 - 1; x++) {
+            buffer.set(x, y, count);
+          }
+        }
+        filledPixels += (long)(w - 2) * (h - 2) - (verify ? 1 : 0);
+        return;
+      }
+      rejectedFills++;
+    }
+
+    if(w < MIN_SIZE || h < MIN_SIZE) {
+      iterate(x0 + 1, y0 + 1, x1 - 1, y1 - 1);
+    } else if(w >= h) { // Split at a column, which becomes the right border of the left half and the left of the right
+      final int xm = (x0 + x1) >>> 1;
+      iterate(xm, y0 + 1, xm + 1, y1 - 1);
+      trace(x0, y0, xm + 1, y1);
+      trace(xm, y0, x1, y1);
+    } else { // Split at a row
+      final int ym = (y0 + y1) >>> 1;
+      iterate(x0 + 1, ym, x1 - 1, ym + 1);
+      trace(x0, y0, x1, ym + 1);
+      trace(x0, ym, x1, y1);
+    }
+  }
+
+  // Iterates the pixels of [x0, x1) x [y0, y1) and counts them
+  private void iterate(int x0, int y0, int x1, int y1) {
+    kernel.renderTile(iterator, view, buffer, x0, y0, x1, y1);
+    for(int y = y0; y < y1; y++) {
+      for(int x = x0; x < x1; x++) {
+        iterations += buffer.get(x, y);
+      }
+    }
+    iteratedPixels += (long)(x1 - x0) * (y1 - y0);
+  }
+
+  // The count every border pixel of the rectangle has, or -1 if they don't all have the same one
+  private int uniformBorder(int x0, int y0, int x1, int y1) {
+    final int count = buffer.get(x0, y0);
+    for(int x = x0; x < x1; x++) {
+      if(buffer.get(x, y0) != count || buffer.get(x, y1 - 1) != count) {
+        return -1;
+      }
+    }
+    for(int y = y0 + 1; y < y1 - 1; y++) {
+      if(buffer.get(x0, y) != count || buffer.get(x1 - 1, y) != count) {
+        return -1;
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,192 @@
+/*** ColorMapper.java *********************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Turns the iteration counts of a finished render into       *
+ *                 colors, separately from (and much faster than) rendering.  *
+\******************************************************************************/
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+
+/* Coloring is a pass over an IterationBuffer that never touches the fractal, so a render that took hours can be
+   recolored with a different mode or palette in milliseconds. Every mode maps a pixel to a position t in [0, 1] on the
+   palette; points that never escaped get the palette's interior color instead.
+
+   - LINEAR:    t = count / maxIterations
+   - HISTOGRAM: t = fraction of the escaped pixels whose count is at most this pixel's. Spreads the colors evenly over
+                the image however the counts are distributed, which keeps deep zooms (where every count is large) from
+                coming out as a single color.
+   - SMOOTH:    HISTOGRAM, interpolated between neighbouring counts with the buffer's smooth iteration values, which
+                removes the bands between counts. Buffers without smooth values get plain HISTOGRAM.
+
+   The histogram and the colors are both computed on the common ForkJoinPool, a band of rows per task.
+*/
+public class ColorMapper {
+  private static final int ROWS_PER_TASK = 16; // Rows colored per task; small enough to spread a preview over every core
+
+  public enum Mode { LINEAR, HISTOGRAM, SMOOTH }
+
+  private ColorMapper() {} // Prevent instantiation
+
+  // Returns the color of every pixel of the buffer as 0xRRGGBB, row-major like the buffer itself
+  public static int[] color(IterationBuffer buffer, Mode mode, Palette palette) {
+    return color(buffer, mode, palette, mode != Mode.LINEAR ? histogram(buffer) : null);
+  }
+
+  // Same as color(buffer, mode, palette), but HISTOGRAM and SMOOTH spread the colors by the given histogram instead of
+  // the buffer's own, so a band of a larger image gets the same colors as the whole image would (see StreamingRender)
+  public static int[] color(IterationBuffer buffer, Mode mode, Palette palette, long[] histogram) {
+    return color(buffer, mode, palette, histogram, false);
+  }
+
+  // The colors of the buffer as an image, ready to be saved. Gray palettes (the default among them) give a 16-bit
+  // grayscale image, like the renderer always wrote before there were palettes; the others 8 bits per channel.
+  public static BufferedImage image(IterationBuffer buffer, Mode mode, Palette palette) {
+    final long[] histogram = mode != Mode.LINEAR ? histogram(buffer) : null;
+    if(palette.isGray()) {
+      final BufferedImage image = new BufferedImage(buffer.width, buffer.height, BufferedImage.TYPE_USHORT_GRAY);
+      image.getRaster().setSamples(0, 0, buffer.width, buffer.height, 0, color(buffer, mode, palette, histogram, true));
+      return image;
+    }
+    final BufferedImage image = new BufferedImage(buffer.width, buffer.height, BufferedImage.TYPE_INT_RGB);
+    image.setRGB(0, 0, buffer.width, buffer.height, color(buffer, mode, palette, histogram, false), 0, buffer.width);
+    return image;
+  }
+
+  // 0xRRGGBB colors, or 16-bit gray samples if gray16 (for gray palettes only)
+  private static int[] color(IterationBuffer buffer, Mode mode, Palette palette, long[] histogram, boolean gray16) {
+    final int[] rgb = new int[buffer.width * buffer.height];
+    double[] cumulative = null;
+    if(mode != Mode.LINEAR) {
+      cumulative = cumulative(histogram, buffer.maxIterations);
+    }
+    ForkJoinPool.commonPool().invoke(new ColorTask(buffer, mode, palette, cumulative, gray16, rgb, 0, buffer.height));
+    return rgb;
+  }
+
+  // Number of pixels with each count from 0 to maxIterations
+  public static long[] histogram(IterationBuffer buffer) {
+    return ForkJoinPool.commonPool().invoke(new HistogramTask(buffer, 0, buffer.height));
+  }
+
+  // cumulative[n] = fraction of the escaped pixels with a count of at most n
+  private static double[] cumulative(long[] histogram, int maxIterations) {
+    long escaped = 0;
+    for(int n = 0; n < maxIterations; n++) {
+      escaped += histogram[n];
+    }
+
+    double[] cumulative = new double[maxIterations];
+    long sum = 0;
+    for(int n = 0; n < maxIterations; n++) {
+      sum += histogram[n];
+      cumulative[n] = escaped > 0 ? (double)sum / escaped : 0;
+    }
+    return cumulative;
+  }
+
+  // Position of one pixel on the palette, or -1 if it never escaped
+  private static double position(IterationBuffer buffer, int i, Mode mode, double[] cumulative) {
+    final int count = buffer.counts[i];
+    if(count >= buffer.maxIterations) {
+      return -1;
+    }
+
+    switch(mode) {
+      case LINEAR:
+        return (double)count / buffer.maxIterations;
+      case SMOOTH:
+        if(buffer.smooth != null) {
+          double below = count > 0 ? cumulative[count - 1] : 0;
+          double fraction = buffer.smooth[i] - count;
+          return below + fraction * (cumulative[count] - below);
+        }
+        return cumulative[count];
+      default:
+        return cumulative[count];
+    }
+  }
+
+  // Counts the pixels of rows [from, to) by splitting the range until each task has a few rows
+  private static class HistogramTask extends RecursiveTask<long[]> {
+    private final IterationBuffer buffer;
+    private final int from, to;
+
+    HistogramTask(IterationBuffer buffer, int from, int to) {
+      this.buffer = buffer;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected long[] compute() {
+      // Each task has its own histogram of maxIterations + 1 entries, so stop splitting at about two tasks per core
+      final int minRows = Math.max(ROWS_PER_TASK, buffer.height / (2 * ForkJoinPool.getCommonPoolParallelism()));
+      if(to - from > minRows) {
+        int mid = (from + to) >>> 1;
+        HistogramTask upper = new HistogramTask(buffer, from, mid);
+        upper.fork();
+        long[] histogram = new HistogramTask(buffer, mid, to).compute();
+        long[] other = upper.join();
+        for(int n = 0; n < histogram.length; n++) {
+          histogram[n] += other[n];
+        }
+        return histogram;
+      }
+
+      long[] histogram = new long[buffer.maxIterations + 1];
+      for(int i = from * buffer.width; i < to * buffer.width; i++) {
+        histogram[Math.min(buffer.counts[i], buffer.maxIterations)]++;
+      }
+      return histogram;
+    }
+  }
+
+  // Colors rows [from, to) by splitting the range until each task has ROWS_PER_TASK rows at most
+  private static class ColorTask extends RecursiveAction {
+    private final IterationBuffer buffer;
+    private final Mode mode;
+    private final Palette palette;
+    private final double[] cumulative;
+    private final boolean gray16;
+    private final int[] rgb;
+    private final int from, to;
+
+    ColorTask(IterationBuffer buffer, Mode mode, Palette palette, double[] cumulative, boolean gray16, int[] rgb,
+              int from, int to) {
+      this.buffer = buffer;
+      this.mode = mode;
+      this.palette = palette;
+      this.cumulative = cumulative;
+      this.gray16 = gray16;
+      this.rgb = rgb;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if(to - from > ROWS_PER_TASK) {
+        int mid = (from + to) >>> 1;
+        invokeAll(new ColorTask(buffer, mode, palette, cumulative, gray16, rgb, from, mid),
+            new ColorTask(buffer, mode, palette, cumulative, gray16, rgb, mid, to));
+        return;
+      }
+
+      if(gray16) {
+        for(int i = from * buffer.width; i < to * buffer.width; i++) {
+          double t = position(buffer, i, mode, cumulative);
+          rgb[i] = t < 0 ? palette.interiorGray16() : palette.gray16(t);
+        }
+        return;
+      }
+      for(int i = from * buffer.width; i < to * buffer.width; i++) {
+        double t = position(buffer, i, mode, cumulative);
+        rgb[i] = t < 0 ? palette.interior : palette.color(t);
+      }
+    }
+  }
+}
@@ -0,0 +1,271 @@
+/*** DoubleDoubleComplex.java *************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Implements an allocation-free complex number with about    *
+ *                 106 bits (32 digits) of precision per component.           *
+\******************************************************************************/
+
+import org.apfloat.Apcomplex;
+
+
+/* A double-double stores a real number as the unevaluated sum of two doubles hi + lo with |lo| <= ulp(hi) / 2, which
+   gives twice the mantissa bits of a double at the same exponent range. Each operation is a handful of ordinary FP
+   operations (the products use Math.fma to get their exact rounding error), so this runs at a small multiple of the
+   cost of plain doubles, which is orders of magnitude faster than Apcomplex.
+
+   The real-number helpers return the high part of their result and leave the low part in `lo`, so a chain of them
+   never needs a temporary object.
+*/
+public class DoubleDoubleComplex extends MutableComplex implements SineComplex {
+  public double rh, rl, ih, il; // Real part = rh + rl, imaginary part = ih + il
+
+  private double lo; // Low part of the result of the last dd* helper call
+  private final double[] parts = new double[2];
+
+  // 2*pi and ln(2) as double-doubles
+  private static final double TWO_PI_H = 6.283185307179586232e+00, TWO_PI_L = 2.449293598294706414e-16;
+  private static final double LN2_H = 6.931471805599452862e-01, LN2_L = 2.319046813846299558e-17;
+  private static final double EPSILON = 1e-33; // Taylor series stop once their terms are this small
+
+  @Override
+  public void set(Apcomplex value) {
+    split(value.real(), parts, 0, 2);
+    rh = parts[0];
+    rl = parts[1];
+    split(value.imag(), parts, 0, 2);
+    ih = parts[0];
+    il = parts[1];
+  }
+
+  @Override
+  public void set(MutableComplex other) {
+    DoubleDoubleComplex o = (DoubleDoubleComplex)other;
+    rh = o.rh;
+    rl = o.rl;
+    ih = o.ih;
+    il = o.il;
+  }
+
+  @Override
+  public void setZero() {
+    rh = rl = ih = il = 0;
+  }
+
+  @Override
+  public void setOne() {
+    rh = 1;
+    rl = ih = il = 0;
+  }
+
+  @Override
+  public void add(MutableComplex other) {
+    DoubleDoubleComplex o = (DoubleDoubleComplex)other;
+    rh = ddAdd(rh, rl, o.rh, o.rl);
+    rl = lo;
+    ih = ddAdd(ih, il, o.ih, o.il);
+    il = lo;
+  }
+
+  @Override
+  public void multiply(MutableComplex other) {
+    DoubleDoubleComplex o = (DoubleDoubleComplex)other;
+    // (a + bi)(c + di) = (ac - bd) + (ad + bc)i
+    double acH = ddMul(rh, rl, o.rh, o.rl), acL = lo;
+    double bdH = ddMul(ih, il, o.ih, o.il), bdL = lo;
+    double adH = ddMul(rh, rl, o.ih, o.il), adL = lo;
+    double bcH = ddMul(ih, il, o.rh, o.rl), bcL = lo;
+    rh = ddAdd(acH, acL, -bdH, -bdL);
+    rl = lo;
+    ih = ddAdd(adH, adL, bcH, bcL);
+    il = lo;
+  }
+
+  @Override
+  public void square() {
+    // (a + bi)^2 = (a^2 - b^2) + 2abi
+    double aaH = ddMul(rh, rl, rh, rl), aaL = lo;
+    double bbH = ddMul(ih, il, ih, il), bbL = lo;
+    double abH = ddMul(rh, rl, ih, il), abL = lo;
+    rh = ddAdd(aaH, aaL, -bbH, -bbL);
+    rl = lo;
+    ih = 2.0 * abH; // Doubling is exact
+    il = 2.0 * abL;
+  }
+
+  @Override
+  public double magnitude2() {
+    return rh * rh + ih * ih;
+  }
+
+  @Override
+  protected int compareMagnitude2(double threshold2) {
+    double aaH = ddMul(rh, rl, rh, rl), aaL = lo;
+    double bbH = ddMul(ih, il, ih, il), bbL = lo;
+    double sumH = ddAdd(aaH, aaL, bbH, bbL), sumL = lo;
+    return (int)Math.signum(ddAdd(sumH, sumL, -threshold2, 0));
+  }
+
+  @Override
+  public MutableComplex create() {
+    return new DoubleDoubleComplex();
+  }
+
+  // sin(x + yi) = sin(x)cosh(y) + cos(x)sinh(y)i
+  @Override
+  public void sin() {
+    if(Math.abs(ih) > 700) { // cosh/sinh overflow; the orbit has escaped anyway
+      rh = ih = Double.POSITIVE_INFINITY;
+      rl = il = 0;
+      return;
+    }
+
+    // ---- sin(x) and cos(x), by Taylor series after reducing x to [-pi, pi] ----
+    double k = Math.rint(rh / TWO_PI_H);
+    double xh = ddMul(k, 0, TWO_PI_H, TWO_PI_L), xl = lo;
+    xh = ddAdd(rh, rl, -xh, -xl);
+    xl = lo;
+    double x2h = ddMul(xh, xl, xh, xl), x2l = lo;
+
+    double sinH = xh, sinL = xl; // Sum of the sin series
+    double cosH = 1, cosL = 0; // Sum of the cos series
+    double termH = xh, termL = xl; // x^n / n!, with alternating sign
+    double cTermH = 1, cTermL = 0;
+    for(int n = 1; Math.abs(termH) > EPSILON || Math.abs(cTermH) > EPSILON; n++) {
+      cTermH = ddMul(cTermH, cTermL, -x2h, -x2l);
+      cTermL = lo;
+      cTermH = ddDivideByDouble(cTermH, cTermL, (2.0 * n - 1) * (2.0 * n));
+      cTermL = lo;
+      cosH = ddAdd(cosH, cosL, cTermH, cTermL);
+      cosL = lo;
+
+      termH = ddMul(termH, termL, -x2h, -x2l);
+      termL = lo;
+      termH = ddDivideByDouble(termH, termL, (2.0 * n) * (2.0 * n + 1));
+      termL = lo;
+      sinH = ddAdd(sinH, sinL, termH, termL);
+      sinL = lo;
+    }
+
+    // ---- sinh(y) and cosh(y) ----
+    double sinhH, sinhL, coshH, coshL;
+    if(Math.abs(ih) < 0.5) { // (e^y - e^-y) / 2 would cancel badly, so use the Taylor series of sinh directly
+      double y2h = ddMul(ih, il, ih, il), y2l = lo;
+      sinhH = ih;
+      sinhL = il;
+      termH = ih;
+      termL = il;
+      for(int n = 1; Math.abs(termH) > EPSILON * Math.abs(sinhH) && termH != 0; n++) {
+        termH = ddMul(termH, termL, y2h, y2l);
+        termL = lo;
+        termH = ddDivideByDouble(termH, termL, (2.0 * n) * (2.0 * n + 1));
+        termL = lo;
+        sinhH = ddAdd(sinhH, sinhL, termH, termL);
+        sinhL = lo;
+      }
+      // cosh(y) by its Taylor series as well
+      coshH = 1;
+      coshL = 0;
+      termH = 1;
+      termL = 0;
+      for(int n = 1; Math.abs(termH) > EPSILON; n++) {
+        termH = ddMul(termH, termL, y2h, y2l);
+        termL = lo;
+        termH = ddDivideByDouble(termH, termL, (2.0 * n - 1) * (2.0 * n));
+        termL = lo;
+        coshH = ddAdd(coshH, coshL, termH, termL);
+        coshL = lo;
+      }
+    } else {
+      double eH = ddExp(ih, il), eL = lo;
+      double invH = ddDivide(1, 0, eH, eL), invL = lo;
+      sinhH = ddAdd(eH, eL, -invH, -invL);
+      sinhL = lo;
+      coshH = ddAdd(eH, eL, invH, invL);
+      coshL = lo;
+      sinhH *= 0.5; // Halving is exact
+      sinhL *= 0.5;
+      coshH *= 0.5;
+      coshL *= 0.5;
+    }
+
+    rh = ddMul(sinH, sinL, coshH, coshL);
+    rl = lo;
+    ih = ddMul(cosH, cosL, sinhH, sinhL);
+    il = lo;
+  }
+
+  // ---- Double-double real arithmetic: returns the high part, leaves the low part in `lo` ----
+
+  private double ddAdd(double ah, double al, double bh, double bl) {
+    double s = ah + bh;
+    double e = twoSumError(ah, bh, s);
+    double t = al + bl;
+    double f = twoSumError(al, bl, t);
+    e += t;
+    double h = s + e;
+    e = quickTwoSumError(s, e, h) + f;
+    double hi = h + e;
+    lo = quickTwoSumError(h, e, hi);
+    return hi;
+  }
+
+  private double ddMul(double ah, double al, double bh, double bl) {
+    double p = ah * bh;
+    double e = twoProductError(ah, bh, p) + (ah * bl + al * bh);
+    double hi = p + e;
+    lo = quickTwoSumError(p, e, hi);
+    return hi;
+  }
+
+  private double ddDivideByDouble(double ah, double al, double b) {
+    double q = ah / b;
+    double p = q * b;
+    double r = (ah - p - twoProductError(q, b, p) + al) / b;
+    double hi = q + r;
+    lo = quickTwoSumError(q, r, hi);
+    return hi;
+  }
+
+  private double ddDivide(double ah, double al, double bh, double bl) {
+    double q1 = ah / bh;
+    double ph = ddMul(q1, 0, bh, bl), pl = lo;
+    double remainder = ddAdd(ah, al, -ph, -pl);
+    double q2 = remainder / bh;
+    double hi = q1 + q2;
+    lo = quickTwoSumError(q1, q2, hi);
+    return hi;
+  }
+
+  // e^a for |a| <= 700: e^a = 2^k * (e^(r / 1024))^1024 with r = a - k*ln(2)
+  private double ddExp(double ah, double al) {
+    double k = Math.rint(ah / LN2_H);
+    double redH = ddMul(k, 0, LN2_H, LN2_L), redL = lo;
+    redH = ddAdd(ah, al, -redH, -redL);
+    redL = lo;
+    redH = Math.scalb(redH, -10);
+    redL = Math.scalb(redL, -10);
+
+    // s = e^r - 1 by Taylor series; r is tiny so this converges in a few terms
+    double sH = redH, sL = redL;
+    double termH = redH, termL = redL;
+    for(int n = 2; Math.abs(termH) > EPSILON; n++) {
+      termH = ddMul(termH, termL, redH, redL);
+      termL = lo;
+      termH = ddDivideByDouble(termH, termL, n);
+      termL = lo;
+      sH = ddAdd(sH, sL, termH, termL);
+      sL = lo;
+    }
+
+    // (1 + s)^2 - 1 = 2s + s^2, ten times
+    for(int i = 0; i < 10; i++) {
+      double s2H = ddMul(sH, sL, sH, sL), s2L = lo;
+      sH = ddAdd(2.0 * sH, 2.0 * sL, s2H, s2L);
+      sL = lo;
+    }
+
+    double hi = ddAdd(1, 0, sH, sL);
+    lo = Math.scalb(lo, (int)k);
+    return Math.scalb(hi, (int)k);
+  }
+}
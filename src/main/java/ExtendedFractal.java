@@ -0,0 +1,252 @@
+/*** ExtendedFractal.java *****************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Iterates fractals in double-double or quad-double          *
+ *                 precision, for views too deep for doubles but shallow      *
+ *                 enough not to need Apcomplex.                              *
+\******************************************************************************/
+
+import org.apfloat.Apcomplex;
+
+
+/* Fixed-size extended precision can only do what MutableComplex implements: add, multiply and integer powers, plus sin
+   on the types that are also SineComplex. A fractal can be iterated at an extended tier if every part of it boils down
+   to those:
+
+   - J and K don't contain z, J is anything (it's inverted once, up front) and K is a small non-negative integer
+   - In every non-empty slot B * func(A * t^p)^q:
+     - B, A and t are constants, optionally multiplied by z
+     - p and q are small non-negative integer constants
+     - func is identity, pow with a small non-negative integer constant exponent, or sin (if the tier is a SineComplex)
+
+   compile() checks all of that and returns null if the fractal doesn't qualify, in which case the caller has to stay on
+   Apcomplex. Such polynomial fractals can also be compiled on BigFloatComplex, which iterates them at any precision
+   without allocating. One instance belongs to one FractalIterator and is no more thread-safe than it is.
+*/
+public class ExtendedFractal {
+  private static final int MAX_EXPONENT = 64; // Larger integer exponents are left to Apcomplex
+  private static final long INVERSE_PRECISION = 100; // Digits 1/J is computed to at least; more than quad-double can hold
+
+  private final CompiledSlot[] slots;
+  private final MutableComplex inverseJ; // null if J = 1
+  private final int K;
+
+  public double escapeMagnitude2; // |z|^2 of the last point that escaped, at the iteration it escaped
+
+  // Registers
+  private final MutableComplex c, z, sum, term, scratch;
+
+  private ExtendedFractal(CompiledSlot[] slots, MutableComplex inverseJ, int K, MutableComplex prototype) {
+    this.slots = slots;
+    this.inverseJ = inverseJ;
+    this.K = K;
+    this.c = prototype.create();
+    this.z = prototype.create();
+    this.sum = prototype.create();
+    this.term = prototype.create();
+    this.scratch = prototype.create();
+  }
+
+  // Builds the extended precision version of the iterator's fractal, using numbers of the same type as prototype.
+  // Returns null if the fractal uses something that type can't compute.
+  public static ExtendedFractal compile(FractalIterator iterator, MutableComplex prototype) {
+    if(iterator.zPositions[0] || iterator.zPositions[1]) {
+      return null;
+    }
+    int K = smallInteger(iterator.K.constant());
+    if(K < 0) {
+      return null;
+    }
+
+    MutableComplex inverseJ = null;
+    Apcomplex J = iterator.J.constant();
+    if(!J.equals(Apcomplex.ONE)) {
+      inverseJ = prototype.create();
+      inverseJ.set(Apcomplex.ONE.divide(J.precision(Math.max(INVERSE_PRECISION, iterator.precision))));
+    }
+
+    Slot[] candidates = {iterator.s1, iterator.s2, iterator.s3};
+    int count = 0;
+    CompiledSlot[] compiled = new CompiledSlot[3];
+    for(Slot slot : candidates) {
+      if(slot.isZero()) { // Nothing to add
+        continue;
+      }
+      CompiledSlot s = CompiledSlot.compile(slot, prototype);
+      if(s == null) {
+        return null;
+      }
+      compiled[count++] = s;
+    }
+
+    CompiledSlot[] slots = new CompiledSlot[count];
+    System.arraycopy(compiled, 0, slots, 0, count);
+    return new ExtendedFractal(slots, inverseJ, K, prototype);
+  }
+
+  // General fractal iterator: same semantics as FractalIterator.iterate_arbitrary_fractal_*s
+  public long iterate(Apcomplex point) {
+    final double escapeThreshold2_fast = FractalIterator.escapeThreshold2.doubleValue();
+    long doneIterations = 0;
+
+    c.set(point);
+    z.setZero();
+
+    for(int i = 0; i < FractalIterator.maxIterations; i++) {
+      // z = ((slot1(z) + slot2(z) + slot3(z) + c) / J)^K
+      sum.set(c);
+      for(CompiledSlot slot : slots) {
+        slot.eval(z, term);
+        sum.add(term);
+      }
+      if(inverseJ != null) {
+        sum.multiply(inverseJ);
+      }
+      sum.pow(K, scratch);
+      z.set(sum);
+
+      // If real^2 + imag^2 >= (escape threshold)^2 then the point is outside the fractal. Unlike Apcomplex, fixed-size
+      // numbers can overflow; escaped() counts NaN as escaping too.
+      if(z.escaped(escapeThreshold2_fast)) {
+        escapeMagnitude2 = z.magnitude2();
+        break;
+      }
+
+      doneIterations++;
+    }
+    return doneIterations;
+  }
+
+  // Mandelbrot-specific iterator: same semantics as FractalIterator.iterate_mandelbrot
+  public long iterateMandelbrot(Apcomplex point) {
+    final double escapeThreshold2_fast = FractalIterator.escapeThreshold2.doubleValue();
+    long doneIterations = 0;
+
+    c.set(point);
+    z.setZero();
+
+    for(int i = 0; i < FractalIterator.maxIterations; i++) {
+      // z = z^2 + c
+      z.square();
+      z.add(c);
+
+      // If real^2 + imag^2 >= (escape threshold)^2 then the point is outside the set
+      if(z.escaped(escapeThreshold2_fast)) {
+        escapeMagnitude2 = z.magnitude2();
+        break;
+      }
+
+      doneIterations++;
+    }
+    return doneIterations;
+  }
+
+  // Returns x as an int if it's a real integer in [0, MAX_EXPONENT], otherwise -1
+  private static int smallInteger(Apcomplex x) {
+    if(x.imag().signum() != 0 || !x.real().isInteger()) {
+      return -1;
+    }
+    long value = x.real().longValue();
+    return value >= 0 && value <= MAX_EXPONENT ? (int)value : -1;
+  }
+
+  // One slot, B * func(A * t^p)^q, with all its constants converted up front
+  private static class CompiledSlot {
+    private static final int IDENTITY = 0, POW = 1, SIN = 2;
+
+    private final MutableComplex B, A, t;
+    private final boolean zInB, zInA, zInT;
+    private final int p, q;
+    private final int function;
+    private final int functionExponent; // Only for pow
+    private final MutableComplex scratch;
+
+    private CompiledSlot(MutableComplex B, MutableComplex A, MutableComplex t, boolean[] zPositions, int p, int q,
+                         int function, int functionExponent, MutableComplex prototype) {
+      this.B = B;
+      this.A = A;
+      this.t = t;
+      this.zInB = zPositions[0];
+      this.zInA = zPositions[1];
+      this.zInT = zPositions[2];
+      this.p = p;
+      this.q = q;
+      this.function = function;
+      this.functionExponent = functionExponent;
+      this.scratch = prototype.create();
+    }
+
+    static CompiledSlot compile(Slot slot, MutableComplex prototype) {
+      Apcomplex[] constants = slot.constants(); // B, A, t, p, q
+      boolean[] zPositions = slot.zPositions();
+
+      if(zPositions[3] || zPositions[4]) { // Exponents containing z
+        return null;
+      }
+      int p = smallInteger(constants[3]);
+      int q = smallInteger(constants[4]);
+      if(p < 0 || q < 0) {
+        return null;
+      }
+
+      int function;
+      int functionExponent = 0;
+      switch(slot.functionName()) {
+        case "identity":
+          function = IDENTITY;
+          break;
+        case "pow":
+          if(slot.paramConstants().length < 1 || zPositions[5]) {
+            return null;
+          }
+          functionExponent = smallInteger(slot.paramConstants()[0]);
+          if(functionExponent < 0) {
+            return null;
+          }
+          function = POW;
+          break;
+        case "sin":
+          if(!(prototype instanceof SineComplex)) {
+            return null;
+          }
+          function = SIN;
+          break;
+        default:
+          return null;
+      }
+
+      MutableComplex B = prototype.create();
+      MutableComplex A = prototype.create();
+      MutableComplex t = prototype.create();
+      B.set(constants[0]);
+      A.set(constants[1]);
+      t.set(constants[2]);
+      return new CompiledSlot(B, A, t, zPositions, p, q, function, functionExponent, prototype);
+    }
+
+    // out = B * func(A * t^p)^q
+    void eval(MutableComplex z, MutableComplex out) {
+      out.set(t);
+      if(zInT) {
+        out.multiply(z);
+      }
+      out.pow(p, scratch);
+      out.multiply(A);
+      if(zInA) {
+        out.multiply(z);
+      }
+
+      if(function == POW) {
+        out.pow(functionExponent, scratch);
+      } else if(function == SIN) {
+        ((SineComplex)out).sin();
+      }
+
+      out.pow(q, scratch);
+      out.multiply(B);
+      if(zInB) {
+        out.multiply(z);
+      }
+    }
+  }
+}
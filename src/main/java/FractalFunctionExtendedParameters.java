@@ -46,6 +46,23 @@ public class FractalFunctionExtendedParameters {
     return result;
   }
 
+  // Returns the constant of each PairCoefficient, i.e. the values this object was constructed with
+  public Apcomplex[] constants() {
+    Apcomplex[] result = new Apcomplex[params.length];
+    for(int i = 0; i < params.length; i++) {
+      result[i] = params[i].constant();
+    }
+
+    return result;
+  }
+
+  // Rounds every constant to at most `digits` digits
+  public void setPrecision(long digits) {
+    for(PairCoefficient param : params) {
+      param.setPrecision(digits);
+    }
+  }
+
   public int length() {
     return params.length;
   }
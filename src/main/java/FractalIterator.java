@@ -6,16 +6,62 @@
 \******************************************************************************/
 
 import org.apfloat.Apcomplex;
-import org.apfloat.ApcomplexMath;
 import org.apfloat.Apfloat;
 
+import java.util.Arrays;
+
 public class FractalIterator {
   public static int maxIterations, maxPrecision;
   public static Apfloat escapeThreshold2; // Escape threshold is kept internally squared from what's stored in the config file for performance and convenience reasons.
+  public long precision; // Digits the Apcomplex iterators work with; at most maxPrecision, usually far less (see setPrecision)
+  private Apfloat escapeThreshold2_working; // escapeThreshold2 at the working precision
   public Slot s1, s2, s3;
   public PairCoefficient J, K;
   public boolean[] zPositions; // Only 2 elements long in this class.
   public boolean fast; // If computing the Mandelbrot Set, should we use FP (doubles)? true = yes, false = use slow arbitrary precision
+  public boolean perturbation; // If computing the Mandelbrot Set with arbitrary precision, iterate deltas from a reference orbit in doubles instead
+  public ReferenceOrbit reference; // Reference orbit the perturbation iterator measures against; shared, never modified
+  public long rebases; // Number of times the perturbation iterator has rebased onto the start of the reference orbit
+  public PrecisionTier tier; // Number format the general iterators work in; ARBITRARY means Apcomplex
+  public SeriesApproximation series; // If set, the perturbation iterator starts each pixel this many iterations in; shared, never modified
+  public static boolean interiorChecks = true; // Skip Mandelbrot points inside the main cardioid or the period-2 bulb without iterating
+  public static boolean periodicityChecks = true; // Stop iterating Mandelbrot points once their orbit is caught in a cycle
+  public long interiorPixels; // Number of points this iterator resolved with the cardioid/bulb test
+  public long periodicPixels; // Number of points this iterator resolved with periodicity detection
+  public double escapeMagnitude2; // |z|^2 of the last point that escaped, at the iteration it escaped; for smooth coloring
+
+  // Scaled deltas are switched over to plain doubles once their exponent rises above this. Leaves enough headroom that
+  // dz^2 and dc don't lose precision to subnormals once they're unscaled.
+  private static final int SCALED_DELTA_LIMIT = -900;
+
+  // Digits of z that have to agree with the saved point before the arbitrary precision orbit counts as periodic
+  private static final int PERIODICITY_GUARD_DIGITS = 5;
+
+  // The cardioid/bulb test is done in doubles. Points of arbitrary precision renders have been rounded to get there, so
+  // they have to be inside by at least this much.
+  private static final double INTERIOR_MARGIN = 1e-12;
+
+  // Compiled versions of the non-zero slots (in order, so plan1 is the first slot that isn't zero), J and K that the
+  // Apcomplex iterators evaluate; rebuilt whenever the precision changes
+  private SlotPlan plan1, plan2, plan3;
+  private SlotPlan.Factor planJ;
+  private SlotPlan.Power planK;
+
+  // What the fractal is, recognized from its structure rather than from which Slot objects it was built with
+  private int slotCount; // Number of slots that aren't zero
+  private int degree; // d if the fractal is z -> z^d + c (2 is the Mandelbrot Set), 0 if it's anything else
+
+  // Extended precision versions of this iterator's fractal, built on first use; null if not possible
+  private ExtendedFractal doubleDouble, quadDouble;
+  private boolean doubleDoubleCompiled, quadDoubleCompiled;
+
+  // The fractal on BigFloatComplex at the working precision, built on first use and dropped whenever the precision
+  // changes; null if not possible
+  private ExtendedFractal bigFloat;
+  private boolean bigFloatCompiled;
+
+  // Registers of iterate_mandelbrot(), sized to the working precision on first use; null until then
+  private BigFloatComplex mandelbrotZ, mandelbrotC, mandelbrotSaved;
 
   // Evaluates to zero
   public static final Slot emptySlot = new Slot(
@@ -49,20 +95,152 @@ public class FractalIterator {
     this.K = new PairCoefficient(K);
     this.zPositions = zPositions;
     this.fast = fast;
+    this.tier = fast ? PrecisionTier.DOUBLE : PrecisionTier.ARBITRARY;
+    this.precision = maxPrecision;
+    this.escapeThreshold2_working = escapeThreshold2;
+    compile();
+  }
+
+  // Returns an independent iterator for the same fractal, for use on another thread. J, K and the slots hold mutable
+  // state, so they're copied, sentinels included; the fractal is recognized by its structure, not by identity.
+  public FractalIterator copy() {
+    FractalIterator copy = new FractalIterator(new Slot(s1), new Slot(s2), new Slot(s3), J.constant(), K.constant(), zPositions, fast);
+    copy.setPrecision(precision);
+    copy.tier = tier;
+    copy.perturbation = perturbation;
+    copy.reference = reference;
+    copy.series = series;
+    return copy;
+  }
+
+  // Sets the number of digits the Apcomplex iterators work with: z starts out with this many, and the constants in J, K
+  // and the slots are rounded to it. The shared emptySlot/mandelbrotSet sentinels are left alone; their constants are
+  // exact small integers anyway.
+  public void setPrecision(long digits) {
+    precision = digits;
+    escapeThreshold2_working = escapeThreshold2.precision() > digits ? escapeThreshold2.precision(digits) : escapeThreshold2;
+    J.setPrecision(digits);
+    K.setPrecision(digits);
+    for(Slot s : new Slot[] {s1, s2, s3}) {
+      if(s != emptySlot && s != mandelbrotSet) {
+        s.setPrecision(digits);
+      }
+    }
+    compile();
+  }
+
+  // Builds the evaluation plans of the slots, J and K from their constants at the current precision, and works out
+  // which kind of fractal they make up
+  private void compile() {
+    Slot[] nonZero = new Slot[3];
+    slotCount = 0;
+    for(Slot s : new Slot[] {s1, s2, s3}) {
+      if(!s.isZero()) { // Adding zero changes nothing, so zero slots aren't evaluated at all
+        nonZero[slotCount++] = s;
+      }
+    }
+    plan1 = slotCount > 0 ? nonZero[0].compile() : emptySlot.compile();
+    plan2 = slotCount > 1 ? nonZero[1].compile() : null;
+    plan3 = slotCount > 2 ? nonZero[2].compile() : null;
+    planJ = new SlotPlan.Factor(J.pair[0], zPositions[0]);
+    planK = new SlotPlan.Power(new SlotPlan.Factor(K.pair[0], zPositions[1]));
+
+    degree = slotCount == 1 && planJ.isOne() && planK.integer() == 1 ? nonZero[0].powerOfZ() : 0;
+    if(degree == 1) { // z -> z + c isn't a Multibrot
+      degree = 0;
+    }
+
+    bigFloat = null;
+    bigFloatCompiled = false;
+    if(mandelbrotZ != null && mandelbrotZ.limbs() != BigFloatComplex.limbsFor(precision)) { // Resized on next use
+      mandelbrotZ = null;
+    }
+  }
+
+  // Everything that determines which fractal this iterates, as text; equal for iterators of the same fractal
+  public String definition() {
+    return "s1=" + s1.definition() + " s2=" + s2.definition() + " s3=" + s3.definition() + " J=" + J.constant()
+        + " K=" + K.constant() + " zPositions=" + Arrays.toString(zPositions);
+  }
+
+  // True if the fractal is the Mandelbrot Set, however its slots spell out z^2
+  public boolean isMandelbrot() {
+    return degree == 2;
+  }
+
+  // d if the fractal is the Multibrot z -> z^d + c (d = 2 being the Mandelbrot Set), 0 if it's anything else
+  public int multibrotDegree() {
+    return degree;
+  }
+
+  // Number of slots that don't evaluate to zero, i.e. which of the 1/2/3-slot iterators is the right one
+  public int slotCount() {
+    return slotCount;
+  }
+
+  // True if iterate() would send every point to iterate_mandelbrot_fast(), which means the caller can skip building an
+  // Apcomplex for each point and pass doubles in directly.
+  public boolean isFastMandelbrot() {
+    return isMandelbrot() && fast;
+  }
+
+  // True if iterate() would send every point to iterate_mandelbrot_perturbation(), which needs a reference orbit set up
+  // before it's called.
+  public boolean isPerturbedMandelbrot() {
+    return isMandelbrot() && !fast && perturbation;
+  }
+
+  // Returns the extended precision version of the fractal for the given tier, or null if there is none
+  public ExtendedFractal extended(PrecisionTier tier) {
+    if(tier == PrecisionTier.DOUBLE || tier == PrecisionTier.DOUBLE_DOUBLE) { // Double-doubles also stand in for doubles outside the Mandelbrot Set
+      if(!doubleDoubleCompiled) {
+        doubleDouble = ExtendedFractal.compile(this, new DoubleDoubleComplex());
+        doubleDoubleCompiled = true;
+      }
+      return doubleDouble;
+    } else if(tier == PrecisionTier.QUAD_DOUBLE) {
+      if(!quadDoubleCompiled) {
+        quadDouble = ExtendedFractal.compile(this, new QuadDoubleComplex());
+        quadDoubleCompiled = true;
+      }
+      return quadDouble;
+    } else if(tier == PrecisionTier.ARBITRARY) {
+      if(!bigFloatCompiled) {
+        bigFloat = ExtendedFractal.compile(this, new BigFloatComplex(BigFloatComplex.limbsFor(precision)));
+        bigFloatCompiled = true;
+      }
+      return bigFloat;
+    }
+    return null;
   }
 
   // Basically just a dispatcher for actual iteration methods.
   // Slots s1, s2 and s3 must be populated with something, they can't be null; set them to emptySlot if you want them to evaluate to zero.
   // If rendering just the Mandelbrot Set, set s1 to mandelbrotSet and call it a day.
-  // For lowest runtime, use the slots in order, i.e. prefer using the lowest-numbered slots before using the higher-numbered ones.
+  // Renders go through KernelSelector instead, which makes these decisions once per render rather than once per point.
   public long iterate(Apcomplex c) {
-    if(s1.equals(mandelbrotSet) && s2.equals(emptySlot) && s3.equals(emptySlot) && fast) { // Mandelbrot Set with double precision
-      return iterate_mandelbrot_fast(c.real().doubleValue(), c.imag().doubleValue());
-    } else if(s1.equals(mandelbrotSet) && s2.equals(emptySlot) && s3.equals(emptySlot) && !fast) { // Mandelbrot Set with arbitrary precision
-      return iterate_mandelbrot(c);
-    } else if(!s1.equals(emptySlot) && s2.equals(emptySlot) && s3.equals(emptySlot)) { // 1-slot fractal with arbitrary precision
+    if(degree == 2) {
+      if(fast) { // Mandelbrot Set with double precision
+        return iterate_mandelbrot_fast(c.real().doubleValue(), c.imag().doubleValue());
+      } else if(perturbation && reference != null) { // Mandelbrot Set with perturbation
+        return iterate_mandelbrot_perturbation(c);
+      } else if(tier == PrecisionTier.DOUBLE_DOUBLE || tier == PrecisionTier.QUAD_DOUBLE) { // Mandelbrot Set with extended precision
+        return extended(tier).iterateMandelbrot(c);
+      } else { // Mandelbrot Set with arbitrary precision
+        return iterate_mandelbrot(c);
+      }
+    }
+
+    if(degree > 2 && fast) { // Multibrot with double precision
+      return iterate_multibrot_fast(c.real().doubleValue(), c.imag().doubleValue(), degree);
+    }
+
+    ExtendedFractal extended = extended(tier);
+    if(extended != null) { // General fractal with extended precision, or on BigFloatComplex if it's a polynomial
+      return extended.iterate(c);
+    } else if(slotCount <= 1) { // 1-slot fractal with arbitrary precision
       return iterate_arbitrary_fractal_1s(c);
-    } else if(!s1.equals(emptySlot) && !s2.equals(emptySlot) && s3.equals(emptySlot)) { // 2-slot fractal with arbitrary precision
+    } else if(slotCount == 2) { // 2-slot fractal with arbitrary precision
       return iterate_arbitrary_fractal_2s(c);
     } else { // 3-slot fractal with arbitrary precision
       return iterate_arbitrary_fractal_3s(c);
@@ -74,19 +252,18 @@ public class FractalIterator {
     long doneIterations = 0;
 
     Apcomplex z = new Apcomplex(
-        new Apfloat(0, maxPrecision),
-        new Apfloat(0, maxPrecision)
+        new Apfloat(0, precision),
+        new Apfloat(0, precision)
     );
 
     for(int i = 0; i < maxIterations; i++) {
-      // If z is supposed to be plugged in to J or K, then apply that
-      J.insertz(z, zPositions[0]);
-      K.insertz(z, zPositions[1]);
-
-      z = ApcomplexMath.pow(s1.eval(z).add(s2.eval(z)).add(s3.eval(z)).add(c).divide(J.computeScalar()), K.computeScalar());
+      // z = ((slot1(z) + slot2(z) + slot3(z) + c) / J)^K, with only the operations this configuration needs (see SlotPlan)
+      z = planK.apply(planJ.divide(plan1.eval(z).add(plan2.eval(z)).add(plan3.eval(z)).add(c), z), z);
 
       // If real^2 + imag^2 >= (escape threshold)^2 then the point is outside the fractal
-      if(z.real().multiply(z.real()).add(z.imag().multiply(z.imag())).compareTo(escapeThreshold2) >= 0) {
+      Apfloat magnitude2 = z.real().multiply(z.real()).add(z.imag().multiply(z.imag()));
+      if(magnitude2.compareTo(escapeThreshold2_working) >= 0) {
+        escapeMagnitude2 = magnitude2.doubleValue();
         break;
       }
 
@@ -100,19 +277,18 @@ public class FractalIterator {
     long doneIterations = 0;
 
     Apcomplex z = new Apcomplex(
-        new Apfloat(0, maxPrecision),
-        new Apfloat(0, maxPrecision)
+        new Apfloat(0, precision),
+        new Apfloat(0, precision)
     );
 
     for(int i = 0; i < maxIterations; i++) {
-      // If z is supposed to be plugged in to J or K, then apply that
-      J.insertz(z, zPositions[0]);
-      K.insertz(z, zPositions[1]);
-
-      z = ApcomplexMath.pow(s1.eval(z).add(s2.eval(z)).add(c).divide(J.computeScalar()), K.computeScalar());
+      // z = ((slot1(z) + slot2(z) + c) / J)^K, with only the operations this configuration needs (see SlotPlan)
+      z = planK.apply(planJ.divide(plan1.eval(z).add(plan2.eval(z)).add(c), z), z);
 
       // If real^2 + imag^2 >= (escape threshold)^2 then the point is outside the fractal
-      if(z.real().multiply(z.real()).add(z.imag().multiply(z.imag())).compareTo(escapeThreshold2) >= 0) {
+      Apfloat magnitude2 = z.real().multiply(z.real()).add(z.imag().multiply(z.imag()));
+      if(magnitude2.compareTo(escapeThreshold2_working) >= 0) {
+        escapeMagnitude2 = magnitude2.doubleValue();
         break;
       }
 
@@ -126,19 +302,18 @@ public class FractalIterator {
     long doneIterations = 0;
 
     Apcomplex z = new Apcomplex(
-        new Apfloat(0, maxPrecision),
-        new Apfloat(0, maxPrecision)
+        new Apfloat(0, precision),
+        new Apfloat(0, precision)
     );
 
     for(int i = 0; i < maxIterations; i++) {
-      // If z is supposed to be plugged in to J or K, then apply that
-      J.insertz(z, zPositions[0]);
-      K.insertz(z, zPositions[1]);
-
-      z = ApcomplexMath.pow(s1.eval(z).add(c).divide(J.computeScalar()), K.computeScalar());
+      // z = ((slot1(z) + c) / J)^K, with only the operations this configuration needs (see SlotPlan)
+      z = planK.apply(planJ.divide(plan1.eval(z).add(c), z), z);
 
       // If real^2 + imag^2 >= (escape threshold)^2 then the point is outside the fractal
-      if(z.real().multiply(z.real()).add(z.imag().multiply(z.imag())).compareTo(escapeThreshold2) >= 0) {
+      Apfloat magnitude2 = z.real().multiply(z.real()).add(z.imag().multiply(z.imag()));
+      if(magnitude2.compareTo(escapeThreshold2_working) >= 0) {
+        escapeMagnitude2 = magnitude2.doubleValue();
         break;
       }
 
@@ -147,39 +322,216 @@ public class FractalIterator {
     return doneIterations;
   }
 
-  // Mandelbrot-specific renderer: uses arbitrary precision math to render the Mandelbrot Set in particular
+  // Mandelbrot-specific renderer: uses arbitrary precision math to render the Mandelbrot Set in particular. Iterates on
+  // BigFloatComplex registers that are reused from point to point, so it allocates nothing once c is converted.
   public long iterate_mandelbrot(Apcomplex c) {
     long doneIterations = 0;
 
-    Apcomplex z = new Apcomplex(
-        new Apfloat(0, maxPrecision),
-        new Apfloat(0, maxPrecision)
-    );
+    if(interiorChecks && insideCardioidOrBulb(c.real().doubleValue(), c.imag().doubleValue(), INTERIOR_MARGIN)) {
+      interiorPixels++;
+      return maxIterations;
+    }
+
+    if(mandelbrotZ == null) { // First call at this precision; any iterator can be asked for the Mandelbrot Set
+      final int limbs = BigFloatComplex.limbsFor(precision);
+      mandelbrotZ = new BigFloatComplex(limbs);
+      mandelbrotC = new BigFloatComplex(limbs);
+      mandelbrotSaved = new BigFloatComplex(limbs);
+    }
+
+    final double escapeThreshold2_fast = escapeThreshold2.doubleValue();
+    final long periodicityLimit = BigFloatComplex.bitsFor(PERIODICITY_GUARD_DIGITS - precision);
+    final BigFloatComplex z = mandelbrotZ, point = mandelbrotC;
+    final BigFloatComplex saved = mandelbrotSaved; // Periodicity detection: point of the orbit the following ones are compared with
+    int checkpoint = 1; // Iteration the next point is saved at
+
+    point.set(c);
+    z.setZero();
+    saved.setZero();
 
     for(int i = 0; i < maxIterations; i++) {
       // z = z^2 + c
-      z = z.multiply(z).add(c);
+      z.square();
+      z.add(point);
 
       // If real^2 + imag^2 >= (escape threshold)^2 then the point is outside the set
-      if(z.real().multiply(z.real()).add(z.imag().multiply(z.imag())).compareTo(escapeThreshold2) >= 0) {
+      if(z.escaped(escapeThreshold2_fast)) {
+        escapeMagnitude2 = z.magnitude2();
         break;
       }
 
+      if(periodicityChecks) {
+        if(z.isWithin(saved, periodicityLimit)) { // The orbit is back where it was, so it's cycling and will never escape
+          periodicPixels++;
+          return maxIterations;
+        }
+        if(i == checkpoint) {
+          saved.set(z);
+          checkpoint <<= 1;
+        }
+      }
+
       doneIterations++;
     }
 
     return doneIterations;
   }
 
+  // Perturbation Mandelbrot renderer: same result as iterate_mandelbrot(), but only the reference orbit is computed with
+  // arbitrary precision. Converts c into a scaled delta from the reference point and hands it to the double iterator.
+  public long iterate_mandelbrot_perturbation(Apcomplex c) {
+    Apcomplex dc = c.subtract(reference.center);
+    int dcExponent = Math.max(ScaledDouble.exponent(dc.real()), ScaledDouble.exponent(dc.imag()));
+
+    return iterate_mandelbrot_perturbation(
+        ScaledDouble.mantissa(dc.real(), dcExponent),
+        ScaledDouble.mantissa(dc.imag(), dcExponent),
+        dcExponent
+    );
+  }
+
+  /* Perturbation Mandelbrot renderer working purely on doubles: iterates dz for the pixel at C + dc, where
+     dc = (dcr + dci*i) * 2^dcExponent and C is the reference orbit's center.
+
+     Two things keep this accurate at any zoom depth:
+     - While dz is too small for a double, it's kept as a scaled double (w * 2^e) and renormalized as it grows. Once it's
+       big enough it's unscaled and the rest of the loop runs on plain doubles.
+     - Glitches: when the pixel's orbit gets closer to 0 than to the reference (|Z_m + dz| < |dz|), the reference can no
+       longer describe it to double precision. The full value Z_m + dz is then small enough to be a delta itself, so the
+       pixel is rebased onto the start of the reference (dz = Z_m + dz, m = 0). The same happens if the reference escapes
+       before the pixel does. With rebasing, one reference orbit is enough for the whole image.
+
+     If a series approximation is set, the pixel starts series.skipped iterations in, with dz taken from the series.
+  */
+  public long iterate_mandelbrot_perturbation(double dcr, double dci, int dcExponent) {
+    final double escapeThreshold2_fast = escapeThreshold2.doubleValue();
+    final double[] refr = reference.zr;
+    final double[] refi = reference.zi;
+    final int refLength = reference.length;
+
+    int n = 0; // Iterations done on the pixel
+    int m = 0; // Current position on the reference orbit
+
+    // ---- Scaled phase: dz = (wr + wi*i) * 2^e, dc = (dcr + dci*i) * 2^dcExponent --------------------------------
+    double wr = 0, wi = 0;
+    int e = dcExponent;
+
+    if(series != null && series.skipped > 0) {
+      // u = dc / radius, then dz = ((c*u + b)*u + a)*u
+      final double toU = Math.scalb(1.0, dcExponent - series.radiusExponent) / series.radius;
+      final double ur = dcr * toU;
+      final double ui = dci * toU;
+      double sr = series.cr * ur - series.ci * ui + series.br;
+      double si = series.cr * ui + series.ci * ur + series.bi;
+      double temp = sr * ur - si * ui + series.ar;
+      si = sr * ui + si * ur + series.ai;
+      sr = temp;
+      wr = sr * ur - si * ui;
+      wi = sr * ui + si * ur;
+      e = series.exponent;
+      n = series.skipped;
+      m = series.skipped;
+    }
+
+    double sqScale = Math.scalb(1.0, e); // 2^e, weight of the w^2 term (underflows to 0 when it's negligible)
+    double dcScale = Math.scalb(1.0, dcExponent - e); // Weight of the dc term
+
+    while(e < SCALED_DELTA_LIMIT && n < maxIterations) {
+      double Zr = refr[m];
+      double Zi = refi[m];
+
+      // w = 2*Z*w + 2^e * w^2 + dc * 2^(dcExponent - e)
+      double temp = 2.0 * (Zr * wr - Zi * wi) + sqScale * (wr * wr - wi * wi) + dcScale * dcr;
+      wi = 2.0 * (Zr * wi + Zi * wr) + sqScale * 2.0 * wr * wi + dcScale * dci;
+      wr = temp;
+      m++;
+
+      // dz is far below double precision of Z_m here, so z = Z_m as far as the escape test can tell
+      if(refr[m] * refr[m] + refi[m] * refi[m] >= escapeThreshold2_fast) {
+        escapeMagnitude2 = refr[m] * refr[m] + refi[m] * refi[m];
+        return n;
+      }
+
+      // Rebase if the reference passes closer to 0 than the pixel, or if the reference has run out
+      if(Math.abs(refr[m]) + Math.abs(refi[m]) < 0x1p-800 || m == refLength) {
+        double zr_scaled = Math.scalb(refr[m], -e) + wr;
+        double zi_scaled = Math.scalb(refi[m], -e) + wi;
+        if(zr_scaled * zr_scaled + zi_scaled * zi_scaled < wr * wr + wi * wi || m == refLength) {
+          wr = zr_scaled;
+          wi = zi_scaled;
+          m = 0;
+          rebases++;
+        }
+      }
+
+      // Keep w near 1 so it neither overflows nor loses bits; move the magnitude into e instead
+      double size = Math.max(Math.abs(wr), Math.abs(wi));
+      if(size > 0x1p64 || (size < 0x1p-64 && size > 0)) {
+        int shift = Math.getExponent(size);
+        wr = Math.scalb(wr, -shift);
+        wi = Math.scalb(wi, -shift);
+        e += shift;
+        sqScale = Math.scalb(1.0, e);
+        dcScale = Math.scalb(1.0, dcExponent - e);
+      }
+
+      n++;
+    }
+
+    // ---- Double phase: dz and dc are plain doubles ------------------------------------------------------------
+    double dzr = Math.scalb(wr, e);
+    double dzi = Math.scalb(wi, e);
+    final double dcr_fast = Math.scalb(dcr, dcExponent); // Anything lost to underflow here is negligible next to dz
+    final double dci_fast = Math.scalb(dci, dcExponent);
+
+    for(; n < maxIterations; n++) {
+      // dz = (2*Z + dz) * dz + dc
+      double tr = 2.0 * refr[m] + dzr;
+      double ti = 2.0 * refi[m] + dzi;
+      double temp = tr * dzr - ti * dzi + dcr_fast;
+      dzi = tr * dzi + ti * dzr + dci_fast;
+      dzr = temp;
+      m++;
+
+      // z = Z + dz
+      double zr = refr[m] + dzr;
+      double zi = refi[m] + dzi;
+      double zmag2 = zr * zr + zi * zi;
+
+      // If real^2 + imag^2 >= (escape threshold)^2 then the point is outside the set
+      if(zmag2 >= escapeThreshold2_fast) {
+        escapeMagnitude2 = zmag2;
+        return n;
+      }
+
+      // Rebase if the pixel is closer to 0 than to the reference, or if the reference has run out
+      if(zmag2 < dzr * dzr + dzi * dzi || m == refLength) {
+        dzr = zr;
+        dzi = zi;
+        m = 0;
+        rebases++;
+      }
+    }
+
+    return maxIterations; // The escape threshold was never reached, so the point is stable within maxIterations.
+  }
+
   // Fast Mandelbrot renderer: uses hardware-accelerated FP (doubles) to iterate. Extremely fast but also extremely limited.
   public long iterate_mandelbrot_fast(double cr, double ci) {
     long doneIterations = -1; // Used in an optimization to avoid incrementing every iteration
 
+    if(interiorChecks && insideCardioidOrBulb(cr, ci, 0)) {
+      interiorPixels++;
+      return maxIterations;
+    }
+
     final double escapeThreshold2_fast = escapeThreshold2.doubleValue();
     final double cr_fast = cr; // Real part of c
     final double ci_fast = ci; // Imaginary part of c
     double zr = 0; // Real part of z
     double zi = 0; // Imaginary part of z
+    double savedr = 0, savedi = 0; // Periodicity detection: point of the orbit the following ones are compared with
+    int checkpoint = 1; // Iteration the next point is saved at
 
     for(int i = 0; i < maxIterations; i++) {
       // z = z^2 + c
@@ -190,6 +542,7 @@ public class FractalIterator {
       // If real^2 + imag^2 >= (escape threshold)^2 then the point is outside the set
       if(zr * zr + zi * zi >= escapeThreshold2_fast) {
         doneIterations = i; // Optimization: no need to increment doneIterations every iteration
+        escapeMagnitude2 = zr * zr + zi * zi;
         /* Incrementing a basic type is so cheap compared to Apcomplex operations that I didn't bother to implement this
            optimization into previous, slower, more general/precise methods because it will make the code harder to
            understand and clutter it up.
@@ -197,6 +550,18 @@ public class FractalIterator {
 
         break;
       }
+
+      if(periodicityChecks) {
+        if(zr == savedr && zi == savedi) { // Exactly the same doubles again, so the orbit repeats forever
+          periodicPixels++;
+          return maxIterations;
+        }
+        if(i == checkpoint) {
+          savedr = zr;
+          savedi = zi;
+          checkpoint <<= 1;
+        }
+      }
     }
     if(doneIterations < 0) { // The escape threshold was never reached, so the point is stable within maxIterations.
       doneIterations = maxIterations;
@@ -204,4 +569,59 @@ public class FractalIterator {
 
     return doneIterations;
   }
+
+  // Fast Multibrot renderer: z -> z^d + c for d >= 3 in doubles, with the same semantics as iterate_mandelbrot_fast()
+  // apart from the cardioid/bulb test, which only applies to d = 2
+  public long iterate_multibrot_fast(double cr, double ci, int d) {
+    final double escapeThreshold2_fast = escapeThreshold2.doubleValue();
+    double zr = 0; // Real part of z
+    double zi = 0; // Imaginary part of z
+    double savedr = 0, savedi = 0; // Periodicity detection: point of the orbit the following ones are compared with
+    int checkpoint = 1; // Iteration the next point is saved at
+
+    for(int i = 0; i < maxIterations; i++) {
+      // z = z^d + c
+      double pr = zr, pi = zi;
+      for(int k = 1; k < d; k++) {
+        double temp = pr * zr - pi * zi;
+        pi = pr * zi + pi * zr;
+        pr = temp;
+      }
+      zr = pr + cr;
+      zi = pi + ci;
+
+      // If real^2 + imag^2 >= (escape threshold)^2 then the point is outside the set
+      if(zr * zr + zi * zi >= escapeThreshold2_fast) {
+        escapeMagnitude2 = zr * zr + zi * zi;
+        return i;
+      }
+
+      if(periodicityChecks) {
+        if(zr == savedr && zi == savedi) { // Exactly the same doubles again, so the orbit repeats forever
+          periodicPixels++;
+          return maxIterations;
+        }
+        if(i == checkpoint) {
+          savedr = zr;
+          savedi = zi;
+          checkpoint <<= 1;
+        }
+      }
+    }
+
+    return maxIterations; // The escape threshold was never reached, so the point is stable within maxIterations.
+  }
+
+  // True if c is inside the main cardioid or the period-2 bulb, which are both entirely inside the Mandelbrot Set.
+  // margin shrinks both regions, for points that have been rounded to doubles.
+  public static boolean insideCardioidOrBulb(double cr, double ci, double margin) {
+    final double ci2 = ci * ci;
+    final double xr = cr - 0.25;
+    final double q = xr * xr + ci2;
+    if(q * (q + xr) < 0.25 * ci2 - margin) { // Main cardioid
+      return true;
+    }
+    final double br = cr + 1.0;
+    return br * br + ci2 < 0.0625 - margin; // Period-2 bulb: the disk of radius 1/4 around -1
+  }
 }
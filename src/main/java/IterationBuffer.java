@@ -0,0 +1,79 @@
+/*** IterationBuffer.java *****************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Holds the raw iteration count of every pixel of a render.  *
+\******************************************************************************/
+
+
+/* The iteration buffer is the shared result of a render. Every worker writes the counts of the pixels in its own tiles,
+   so no two threads ever touch the same element and no locking is needed. The engine only hands the buffer out after
+   all workers are joined, which makes every write visible to the reader.
+
+   Counts are stored row-major: the count of pixel (x, y) lives at index y * width + x.
+
+   Optionally, the buffer also keeps a smooth (continuous) iteration value per pixel, computed from how far past the
+   escape threshold z landed when the pixel escaped:
+
+     smooth = n + 1 - log_d(ln|z| / ln(escape threshold))
+
+   where d is the degree of the fractal (2 for the Mandelbrot Set). It always lies in [n, n + 1], so coloring it doesn't
+   change the overall picture, but the bands between counts disappear. Points that never escaped keep their count.
+
+   Coloring is left to ColorMapper, so a finished render can be recolored any number of times without iterating again.
+*/
+public class IterationBuffer {
+  public final int width, height;
+  public final int[] counts;
+  public final float[] smooth; // null if the buffer doesn't keep smooth values
+  public final int maxIterations; // Count of the points that never escaped
+
+  private final double logEscape; // ln(escape threshold)
+  private final double logDegree; // ln(d)
+
+  public IterationBuffer(int width, int height) {
+    this(width, height, 0);
+  }
+
+  // degree is the d of the smooth iteration values, or 0 not to keep them
+  public IterationBuffer(int width, int height, int degree) {
+    this.width = width;
+    this.height = height;
+    this.counts = new int[width * height];
+    this.smooth = degree > 0 ? new float[width * height] : null;
+    this.maxIterations = FractalIterator.maxIterations;
+    this.logEscape = degree > 0 ? 0.5 * Math.log(FractalIterator.escapeThreshold2.doubleValue()) : 0;
+    this.logDegree = Math.log(Math.max(degree, 2));
+  }
+
+  public int get(int x, int y) {
+    return counts[y * width + x];
+  }
+
+  public void set(int x, int y, long iterations) {
+    counts[y * width + x] = (int)iterations; // Iteration counts never exceed maxIterations, which is an int
+    if(smooth != null) {
+      smooth[y * width + x] = iterations;
+    }
+  }
+
+  // Stores the count of a pixel along with the |z|^2 it escaped with, which is ignored if it didn't escape
+  public void set(int x, int y, long iterations, double magnitude2) {
+    counts[y * width + x] = (int)iterations;
+    if(smooth != null) {
+      smooth[y * width + x] = smoothValue(iterations, magnitude2);
+    }
+  }
+
+  private float smoothValue(long iterations, double magnitude2) {
+    if(iterations >= maxIterations) {
+      return iterations;
+    }
+    double fraction = 1 - Math.log(0.5 * Math.log(magnitude2) / logEscape) / logDegree;
+    if(!(fraction >= 0)) { // Overflowed to infinity or NaN
+      fraction = 0;
+    } else if(fraction > 1) {
+      fraction = 1;
+    }
+    return (float)(iterations + fraction);
+  }
+}
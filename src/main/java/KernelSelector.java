@@ -0,0 +1,219 @@
+/*** KernelSelector.java ******************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Picks the fastest way to iterate a render's pixels once,   *
+ *                 before the render starts, instead of once per pixel.       *
+\******************************************************************************/
+
+
+/* FractalIterator.iterate() works out what to do for every single point it's given. Over a whole render the answer never
+   changes, so the engine asks select() once and hands the resulting Kernel to every worker, which calls it on each of
+   its tiles without any further decisions.
+
+   The fractal is recognized by its structure (see FractalIterator.multibrotDegree() and Slot.powerOfZ()), so a
+   Mandelbrot Set defined as, say, pow(z, 2) gets the same kernels as one built from FractalIterator.mandelbrotSet.
+   In order of preference:
+
+   - Mandelbrot Set: SIMD doubles, scalar doubles, perturbation, double-double/quad-double, BigFloatComplex
+   - Multibrot z^d + c: doubles at the double tier, otherwise treated like any other fractal
+   - Anything else: double-double/quad-double/BigFloatComplex if the fractal compiles to them (see ExtendedFractal),
+     otherwise the Apcomplex iterator for its number of non-zero slots
+*/
+public class KernelSelector {
+  private KernelSelector() {} // Prevent instantiation
+
+  // Iterates pixels with the given worker's iterator. The iterator's tier, fast flag, precision and (for perturbation)
+  // reference orbit must already be set up for the render.
+  public enum Kernel {
+    MANDELBROT_VECTOR("Mandelbrot Set, doubles, SIMD") {
+      @Override
+      public void renderTile(FractalIterator iterator, RenderView view, IterationBuffer buffer, int x0, int y0, int x1, int y1) {
+        final double[] cr = new double[x1 - x0];
+        for(int x = x0; x < x1; x++) {
+          cr[x - x0] = view.real(x);
+        }
+        for(int y = y0; y < y1; y++) { // A whole row of the tile at a time
+          iterateRow(iterator, view, buffer, y, cr, x0, 1);
+        }
+      }
+
+      @Override
+      public void renderRow(FractalIterator iterator, RenderView view, IterationBuffer buffer, int y, int x0, int x1, int step) {
+        final double[] cr = new double[(x1 - x0 + step - 1) / step];
+        for(int i = 0; i < cr.length; i++) {
+          cr[i] = view.real(x0 + i * step);
+        }
+        iterateRow(iterator, view, buffer, y, cr, x0, step);
+      }
+
+      // Iterates the pixels x0, x0 + step, ... of row y, whose real coordinates are cr
+      private void iterateRow(FractalIterator iterator, RenderView view, IterationBuffer buffer, int y, double[] cr, int x0, int step) {
+        final int n = cr.length;
+        if(step == 1 && buffer.smooth == null) { // Straight into the buffer
+          VectorMandelbrotKernel.iterateRow(iterator, cr, 0, n, view.imag(y), buffer.counts, y * buffer.width + x0, null);
+          return;
+        }
+        final int[] out = new int[n]; // The lanes are packed, the pixels may not be
+        final double[] magnitudes = buffer.smooth != null ? new double[n] : null;
+        VectorMandelbrotKernel.iterateRow(iterator, cr, 0, n, view.imag(y), out, 0, magnitudes);
+        for(int i = 0; i < n; i++) {
+          if(magnitudes != null) {
+            buffer.set(x0 + i * step, y, out[i], magnitudes[i]);
+          } else {
+            buffer.set(x0 + i * step, y, out[i]);
+          }
+        }
+      }
+
+      @Override
+      public String description() {
+        return super.description() + " (" + VectorMandelbrotKernel.lanes() + " lanes)";
+      }
+    },
+
+    MANDELBROT_DOUBLE("Mandelbrot Set, doubles") {
+      @Override
+      public void renderRow(FractalIterator iterator, RenderView view, IterationBuffer buffer, int y, int x0, int x1, int step) {
+        final double ci = view.imag(y);
+        for(int x = x0; x < x1; x += step) { // Doubles go straight in, no need to build an Apcomplex per pixel
+          buffer.set(x, y, iterator.iterate_mandelbrot_fast(view.real(x), ci), iterator.escapeMagnitude2);
+        }
+      }
+    },
+
+    MANDELBROT_PERTURBATION("Mandelbrot Set, perturbation") {
+      @Override
+      public void renderRow(FractalIterator iterator, RenderView view, IterationBuffer buffer, int y, int x0, int x1, int step) {
+        final double dci = view.deltaImag(y);
+        for(int x = x0; x < x1; x += step) { // Offsets from the reference go straight in as scaled doubles
+          buffer.set(x, y, iterator.iterate_mandelbrot_perturbation(view.deltaReal(x), dci, view.deltaExponent), iterator.escapeMagnitude2);
+        }
+      }
+    },
+
+    MANDELBROT_EXTENDED("Mandelbrot Set, double-double/quad-double") {
+      @Override
+      public void renderRow(FractalIterator iterator, RenderView view, IterationBuffer buffer, int y, int x0, int x1, int step) {
+        final ExtendedFractal extended = iterator.extended(iterator.tier);
+        for(int x = x0; x < x1; x += step) {
+          buffer.set(x, y, extended.iterateMandelbrot(view.point(x, y)), extended.escapeMagnitude2);
+        }
+      }
+    },
+
+    MANDELBROT_ARBITRARY("Mandelbrot Set, BigFloatComplex") {
+      @Override
+      public void renderRow(FractalIterator iterator, RenderView view, IterationBuffer buffer, int y, int x0, int x1, int step) {
+        for(int x = x0; x < x1; x += step) {
+          buffer.set(x, y, iterator.iterate_mandelbrot(view.point(x, y)), iterator.escapeMagnitude2);
+        }
+      }
+    },
+
+    MULTIBROT_DOUBLE("Multibrot, doubles") {
+      @Override
+      public void renderRow(FractalIterator iterator, RenderView view, IterationBuffer buffer, int y, int x0, int x1, int step) {
+        final int d = iterator.multibrotDegree();
+        final double ci = view.imag(y);
+        for(int x = x0; x < x1; x += step) {
+          buffer.set(x, y, iterator.iterate_multibrot_fast(view.real(x), ci, d), iterator.escapeMagnitude2);
+        }
+      }
+    },
+
+    EXTENDED("general fractal, double-double/quad-double") {
+      @Override
+      public void renderRow(FractalIterator iterator, RenderView view, IterationBuffer buffer, int y, int x0, int x1, int step) {
+        final ExtendedFractal extended = iterator.extended(iterator.tier);
+        for(int x = x0; x < x1; x += step) {
+          buffer.set(x, y, extended.iterate(view.point(x, y)), extended.escapeMagnitude2);
+        }
+      }
+    },
+
+    POLYNOMIAL_ARBITRARY("polynomial fractal, BigFloatComplex") {
+      @Override
+      public void renderRow(FractalIterator iterator, RenderView view, IterationBuffer buffer, int y, int x0, int x1, int step) {
+        final ExtendedFractal polynomial = iterator.extended(PrecisionTier.ARBITRARY);
+        for(int x = x0; x < x1; x += step) {
+          buffer.set(x, y, polynomial.iterate(view.point(x, y)), polynomial.escapeMagnitude2);
+        }
+      }
+    },
+
+    SLOTS_1("1-slot fractal, Apcomplex") {
+      @Override
+      public void renderRow(FractalIterator iterator, RenderView view, IterationBuffer buffer, int y, int x0, int x1, int step) {
+        for(int x = x0; x < x1; x += step) {
+          buffer.set(x, y, iterator.iterate_arbitrary_fractal_1s(view.point(x, y)), iterator.escapeMagnitude2);
+        }
+      }
+    },
+
+    SLOTS_2("2-slot fractal, Apcomplex") {
+      @Override
+      public void renderRow(FractalIterator iterator, RenderView view, IterationBuffer buffer, int y, int x0, int x1, int step) {
+        for(int x = x0; x < x1; x += step) {
+          buffer.set(x, y, iterator.iterate_arbitrary_fractal_2s(view.point(x, y)), iterator.escapeMagnitude2);
+        }
+      }
+    },
+
+    SLOTS_3("3-slot fractal, Apcomplex") {
+      @Override
+      public void renderRow(FractalIterator iterator, RenderView view, IterationBuffer buffer, int y, int x0, int x1, int step) {
+        for(int x = x0; x < x1; x += step) {
+          buffer.set(x, y, iterator.iterate_arbitrary_fractal_3s(view.point(x, y)), iterator.escapeMagnitude2);
+        }
+      }
+    };
+
+    private final String description;
+
+    Kernel(String description) {
+      this.description = description;
+    }
+
+    // Iterates the pixels x0, x0 + step, x0 + 2*step, ... (up to but excluding x1) of row y
+    public abstract void renderRow(FractalIterator iterator, RenderView view, IterationBuffer buffer, int y, int x0, int x1, int step);
+
+    // Iterates every pixel of the tile [x0, x1) x [y0, y1)
+    public void renderTile(FractalIterator iterator, RenderView view, IterationBuffer buffer, int x0, int y0, int x1, int y1) {
+      for(int y = y0; y < y1; y++) {
+        renderRow(iterator, view, buffer, y, x0, x1, 1);
+      }
+    }
+
+    public String description() {
+      return description;
+    }
+  }
+
+  // Picks the kernel for a render of the prototype's fractal at the given tier. fast and perturbation are the render's
+  // settings, as the engine decided them; vector says whether VectorMandelbrotKernel may be used.
+  public static Kernel select(FractalIterator prototype, PrecisionTier tier, boolean fast, boolean perturbation, boolean vector) {
+    final int degree = prototype.multibrotDegree();
+
+    if(degree == 2) {
+      if(fast) {
+        return vector ? Kernel.MANDELBROT_VECTOR : Kernel.MANDELBROT_DOUBLE;
+      } else if(perturbation) {
+        return Kernel.MANDELBROT_PERTURBATION;
+      } else if(tier == PrecisionTier.DOUBLE_DOUBLE || tier == PrecisionTier.QUAD_DOUBLE) {
+        return Kernel.MANDELBROT_EXTENDED;
+      }
+      return Kernel.MANDELBROT_ARBITRARY;
+    }
+
+    if(degree > 2 && fast) {
+      return Kernel.MULTIBROT_DOUBLE;
+    } else if(prototype.extended(tier) != null) {
+      return tier == PrecisionTier.ARBITRARY ? Kernel.POLYNOMIAL_ARBITRARY : Kernel.EXTENDED;
+    } else if(prototype.slotCount() <= 1) {
+      return Kernel.SLOTS_1;
+    } else if(prototype.slotCount() == 2) {
+      return Kernel.SLOTS_2;
+    }
+    return Kernel.SLOTS_3;
+  }
+}
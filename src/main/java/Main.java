@@ -13,7 +13,6 @@ import org.apfloat.ApfloatMath;
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.awt.image.WritableRaster;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -24,6 +23,9 @@ public class Main {
   private static final boolean IS_PI = GraphicsEnvironment.isHeadless(); // If headless, likely running on a Pi
   private static final int THREADS = Runtime.getRuntime().availableProcessors();
 
+  private static ColorMapper.Mode colorMode;
+  private static Palette palette;
+
   public static void main(String[] args) {
     System.out.println("Initializing Fractal Voyager.");
     System.out.println("Running on dedicated device?: " + IS_PI);
@@ -34,7 +36,9 @@ public class Main {
     Properties config = new Properties();
     final String propertiesPath;
 
-    if(IS_PI) {
+    if(args.length > 0) { // Another configuration, such as one per process in run/distributed-check.sh
+      propertiesPath = args[0];
+    } else if(IS_PI) {
       propertiesPath = "/home/tn57/FractalVoyager/FractalVoyager.properties";
     } else {
       propertiesPath = "FractalVoyager.properties";
@@ -50,6 +54,77 @@ public class Main {
     FractalIterator.maxPrecision = Integer.parseInt(config.getProperty("fv.defaults.maxPrecision"));
     // Escape threshold is squared from what's stored in the config file for performance and convenience reasons.
     FractalIterator.escapeThreshold2 = ApfloatMath.pow(new Apfloat(config.getProperty("fv.defaults.escapeThreshold")), 2);
+    final boolean perturbation = Boolean.parseBoolean(config.getProperty("fv.defaults.perturbation", "true"));
+    RenderEngine.tileSize = Integer.parseInt(config.getProperty("fv.engine.tileSize", "32"));
+    RenderEngine.autoPrecisionTier = Boolean.parseBoolean(config.getProperty("fv.defaults.autoPrecisionTier", "true"));
+    RenderEngine.adaptivePrecision = Boolean.parseBoolean(config.getProperty("fv.defaults.adaptivePrecision", "true"));
+    RenderEngine.precisionMargin = Integer.parseInt(config.getProperty("fv.defaults.precisionMargin", "10"));
+    RenderEngine.precisionStep = Integer.parseInt(config.getProperty("fv.defaults.precisionStep", "8"));
+    RenderEngine.seriesApproximation = Boolean.parseBoolean(config.getProperty("fv.defaults.seriesApproximation", "true"));
+    FractalIterator.interiorChecks = Boolean.parseBoolean(config.getProperty("fv.defaults.interiorChecks", "true"));
+    FractalIterator.periodicityChecks = Boolean.parseBoolean(config.getProperty("fv.defaults.periodicityChecks", "true"));
+    RenderEngine.vectorKernel = Boolean.parseBoolean(config.getProperty("fv.engine.vectorKernel", "true"));
+    RenderEngine.boundaryTracing = Boolean.parseBoolean(config.getProperty("fv.engine.boundaryTracing", "false"));
+    RenderEngine.boundaryVerify = Boolean.parseBoolean(config.getProperty("fv.engine.boundaryVerify", "true"));
+    final boolean progressive = Boolean.parseBoolean(config.getProperty("fv.engine.progressive", "false"));
+    RenderEngine.progressiveStep = Integer.parseInt(config.getProperty("fv.engine.progressiveStep", "8"));
+    RenderEngine.smoothValues = Boolean.parseBoolean(config.getProperty("fv.engine.smoothValues", "true"));
+    RenderCache.enabled = Boolean.parseBoolean(config.getProperty("fv.cache.enabled", "true"));
+    RenderCache.directory = config.getProperty("fv.cache.directory", "cache");
+    RenderCache.maxMegabytes = Long.parseLong(config.getProperty("fv.cache.maxMegabytes", "1024"));
+    RenderCache.checkpointSeconds = Integer.parseInt(config.getProperty("fv.cache.checkpointSeconds", "60"));
+    ZoomSequence.reuseTolerance = Double.parseDouble(config.getProperty("fv.zoom.reuseTolerance", "0.25"));
+    final boolean zoom = Boolean.parseBoolean(config.getProperty("fv.zoom.enabled", "false"));
+    ThermalGovernor.enabled = Boolean.parseBoolean(config.getProperty("fv.thermal.enabled", "false"));
+    ThermalGovernor.temperaturePath = config.getProperty("fv.thermal.temperaturePath", "/sys/class/thermal/thermal_zone0/temp");
+    ThermalGovernor.throttledPath = config.getProperty("fv.thermal.throttledPath", "/sys/devices/platform/soc/soc:firmware/get_throttled");
+    ThermalGovernor.targetCelsius = Double.parseDouble(config.getProperty("fv.thermal.targetCelsius", "75"));
+    ThermalGovernor.hysteresis = Double.parseDouble(config.getProperty("fv.thermal.hysteresis", "5"));
+    ThermalGovernor.minWorkers = Integer.parseInt(config.getProperty("fv.thermal.minWorkers", "1"));
+    ThermalGovernor.sampleSeconds = Integer.parseInt(config.getProperty("fv.thermal.sampleSeconds", "1"));
+    ThermalGovernor.settleSeconds = Integer.parseInt(config.getProperty("fv.thermal.settleSeconds", "15"));
+    ThermalGovernor.logSeconds = Integer.parseInt(config.getProperty("fv.thermal.logSeconds", "10"));
+    ThermalGovernor.logFile = config.getProperty("fv.thermal.logFile", "thermal.csv");
+    RenderEngine.governor = ThermalGovernor.start(THREADS);
+    RenderMetrics.enabled = Boolean.parseBoolean(config.getProperty("fv.metrics.enabled", "true"));
+    RenderMetrics.jmx = Boolean.parseBoolean(config.getProperty("fv.metrics.jmx", "false"));
+    RenderMetrics.sampleSeconds = Integer.parseInt(config.getProperty("fv.metrics.sampleSeconds", "1"));
+    RenderMetrics.logSeconds = Integer.parseInt(config.getProperty("fv.metrics.logSeconds", "30"));
+    RenderMetrics.start();
+    final boolean queue = Boolean.parseBoolean(config.getProperty("fv.queue.enabled", "false"));
+    RenderQueue.directory = config.getProperty("fv.queue.directory", "spool");
+    RenderQueue.pollSeconds = Integer.parseInt(config.getProperty("fv.queue.pollSeconds", "2"));
+    RenderQueue.statusSeconds = Integer.parseInt(config.getProperty("fv.queue.statusSeconds", "5"));
+    final boolean streaming = Boolean.parseBoolean(config.getProperty("fv.output.streaming", "false"));
+    StreamingRender.bandTiles = Integer.parseInt(config.getProperty("fv.output.bandTiles", "4"));
+    StreamingRender.previewWidth = Integer.parseInt(config.getProperty("fv.output.previewWidth", "1024"));
+    PngWriter.compressionLevel = Integer.parseInt(config.getProperty("fv.output.compressionLevel", "6"));
+    final String distributed = config.getProperty("fv.distributed.mode", "off").trim();
+    RenderCoordinator.port = Integer.parseInt(config.getProperty("fv.distributed.port", "7057"));
+    RenderCoordinator.timeoutSeconds = Integer.parseInt(config.getProperty("fv.distributed.timeoutSeconds", "60"));
+    RenderCoordinator.tilesPerThread = Integer.parseInt(config.getProperty("fv.distributed.tilesPerThread", "2"));
+    RenderCoordinator.maxAttempts = Integer.parseInt(config.getProperty("fv.distributed.maxAttempts", "3"));
+    RenderWorker.coordinator = config.getProperty("fv.distributed.coordinator", "localhost").trim();
+    RenderWorker.retrySeconds = Integer.parseInt(config.getProperty("fv.distributed.retrySeconds", "5"));
+    if(!distributed.equals("off") && !distributed.equals("coordinator") && !distributed.equals("worker")) {
+      throw new IllegalArgumentException("\nERROR: fv.distributed.mode must be off, coordinator or worker. Got: " + distributed);
+    }
+    colorMode = ColorMapper.Mode.valueOf(config.getProperty("fv.color.mode", "linear").trim().toUpperCase());
+    palette = Palette.parse(config.getProperty("fv.color.palette", "gray"),
+        Integer.parseInt(config.getProperty("fv.color.interior", "000000").trim(), 16));
+
+    if(queue) { // Unattended operation: render whatever shows up in the spool directory, forever
+      try {
+        new RenderQueue(new File(RenderQueue.directory), THREADS, perturbation, colorMode, palette).run();
+      } catch(IOException | InterruptedException e) {
+        System.out.println("ERROR: The render queue stopped. Details:\n" + e.getMessage());
+      }
+      return;
+    }
+    if(distributed.equals("worker")) { // Render tiles for a coordinator, forever
+      new RenderWorker(THREADS).run();
+      return;
+    }
 
     /*Slot s1 = FractalIterator.mandelbrotSet;
     Slot s2 = FractalIterator.emptySlot;
@@ -72,50 +147,58 @@ public class Main {
 
         final FractalIterator mandelbrotIter =
             new FractalIterator(s1, s2, s3, J, K, zPositions, fast);
+        mandelbrotIter.perturbation = perturbation;                  // only matters if !fast
 
-    // ---- 2.  Create the image ---------------------------------------------------
-        final int width  = 1024;
-        final int height = 768;
-        final BufferedImage image = new BufferedImage(width, height,
-            BufferedImage.TYPE_USHORT_GRAY);
-        final WritableRaster raster = image.getRaster();
+    // ---- 2.  Define the image size ---------------------------------------------
+        final int width  = Integer.parseInt(config.getProperty("fv.output.width", "1024"));
+        final int height = Integer.parseInt(config.getProperty("fv.output.height", "768"));
 
     // ---- 3.  Define the complex‑plane limits ------------------------------------
-        final double xmin = -2.333;
-        final double xmax =  1.0;
-        final double ymin = -1.25;
-        final double ymax =  1.25;
-
-    // ---- 4.  Render -------------------------------------------------------------
-        for (int y = 0; y < height; y++) {
-          // Map pixel row to imaginary coordinate (top → ymin, bottom → ymax)
-          final double ci = ymax - (y / (double)(height - 1)) * (ymax - ymin);
-
-          for (int x = 0; x < width; x++) {
-            // Map pixel column to real coordinate
-            final double cr = xmin + (x / (double)(width - 1)) * (xmax - xmin);
-
-            // Fast Mandelbrot iteration (double precision)
-            final long iter = mandelbrotIter.iterate_mandelbrot_fast(cr, ci);
-
-            // ---- 5.  Map iteration count to 16‑bit grayscale ----------------
-            //   * 1 iteration → white (65535)
-            //   * maxIterations → black (0)
-            int gray;
-            if (iter >= FractalIterator.maxIterations) {
-              gray = 0;                                     // fully black
-            } else {
-              // Linear interpolation: 1 -> 65535, max -> 0
-              double frac = (double)(FractalIterator.maxIterations - iter) /
-                  (double)(FractalIterator.maxIterations - 1);
-              gray = (int)Math.round(frac * 65535.0);
-              if (gray > 65535) gray = 65535;
-              if (gray < 0)      gray = 0;
-            }
-
-            raster.setSample(x, y, 0, gray);
+        final RenderView view = new RenderView(
+            new Apfloat("-2.333", FractalIterator.maxPrecision),
+            new Apfloat("1.0", FractalIterator.maxPrecision),
+            new Apfloat("-1.25", FractalIterator.maxPrecision),
+            new Apfloat("1.25", FractalIterator.maxPrecision),
+            width, height, FractalIterator.maxPrecision);
+
+    // ---- 4.  Render on every core -----------------------------------------------
+        if(distributed.equals("coordinator")) { // On the cores of every connected worker instead
+          try (RenderCoordinator coordinator = new RenderCoordinator(RenderCoordinator.port)) {
+            writeImage(coordinator.render(mandelbrotIter, view));
+          } catch(IOException e) {
+            System.out.println("ERROR: The distributed render failed. Details:\n" + e.getMessage());
           }
+          return;
         }
+        final RenderEngine engine = new RenderEngine(mandelbrotIter, THREADS);
+        if(zoom) { // A whole zoom video instead of the single view above
+          new ZoomSequence(engine, colorMode, palette).render(
+              new Apcomplex(new Apfloat(config.getProperty("fv.zoom.centerReal", "-0.743643887037151"), FractalIterator.maxPrecision),
+                  new Apfloat(config.getProperty("fv.zoom.centerImag", "0.131825904205330"), FractalIterator.maxPrecision)),
+              new Apfloat(config.getProperty("fv.zoom.startScale", "2.5")),
+              new Apfloat(config.getProperty("fv.zoom.endScale", "1e-10")),
+              Integer.parseInt(config.getProperty("fv.zoom.frames", "300")),
+              width, height, new File(config.getProperty("fv.zoom.directory", "zoom")));
+          engine.shutdown();
+          return;
+        }
+        if(streaming) { // Band by band straight into the PNG, for images too large to hold in memory
+          new StreamingRender(engine, colorMode, palette).render(view, new File("mandelbrot.png"));
+          engine.shutdown();
+          return;
+        }
+        // Progressive renders rewrite the image after every pass, so it can be watched while it sharpens
+        final IterationBuffer iterations = engine.render(view, progressive ? (buffer, step, pixelsDone) -> writeImage(buffer) : null);
+        engine.shutdown();
+        if(!progressive) {
+          writeImage(iterations);
+        }
+      }
+
+  // Colors the iteration counts of a render and saves them as mandelbrot.png
+  private static void writeImage(IterationBuffer iterations) {
+    // ---- 5.  Map iteration counts to colors (a separate pass, see ColorMapper) --
+        final BufferedImage image = ColorMapper.image(iterations, colorMode, palette);
 
     // ---- 6.  Save the PNG -------------------------------------------------------
         try {
@@ -0,0 +1,106 @@
+/*** MutableComplex.java ******************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Defines a complex number type that's modified in place,    *
+ *                 for the fixed-size extended precision tiers that sit       *
+ *                 between doubles and Apcomplex.                             *
+\******************************************************************************/
+
+import org.apfloat.Apcomplex;
+import org.apfloat.Apfloat;
+
+import java.math.BigDecimal;
+
+
+/* Apcomplex allocates a new object for every operation, which is most of its cost at low precision. Implementations of
+   this class instead keep their value in primitive fields and overwrite them, so an iteration loop allocates nothing at
+   all once its operands are set up.
+
+   Every operation stores its result in `this`. The other operand is never modified, and it may be `this` itself.
+
+   The error-free transformations at the bottom are the building blocks of both double-double and quad-double
+   arithmetic. Each returns the rounding error of a floating-point operation whose rounded result the caller already
+   has, which avoids needing two return values.
+*/
+public abstract class MutableComplex {
+  private static final double MAGNITUDE2_TOLERANCE = 1e-12; // Far above magnitude2()'s relative error
+
+  public abstract void set(Apcomplex value);
+  public abstract void set(MutableComplex other);
+  public abstract void setZero();
+  public void setOne() { // Implementations should override this if they can do it without converting an Apcomplex
+    set(Apcomplex.ONE);
+  }
+  public abstract void add(MutableComplex other);
+  public abstract void multiply(MutableComplex other);
+  public abstract void square();
+  public abstract double magnitude2(); // |this|^2, only accurate to double precision
+  protected abstract int compareMagnitude2(double threshold2); // Sign of |this|^2 - threshold2, at full precision
+  public abstract MutableComplex create(); // A new zero of the same type
+
+  // Whether |this|^2 >= threshold2, or isn't a number. magnitude2() settles it unless the two are within its rounding
+  // error. The orbit of c = -2 + d reaches |z|^2 = 4 - 12d + ..., which a double rounds to exactly 4 once d is tiny.
+  public boolean escaped(double threshold2) {
+    final double magnitude2 = magnitude2();
+    if(!(Math.abs(magnitude2 - threshold2) <= MAGNITUDE2_TOLERANCE * threshold2)) {
+      return !(magnitude2 < threshold2);
+    }
+    return compareMagnitude2(threshold2) >= 0;
+  }
+
+  // this = this^n for n >= 0, by binary exponentiation. scratch must be of the same type and is overwritten.
+  public void pow(int n, MutableComplex scratch) {
+    if(n == 1) {
+      return;
+    } else if(n == 2) { // Optimization: the most common exponent by far
+      square();
+      return;
+    }
+
+    scratch.set(this);
+    setOne();
+    while(n > 0) {
+      if((n & 1) != 0) {
+        multiply(scratch);
+      }
+      n >>= 1;
+      if(n > 0) {
+        scratch.square();
+      }
+    }
+  }
+
+  // Splits x into `parts` doubles whose exact sum is x to within the last part's precision. The remainders are kept
+  // in exact BigDecimal arithmetic: an Apfloat difference only has the digits of its less precise operand, which for
+  // a short part like -0.75 would drop everything below it.
+  protected static void split(Apfloat x, double[] parts, int offset, int count) {
+    BigDecimal remainder = new BigDecimal(x.toString());
+    for(int i = 0; i < count; i++) {
+      double part = remainder.doubleValue();
+      parts[offset + i] = part;
+      if(part == 0 || !Double.isFinite(part)) { // Nothing left, or nothing representable
+        for(int j = i + 1; j < count; j++) {
+          parts[offset + j] = 0;
+        }
+        return;
+      }
+      remainder = remainder.subtract(new BigDecimal(part)); // BigDecimal(double) is exact
+    }
+  }
+
+  // Rounding error of s = a + b
+  protected static double twoSumError(double a, double b, double s) {
+    double bb = s - a;
+    return (a - (s - bb)) + (b - bb);
+  }
+
+  // Rounding error of s = a + b, only valid if |a| >= |b|
+  protected static double quickTwoSumError(double a, double b, double s) {
+    return b - (s - a);
+  }
+
+  // Rounding error of p = a * b
+  protected static double twoProductError(double a, double b, double p) {
+    return Math.fma(a, b, -p);
+  }
+}
@@ -20,10 +20,23 @@ import org.apfloat.Apcomplex;
 */
 public class PairCoefficient {
   public Apcomplex[] pair;
+  private final Apcomplex constant; // The constant as given, before any precision changes
 
   public PairCoefficient(Apcomplex n) {
     this.pair = new Apcomplex[] {n, n}; // Both elements are initialized to the same value, but the second one will be
                                         // modified before external computations.
+    this.constant = n;
+  }
+
+  // The constant this coefficient was constructed with, at its original precision
+  public Apcomplex constant() {
+    return constant;
+  }
+
+  // Rounds the constant element to at most `digits` digits; computing with more digits than the render needs is just
+  // wasted time. Always starts over from the original constant, so a later, deeper render gets its digits back.
+  public void setPrecision(long digits) {
+    pair[0] = constant.precision() > digits ? constant.precision(digits) : constant;
   }
 
   // Insert z into the position where z is supposed to be, or insert 1 if it's not supposed to be there
@@ -0,0 +1,121 @@
+/*** Palette.java *************************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Maps a position between 0 and 1 to a color along a         *
+ *                 gradient.                                                  *
+\******************************************************************************/
+
+
+/* A palette is a gradient through any number of evenly spaced color stops, sampled into a lookup table up front so
+   coloring a pixel is one multiplication and an array read. Points that never escaped get a separate interior color.
+
+   Palettes are written as comma-separated RRGGBB hex stops, e.g. "000764,206bcb,edffff,ffaa00,000200", or given by
+   one of the names in PRESETS.
+*/
+public class Palette {
+  private static final int SIZE = 4096; // Entries in the lookup table
+
+  public static final String[][] PRESETS = {
+      {"gray", "ffffff,000000"}, // White for points that escape right away, black for slow ones
+      {"ultra", "000764,206bcb,edffff,ffaa00,000200"},
+      {"fire", "000000,7f0000,ff4000,ffc000,ffffff"}
+  };
+
+  private final int[] stops;
+  private final int[] table;
+  private final int[] grays; // Gray level of every stop, 0-255, if the stops and the interior are all gray; else null
+  public final int interior; // Color of points that never escaped, as 0xRRGGBB
+
+  public Palette(int[] stops, int interior) {
+    if(stops.length < 2) {
+      throw new IllegalArgumentException("\nERROR: A palette needs at least 2 colors. Got: " + stops.length);
+    }
+    this.interior = interior;
+    this.stops = stops.clone();
+    this.table = new int[SIZE];
+    for(int i = 0; i < SIZE; i++) {
+      double position = (double)i / (SIZE - 1) * (stops.length - 1);
+      int stop = Math.min((int)position, stops.length - 2);
+      table[i] = mix(stops[stop], stops[stop + 1], position - stop);
+    }
+
+    int[] grays = new int[stops.length];
+    boolean gray = isGray(interior);
+    for(int i = 0; i < stops.length; i++) {
+      gray &= isGray(stops[i]);
+      grays[i] = stops[i] & 0xFF;
+    }
+    this.grays = gray ? grays : null;
+  }
+
+  // Parses a preset name or a list of hex stops
+  public static Palette parse(String spec, int interior) {
+    for(String[] preset : PRESETS) {
+      if(preset[0].equalsIgnoreCase(spec.trim())) {
+        spec = preset[1];
+        break;
+      }
+    }
+
+    String[] parts = spec.split(",");
+    int[] stops = new int[parts.length];
+    for(int i = 0; i < parts.length; i++) {
+      try {
+        stops[i] = Integer.parseInt(parts[i].trim(), 16);
+      } catch(NumberFormatException e) {
+        throw new IllegalArgumentException("\nERROR: Unknown palette or bad color \"" + parts[i].trim() + "\" in palette \"" + spec + "\"");
+      }
+    }
+    return new Palette(stops, interior);
+  }
+
+  // Color at position t along the gradient, clamped to [0, 1]
+  public int color(double t) {
+    if(!(t > 0)) { // Also catches NaN
+      return table[0];
+    }
+    return table[(int)(Math.min(t, 1.0) * (SIZE - 1))];
+  }
+
+  // The same gradient with another interior color
+  public Palette withInterior(int interior) {
+    return new Palette(stops, interior);
+  }
+
+  // True if every stop and the interior color are shades of gray, which a 16-bit grayscale image can hold exactly
+  public boolean isGray() {
+    return grays != null;
+  }
+
+  // Gray level at position t along the gradient, clamped to [0, 1], as a 16-bit sample. Only for gray palettes; it's
+  // interpolated between the stops directly instead of read from the table, so it has all 16 bits.
+  public int gray16(double t) {
+    if(!(t > 0)) { // Also catches NaN
+      return grays[0] * 257;
+    }
+    double position = Math.min(t, 1.0) * (grays.length - 1);
+    int stop = Math.min((int)position, grays.length - 2);
+    return (int)Math.round((grays[stop] + (grays[stop + 1] - grays[stop]) * (position - stop)) * 257);
+  }
+
+  // The interior color as a 16-bit gray sample. Only for gray palettes.
+  public int interiorGray16() {
+    return (interior & 0xFF) * 257;
+  }
+
+  // True if the color's three channels are equal
+  private static boolean isGray(int color) {
+    int b = color & 0xFF;
+    return ((color >> 8) & 0xFF) == b && ((color >> 16) & 0xFF) == b;
+  }
+
+  // a and b blended per channel, fraction f of the way to b
+  private static int mix(int a, int b, double f) {
+    int color = 0;
+    for(int shift = 0; shift <= 16; shift += 8) {
+      int ca = (a >> shift) & 0xFF, cb = (b >> shift) & 0xFF;
+      color |= (int)Math.round(ca + (cb - ca) * f) << shift;
+    }
+    return color;
+  }
+}
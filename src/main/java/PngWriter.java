@@ -0,0 +1,254 @@
+/*** PngWriter.java ***********************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Writes a PNG a band of rows at a time, compressing on a    *
+ *                 background thread, so the image never has to fit in RAM.   *
+\******************************************************************************/
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+
+/* ImageIO can only encode a whole BufferedImage, which for a 32k x 32k render is 4 GB of pixels before the first byte
+   is written. A PNG is just a stream of filtered, deflated rows though, so this writer takes the image a band of rows at
+   a time, top to bottom, and only ever holds the band being compressed and the one being handed over.
+
+   The output is 8-bit RGB. Every row gets whichever of the five PNG filters (None, Sub, Up, Average, Paeth) leaves the
+   smallest sum of absolute byte values, the heuristic libpng uses. Filtering and deflating a band run on the writer's
+   own thread while the caller renders the next band; writeRows() waits if the previous band isn't compressed yet, so
+   at most one band is in flight. The compressed stream is cut into IDAT chunks of CHUNK_SIZE bytes.
+
+   close() finishes the file if every row was written. If not, the file is left incomplete and close() says so.
+*/
+public class PngWriter implements Closeable {
+  public static int compressionLevel = 6; // Deflate level, 0 (none, fastest) to 9 (smallest, slowest)
+
+  private static final int CHUNK_SIZE = 1 << 16; // Bytes of compressed data per IDAT chunk
+  private static final byte[] SIGNATURE = {(byte)0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+  private final File file;
+  private final int width, height;
+  private final DataOutputStream out;
+  private final Deflater deflater;
+  private final DeflaterOutputStream idat;
+  private final ExecutorService compressor;
+  private Future<?> compressing; // The band being filtered and deflated, if any
+  private int rowsWritten; // Rows handed to writeRows() so far
+
+  // Filter buffers, only touched by the compressor thread
+  private byte[] prior; // Raw bytes of the previous row, all zero before the first one
+  private final byte[] raw;
+  private final byte[][] filtered; // One candidate row per filter type
+
+  public PngWriter(File file, int width, int height) throws IOException {
+    if(width < 1 || height < 1) {
+      throw new IllegalArgumentException("\nERROR: A PNG must be at least 1x1 pixels. Got: " + width + "x" + height);
+    }
+    this.file = file;
+    this.width = width;
+    this.height = height;
+    this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), CHUNK_SIZE + 12));
+    this.deflater = new Deflater(compressionLevel);
+    this.idat = new DeflaterOutputStream(new ChunkStream(), deflater, CHUNK_SIZE);
+    this.compressor = Executors.newSingleThreadExecutor(r -> {
+      Thread thread = new Thread(r, "png-writer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.prior = new byte[3 * width];
+    this.raw = new byte[3 * width];
+    this.filtered = new byte[5][3 * width];
+
+    out.write(SIGNATURE);
+    final byte[] header = new byte[13];
+    writeInt(header, 0, width);
+    writeInt(header, 4, height);
+    header[8] = 8; // Bits per channel
+    header[9] = 2; // Color type: RGB
+    // Compression, filter method and interlacing are all 0: deflate, adaptive filtering, none
+    writeChunk("IHDR", header, header.length);
+  }
+
+  // Queues the next `rows` rows of the image, given as 0xRRGGBB row-major like ColorMapper.color() returns them. The
+  // array belongs to the writer from now on. Blocks while the previous band is still being compressed.
+  public void writeRows(int[] rgb, int rows) throws IOException {
+    if(rowsWritten + rows > height) {
+      throw new IllegalArgumentException("\nERROR: " + (rowsWritten + rows) + " rows written to a PNG " + height + " rows high.");
+    }
+    if(rgb.length < rows * width) {
+      throw new IllegalArgumentException("\nERROR: " + rows + " rows of " + width + " pixels need " + (rows * width)
+          + " colors. Got: " + rgb.length);
+    }
+    awaitCompression();
+    rowsWritten += rows;
+    compressing = compressor.submit(() -> {
+      for(int row = 0; row < rows; row++) {
+        writeRow(rgb, row * width);
+      }
+      return null;
+    });
+  }
+
+  // Waits for the last band, then finishes the file if the image is complete
+  @Override
+  public void close() throws IOException {
+    try {
+      awaitCompression();
+      if(rowsWritten < height) {
+        throw new IOException("Only " + rowsWritten + " of " + height + " rows were written to " + file.getAbsolutePath());
+      }
+      idat.finish();
+      idat.flush();
+      writeChunk("IEND", new byte[0], 0);
+      out.flush();
+    } finally {
+      compressor.shutdown();
+      deflater.end();
+      out.close();
+    }
+  }
+
+  private void awaitCompression() throws IOException {
+    if(compressing == null) {
+      return;
+    }
+    try {
+      compressing.get();
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while writing " + file.getAbsolutePath());
+    } catch(ExecutionException e) {
+      throw e.getCause() instanceof IOException ? (IOException)e.getCause() : new IOException(e.getCause());
+    } finally {
+      compressing = null;
+    }
+  }
+
+  // Filters one row of pixels starting at rgb[offset] and feeds it to the deflater
+  private void writeRow(int[] rgb, int offset) throws IOException {
+    for(int x = 0; x < width; x++) {
+      final int color = rgb[offset + x];
+      raw[3 * x] = (byte)(color >> 16);
+      raw[3 * x + 1] = (byte)(color >> 8);
+      raw[3 * x + 2] = (byte)color;
+    }
+
+    int best = 0;
+    long bestSum = Long.MAX_VALUE;
+    for(int type = 0; type < 5; type++) {
+      final byte[] row = filtered[type];
+      long sum = 0;
+      for(int i = 0; i < raw.length; i++) {
+        final int a = i >= 3 ? raw[i - 3] & 0xFF : 0; // Same channel of the pixel to the left
+        final int b = prior[i] & 0xFF; // Same channel of the pixel above
+        final int c = i >= 3 ? prior[i - 3] & 0xFF : 0; // Same channel of the pixel above and to the left
+        final int predicted;
+        switch(type) {
+          case 0:
+            predicted = 0;
+            break;
+          case 1:
+            predicted = a;
+            break;
+          case 2:
+            predicted = b;
+            break;
+          case 3:
+            predicted = (a + b) >>> 1;
+            break;
+          default:
+            predicted = paeth(a, b, c);
+        }
+        row[i] = (byte)(raw[i] - predicted);
+        sum += Math.abs(row[i]);
+      }
+      if(sum < bestSum) {
+        bestSum = sum;
+        best = type;
+      }
+    }
+
+    idat.write(best);
+    idat.write(filtered[best]);
+    System.arraycopy(raw, 0, prior, 0, raw.length);
+  }
+
+  // Whichever of left, above and upper left is closest to left + above - upper left
+  private static int paeth(int a, int b, int c) {
+    final int p = a + b - c;
+    final int pa = Math.abs(p - a), pb = Math.abs(p - b), pc = Math.abs(p - c);
+    if(pa <= pb && pa <= pc) {
+      return a;
+    }
+    return pb <= pc ? b : c;
+  }
+
+  // Writes one chunk: length, type, data and the CRC of type and data
+  private void writeChunk(String type, byte[] data, int length) throws IOException {
+    final byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+    final CRC32 crc = new CRC32();
+    crc.update(typeBytes);
+    crc.update(data, 0, length);
+    out.writeInt(length);
+    out.write(typeBytes);
+    out.write(data, 0, length);
+    out.writeInt((int)crc.getValue());
+  }
+
+  private static void writeInt(byte[] bytes, int offset, int value) {
+    bytes[offset] = (byte)(value >>> 24);
+    bytes[offset + 1] = (byte)(value >>> 16);
+    bytes[offset + 2] = (byte)(value >>> 8);
+    bytes[offset + 3] = (byte)value;
+  }
+
+  // Collects deflated bytes and writes them out as IDAT chunks of CHUNK_SIZE bytes, plus a shorter one on flush()
+  private class ChunkStream extends OutputStream {
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private int length;
+
+    @Override
+    public void write(int b) throws IOException {
+      chunk[length++] = (byte)b;
+      if(length == CHUNK_SIZE) {
+        flush();
+      }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int count) throws IOException {
+      while(count > 0) {
+        final int n = Math.min(count, CHUNK_SIZE - length);
+        System.arraycopy(bytes, offset, chunk, length, n);
+        length += n;
+        offset += n;
+        count -= n;
+        if(length == CHUNK_SIZE) {
+          flush();
+        }
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if(length > 0) {
+        writeChunk("IDAT", chunk, length);
+        length = 0;
+      }
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*** PrecisionTier.java *******************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Defines the number formats the iterators can work in and   *
+ *                 picks the cheapest one that's precise enough for a view.   *
+\******************************************************************************/
+
+
+/* Each tier is roughly an order of magnitude slower than the one before it, so a render should use the cheapest tier
+   whose mantissa can still tell neighbouring pixels apart:
+
+     DOUBLE         53 bits   hardware doubles
+     DOUBLE_DOUBLE  106 bits  DoubleDoubleComplex
+     QUAD_DOUBLE    212 bits  QuadDoubleComplex
+     ARBITRARY      any       Apcomplex
+
+   The number of bits a view needs is log2(largest coordinate / pixel spacing), plus some guard bits for the rounding
+   error that builds up over many iterations.
+*/
+public enum PrecisionTier {
+  DOUBLE(53),
+  DOUBLE_DOUBLE(106),
+  QUAD_DOUBLE(212),
+  ARBITRARY(Integer.MAX_VALUE);
+
+  public static int guardBits = 10; // Extra bits required on top of what's needed to resolve a single pixel
+
+  public final int bits; // Mantissa bits available in this tier
+
+  PrecisionTier(int bits) {
+    this.bits = bits;
+  }
+
+  // Mantissa bits needed to render the given view without neighbouring pixels collapsing onto each other
+  public static int bitsNeeded(RenderView view) {
+    double largest = Math.max(
+        Math.max(Math.abs(view.xmin.doubleValue()), Math.abs(view.xmax.doubleValue())),
+        Math.max(Math.abs(view.ymin.doubleValue()), Math.abs(view.ymax.doubleValue()))
+    );
+    int largestExponent = Math.getExponent(Math.max(largest, 1.0)) + 1;
+    return largestExponent - view.deltaExponent + guardBits;
+  }
+
+  // Decimal digits needed for Apcomplex to render the given view, i.e. bitsNeeded() in base 10
+  public static long digitsNeeded(RenderView view) {
+    return (long)Math.ceil(bitsNeeded(view) * Math.log10(2));
+  }
+
+  // The cheapest tier that's precise enough for the given view
+  public static PrecisionTier forView(RenderView view) {
+    int needed = bitsNeeded(view);
+    for(PrecisionTier tier : values()) {
+      if(needed <= tier.bits) {
+        return tier;
+      }
+    }
+    return ARBITRARY;
+  }
+}
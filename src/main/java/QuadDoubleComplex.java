@@ -0,0 +1,435 @@
+/*** QuadDoubleComplex.java ***************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Implements an allocation-free complex number with about    *
+ *                 212 bits (64 digits) of precision per component.           *
+\******************************************************************************/
+
+import org.apfloat.Apcomplex;
+
+
+/* A quad-double extends the double-double idea to four non-overlapping doubles x0 + x1 + x2 + x3. Addition and
+   multiplication follow the "sloppy" algorithms of Hida, Li and Bailey's QD library: they're slightly less accurate in
+   the last bits than the strict versions but much cheaper, and still far more accurate than a render at this tier needs.
+
+   Each component lives in a preallocated double[4]; the real-number helpers read from and write to those arrays, so
+   nothing is allocated after construction. sin works like DoubleDoubleComplex's, with Taylor series run until their
+   terms drop below the quad-double epsilon.
+*/
+public class QuadDoubleComplex extends MutableComplex implements SineComplex {
+  public final double[] re = new double[4], im = new double[4];
+
+  // Scratch registers for the complex operations
+  private final double[] t0 = new double[4], t1 = new double[4], t2 = new double[4], t3 = new double[4];
+
+  // Scratch registers for sin() and the helpers it calls
+  private final double[] x = new double[4], x2 = new double[4], sinX = new double[4], cosX = new double[4];
+  private final double[] term = new double[4], cTerm = new double[4], sinhY = new double[4], coshY = new double[4];
+  private final double[] expRed = new double[4], expSum = new double[4], expTerm = new double[4];
+  private final double[] divRem = new double[4], divProd = new double[4];
+
+  // 2*pi and ln(2) as quad-doubles
+  private static final double[] TWO_PI =
+      {6.283185307179586232e+00, 2.449293598294706414e-16, -5.989539619436679332e-33, 2.224908441726730563e-49};
+  private static final double[] LN2 =
+      {6.931471805599452862e-01, 2.319046813846299558e-17, 5.707708438416212066e-34, -3.582432210601811423e-50};
+  private static final double EPSILON = 1e-66; // Taylor series stop once their terms are this small
+
+  @Override
+  public void set(Apcomplex value) {
+    split(value.real(), re, 0, 4);
+    split(value.imag(), im, 0, 4);
+  }
+
+  @Override
+  public void set(MutableComplex other) {
+    QuadDoubleComplex o = (QuadDoubleComplex)other;
+    System.arraycopy(o.re, 0, re, 0, 4);
+    System.arraycopy(o.im, 0, im, 0, 4);
+  }
+
+  @Override
+  public void setZero() {
+    for(int i = 0; i < 4; i++) {
+      re[i] = 0;
+      im[i] = 0;
+    }
+  }
+
+  @Override
+  public void setOne() {
+    setZero();
+    re[0] = 1;
+  }
+
+  @Override
+  public void add(MutableComplex other) {
+    QuadDoubleComplex o = (QuadDoubleComplex)other;
+    qdAdd(re, o.re, re);
+    qdAdd(im, o.im, im);
+  }
+
+  @Override
+  public void multiply(MutableComplex other) {
+    QuadDoubleComplex o = (QuadDoubleComplex)other;
+    // (a + bi)(c + di) = (ac - bd) + (ad + bc)i
+    qdMul(re, o.re, t0);
+    qdMul(im, o.im, t1);
+    qdMul(re, o.im, t2);
+    qdMul(im, o.re, t3);
+    negate(t1);
+    qdAdd(t0, t1, re);
+    qdAdd(t2, t3, im);
+  }
+
+  @Override
+  public void square() {
+    // (a + bi)^2 = (a^2 - b^2) + 2abi
+    qdMul(re, re, t0);
+    qdMul(im, im, t1);
+    qdMul(re, im, t2);
+    negate(t1);
+    qdAdd(t0, t1, re);
+    for(int i = 0; i < 4; i++) {
+      im[i] = 2.0 * t2[i]; // Doubling is exact
+    }
+  }
+
+  @Override
+  public double magnitude2() {
+    return re[0] * re[0] + im[0] * im[0];
+  }
+
+  @Override
+  protected int compareMagnitude2(double threshold2) {
+    qdMul(re, re, t0);
+    qdMul(im, im, t1);
+    qdAdd(t0, t1, t0);
+    setDouble(t1, -threshold2);
+    qdAdd(t0, t1, t0);
+    return (int)Math.signum(t0[0]);
+  }
+
+  @Override
+  public MutableComplex create() {
+    return new QuadDoubleComplex();
+  }
+
+  // sin(x + yi) = sin(x)cosh(y) + cos(x)sinh(y)i
+  @Override
+  public void sin() {
+    if(Math.abs(im[0]) > 700) { // cosh/sinh overflow; the orbit has escaped anyway
+      setZero();
+      re[0] = im[0] = Double.POSITIVE_INFINITY;
+      return;
+    }
+
+    // ---- sin(x) and cos(x), by Taylor series after reducing x to [-pi, pi] ----
+    setDouble(x, -Math.rint(re[0] / TWO_PI[0]));
+    qdMul(x, TWO_PI, x);
+    qdAdd(re, x, x);
+    qdMul(x, x, x2);
+    negate(x2); // Every term is the previous one times -x^2
+
+    System.arraycopy(x, 0, sinX, 0, 4); // Sum of the sin series
+    System.arraycopy(x, 0, term, 0, 4); // x^n / n!, with alternating sign
+    setDouble(cosX, 1); // Sum of the cos series
+    setDouble(cTerm, 1);
+    for(int n = 1; Math.abs(term[0]) > EPSILON || Math.abs(cTerm[0]) > EPSILON; n++) {
+      qdMul(cTerm, x2, cTerm);
+      qdDivideByDouble(cTerm, (2.0 * n - 1) * (2.0 * n), cTerm);
+      qdAdd(cosX, cTerm, cosX);
+
+      qdMul(term, x2, term);
+      qdDivideByDouble(term, (2.0 * n) * (2.0 * n + 1), term);
+      qdAdd(sinX, term, sinX);
+    }
+
+    // ---- sinh(y) and cosh(y) ----
+    if(Math.abs(im[0]) < 0.5) { // (e^y - e^-y) / 2 would cancel badly, so use the Taylor series of sinh directly
+      qdMul(im, im, x2);
+      System.arraycopy(im, 0, sinhY, 0, 4);
+      System.arraycopy(im, 0, term, 0, 4);
+      for(int n = 1; Math.abs(term[0]) > EPSILON * Math.abs(sinhY[0]) && term[0] != 0; n++) {
+        qdMul(term, x2, term);
+        qdDivideByDouble(term, (2.0 * n) * (2.0 * n + 1), term);
+        qdAdd(sinhY, term, sinhY);
+      }
+      // cosh(y) by its Taylor series as well
+      setDouble(coshY, 1);
+      setDouble(term, 1);
+      for(int n = 1; Math.abs(term[0]) > EPSILON; n++) {
+        qdMul(term, x2, term);
+        qdDivideByDouble(term, (2.0 * n - 1) * (2.0 * n), term);
+        qdAdd(coshY, term, coshY);
+      }
+    } else {
+      qdExp(im, term); // e^y
+      setDouble(x, 1);
+      qdDivide(x, term, cTerm); // e^-y
+      qdAdd(term, cTerm, coshY);
+      negate(cTerm);
+      qdAdd(term, cTerm, sinhY);
+      for(int i = 0; i < 4; i++) {
+        sinhY[i] *= 0.5; // Halving is exact
+        coshY[i] *= 0.5;
+      }
+    }
+
+    qdMul(sinX, coshY, re);
+    qdMul(cosX, sinhY, im);
+  }
+
+  // ---- Quad-double real arithmetic. out may be the same array as a or b. ----
+
+  private static void negate(double[] a) {
+    for(int i = 0; i < 4; i++) {
+      a[i] = -a[i];
+    }
+  }
+
+  private static void setDouble(double[] a, double value) {
+    a[0] = value;
+    a[1] = a[2] = a[3] = 0;
+  }
+
+  // out = a / b, by long division: each quotient digit is a double, taken off the remainder exactly
+  private void qdDivideByDouble(double[] a, double b, double[] out) {
+    System.arraycopy(a, 0, divRem, 0, 4);
+    final double q0 = divRem[0] / b;
+    subtractProduct(q0, b);
+    final double q1 = divRem[0] / b;
+    subtractProduct(q1, b);
+    final double q2 = divRem[0] / b;
+    subtractProduct(q2, b);
+    final double q3 = divRem[0] / b;
+    renormalize(q0, q1, q2, q3, 0, out);
+  }
+
+  // divRem -= q * b; the product of two doubles is exactly p + its error
+  private void subtractProduct(double q, double b) {
+    final double p = q * b;
+    divProd[0] = -p;
+    divProd[1] = -twoProductError(q, b, p);
+    divProd[2] = divProd[3] = 0;
+    qdAdd(divRem, divProd, divRem);
+  }
+
+  // out = a / b, by the same long division with quad-double products
+  private void qdDivide(double[] a, double[] b, double[] out) {
+    System.arraycopy(a, 0, divRem, 0, 4);
+    final double q0 = divRem[0] / b[0];
+    subtractProduct(q0, b);
+    final double q1 = divRem[0] / b[0];
+    subtractProduct(q1, b);
+    final double q2 = divRem[0] / b[0];
+    subtractProduct(q2, b);
+    final double q3 = divRem[0] / b[0];
+    renormalize(q0, q1, q2, q3, 0, out);
+  }
+
+  // divRem -= q * b
+  private void subtractProduct(double q, double[] b) {
+    setDouble(divProd, -q);
+    qdMul(divProd, b, divProd);
+    qdAdd(divRem, divProd, divRem);
+  }
+
+  // out = e^a for |a| <= 700: e^a = 2^k * (e^(r / 1024))^1024 with r = a - k*ln(2)
+  private void qdExp(double[] a, double[] out) {
+    final double k = Math.rint(a[0] / LN2[0]);
+    setDouble(expRed, -k);
+    qdMul(expRed, LN2, expRed);
+    qdAdd(a, expRed, expRed);
+    for(int i = 0; i < 4; i++) {
+      expRed[i] = Math.scalb(expRed[i], -10);
+    }
+
+    // s = e^r - 1 by Taylor series; r is tiny so this converges in a few terms
+    System.arraycopy(expRed, 0, expSum, 0, 4);
+    System.arraycopy(expRed, 0, expTerm, 0, 4);
+    for(int n = 2; Math.abs(expTerm[0]) > EPSILON; n++) {
+      qdMul(expTerm, expRed, expTerm);
+      qdDivideByDouble(expTerm, n, expTerm);
+      qdAdd(expSum, expTerm, expSum);
+    }
+
+    // (1 + s)^2 - 1 = 2s + s^2, ten times
+    for(int i = 0; i < 10; i++) {
+      qdMul(expSum, expSum, expTerm);
+      for(int j = 0; j < 4; j++) {
+        expSum[j] *= 2.0; // Doubling is exact
+      }
+      qdAdd(expSum, expTerm, expSum);
+    }
+
+    setDouble(out, 1);
+    qdAdd(out, expSum, out);
+    for(int i = 0; i < 4; i++) {
+      out[i] = Math.scalb(out[i], (int)k);
+    }
+  }
+
+  private static void qdAdd(double[] a, double[] b, double[] out) {
+    double s0 = a[0] + b[0], e0 = twoSumError(a[0], b[0], s0);
+    double s1 = a[1] + b[1], e1 = twoSumError(a[1], b[1], s1);
+    double s2 = a[2] + b[2], e2 = twoSumError(a[2], b[2], s2);
+    double s3 = a[3] + b[3], e3 = twoSumError(a[3], b[3], s3);
+
+    // s1 += e0
+    double u = s1 + e0;
+    e0 = twoSumError(s1, e0, u);
+    s1 = u;
+
+    // Three-sum of (s2, e0, e1)
+    double v = s2 + e0, f1 = twoSumError(s2, e0, v);
+    s2 = e1 + v;
+    double f2 = twoSumError(e1, v, s2);
+    e0 = f1 + f2;
+    e1 = twoSumError(f1, f2, e0);
+
+    // Three-sum of (s3, e0, e2), keeping only two outputs
+    v = s3 + e0;
+    f1 = twoSumError(s3, e0, v);
+    s3 = e2 + v;
+    f2 = twoSumError(e2, v, s3);
+    e0 = f1 + f2;
+
+    renormalize(s0, s1, s2, s3, e0 + e1 + e3, out);
+  }
+
+  private static void qdMul(double[] a, double[] b, double[] out) {
+    double p0 = a[0] * b[0], q0 = twoProductError(a[0], b[0], p0);
+    double p1 = a[0] * b[1], q1 = twoProductError(a[0], b[1], p1);
+    double p2 = a[1] * b[0], q2 = twoProductError(a[1], b[0], p2);
+    double p3 = a[0] * b[2], q3 = twoProductError(a[0], b[2], p3);
+    double p4 = a[1] * b[1], q4 = twoProductError(a[1], b[1], p4);
+    double p5 = a[2] * b[0], q5 = twoProductError(a[2], b[0], p5);
+
+    // Three-sum of (p1, p2, q0)
+    double v = p1 + p2, f1 = twoSumError(p1, p2, v);
+    p1 = q0 + v;
+    double f2 = twoSumError(q0, v, p1);
+    p2 = f1 + f2;
+    q0 = twoSumError(f1, f2, p2);
+
+    // Three-sum of (p2, q1, q2)
+    v = p2 + q1;
+    f1 = twoSumError(p2, q1, v);
+    p2 = q2 + v;
+    f2 = twoSumError(q2, v, p2);
+    q1 = f1 + f2;
+    q2 = twoSumError(f1, f2, q1);
+
+    // Three-sum of (p3, p4, p5)
+    v = p3 + p4;
+    f1 = twoSumError(p3, p4, v);
+    p3 = p5 + v;
+    f2 = twoSumError(p5, v, p3);
+    p4 = f1 + f2;
+    p5 = twoSumError(f1, f2, p4);
+
+    // (s0, s1, s2) = (p2, q1, q2) + (p3, p4, p5)
+    double s0 = p2 + p3, e0 = twoSumError(p2, p3, s0);
+    double s1 = q1 + p4, e1 = twoSumError(q1, p4, s1);
+    double s2 = q2 + p5;
+    v = s1 + e0;
+    e0 = twoSumError(s1, e0, v);
+    s1 = v;
+    s2 += e0 + e1;
+
+    // O(eps^3) terms
+    s1 += a[0] * b[3] + a[1] * b[2] + a[2] * b[1] + a[3] * b[0] + q0 + q3 + q4 + q5;
+
+    renormalize(p0, p1, s0, s1, s2, out);
+  }
+
+  // Turns the overlapping sum c0 + c1 + c2 + c3 + c4 into four non-overlapping doubles
+  private static void renormalize(double c0, double c1, double c2, double c3, double c4, double[] out) {
+    if(Double.isInfinite(c0)) {
+      out[0] = c0;
+      out[1] = out[2] = out[3] = 0;
+      return;
+    }
+
+    double s0, s1, s2 = 0, s3 = 0, v;
+    s0 = c3 + c4;
+    c4 = quickTwoSumError(c3, c4, s0);
+    v = c2 + s0;
+    c3 = quickTwoSumError(c2, s0, v);
+    s0 = v;
+    v = c1 + s0;
+    c2 = quickTwoSumError(c1, s0, v);
+    s0 = v;
+    v = c0 + s0;
+    c1 = quickTwoSumError(c0, s0, v);
+    c0 = v;
+
+    s0 = c0;
+    s1 = c1;
+    if(s1 != 0.0) {
+      v = s1 + c2;
+      s2 = quickTwoSumError(s1, c2, v);
+      s1 = v;
+      if(s2 != 0.0) {
+        v = s2 + c3;
+        s3 = quickTwoSumError(s2, c3, v);
+        s2 = v;
+        if(s3 != 0.0) {
+          s3 += c4;
+        } else {
+          s2 += c4;
+        }
+      } else {
+        v = s1 + c3;
+        s2 = quickTwoSumError(s1, c3, v);
+        s1 = v;
+        if(s2 != 0.0) {
+          v = s2 + c4;
+          s3 = quickTwoSumError(s2, c4, v);
+          s2 = v;
+        } else {
+          v = s1 + c4;
+          s2 = quickTwoSumError(s1, c4, v);
+          s1 = v;
+        }
+      }
+    } else {
+      v = s0 + c2;
+      s1 = quickTwoSumError(s0, c2, v);
+      s0 = v;
+      if(s1 != 0.0) {
+        v = s1 + c3;
+        s2 = quickTwoSumError(s1, c3, v);
+        s1 = v;
+        if(s2 != 0.0) {
+          v = s2 + c4;
+          s3 = quickTwoSumError(s2, c4, v);
+          s2 = v;
+        } else {
+          v = s1 + c4;
+          s2 = quickTwoSumError(s1, c4, v);
+          s1 = v;
+        }
+      } else {
+        v = s0 + c3;
+        s1 = quickTwoSumError(s0, c3, v);
+        s0 = v;
+        if(s1 != 0.0) {
+          v = s1 + c4;
+          s2 = quickTwoSumError(s1, c4, v);
+          s1 = v;
+        } else {
+          v = s0 + c4;
+          s1 = quickTwoSumError(s0, c4, v);
+          s0 = v;
+        }
+      }
+    }
+
+    out[0] = s0;
+    out[1] = s1;
+    out[2] = s2;
+    out[3] = s3;
+  }
+}
@@ -0,0 +1,56 @@
+/*** ReferenceOrbit.java ******************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Computes and stores the high-precision Mandelbrot orbit    *
+ *                 of a single point, which perturbation rendering measures   *
+ *                 every other pixel against.                                 *
+\******************************************************************************/
+
+import org.apfloat.Apcomplex;
+import org.apfloat.Apfloat;
+
+
+/* Perturbation theory splits the orbit of a pixel z_n into the orbit of a nearby reference point Z_n plus a small
+   difference dz_n. With c = C + dc:
+
+     dz_(n+1) = 2 * Z_n * dz_n + dz_n^2 + dc
+
+   Only Z_n needs full precision, and it's computed once per render here with Apcomplex. Every value of Z_n is small
+   (|Z_n| < escape threshold) so it's stored as plain doubles; all the precision that matters ends up in dz and dc, which
+   the iterator keeps relative to the reference.
+
+   The orbit is read-only once built, so one instance is shared by every render worker.
+*/
+public class ReferenceOrbit {
+  public final Apcomplex center; // The reference point C
+  public final double[] zr, zi; // Z_0 .. Z_length rounded to doubles
+  public final int length; // Index of the last stored point: the escape iteration, or maxIterations if it never escaped
+
+  public ReferenceOrbit(Apcomplex center, long precision) {
+    this.center = center;
+    this.zr = new double[FractalIterator.maxIterations + 1];
+    this.zi = new double[FractalIterator.maxIterations + 1];
+
+    Apcomplex z = new Apcomplex(
+        new Apfloat(0, precision),
+        new Apfloat(0, precision)
+    );
+    Apcomplex c = center.precision(precision);
+
+    int n = 0;
+    while(n < FractalIterator.maxIterations) {
+      // z = z^2 + c
+      z = z.multiply(z).add(c);
+      n++;
+
+      zr[n] = z.real().doubleValue();
+      zi[n] = z.imag().doubleValue();
+
+      // If real^2 + imag^2 >= (escape threshold)^2 then the reference itself has left the set
+      if(z.real().multiply(z.real()).add(z.imag().multiply(z.imag())).compareTo(FractalIterator.escapeThreshold2) >= 0) {
+        break;
+      }
+    }
+    this.length = n;
+  }
+}
@@ -0,0 +1,220 @@
+/*** RenderCache.java *********************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Keeps the iteration counts of renders on disk, so an       *
+ *                 interrupted render resumes where it stopped and a repeated *
+ *                 one doesn't have to be rendered again.                     *
+\******************************************************************************/
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+
+
+/* Every render gets one file in `directory`, named after the SHA-256 of a key that spells out everything its counts
+   depend on: the fractal (slots, J, K, zPositions), the view and its precision, maxIterations, the escape threshold,
+   the tile size and every engine setting that can change a count. The file is memory-mapped and laid out as
+
+     header (HEADER_BYTES) | one done flag per tile (padded to 8 bytes) | counts (int per pixel) | smooth values (float
+     per pixel, if the render keeps them)
+
+   Workers copy each tile into the mapping as soon as it's finished and only then set its done flag, so whatever is in
+   the file at any moment is consistent. The mapping lives in the OS page cache, which survives the JVM going down; it's
+   also forced out to the disk every checkpointSeconds, and when the render ends, so a power cut costs at most that much.
+
+   Opening a render's file loads every tile it has into the buffer, and the engine skips those tiles. If every tile is
+   there, the render is answered from the cache without iterating anything.
+
+   The directory is capped at maxMegabytes. Files are touched whenever they're opened, and before a new file is created
+   the least recently used ones are deleted until it fits. Renders too big to map (over 2 GB) aren't cached.
+*/
+public class RenderCache {
+  public static boolean enabled = true;
+  public static String directory = "cache";
+  public static long maxMegabytes = 1024; // Size cap of the whole directory
+  public static int checkpointSeconds = 60; // How often finished tiles are forced out to the disk
+
+  private static final int MAGIC = 0x46565243; // "FVRC"
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = 32;
+  private static final String SUFFIX = ".fvr";
+
+  private final File file;
+  private final RandomAccessFile raf;
+  private final MappedByteBuffer map;
+  private final int width, height, tiles;
+  private final boolean smooth;
+  private final int flagsOffset, countsOffset, smoothOffset;
+  private long lastForce;
+
+  private RenderCache(File file, RandomAccessFile raf, MappedByteBuffer map, int width, int height, int tiles, boolean smooth) {
+    this.file = file;
+    this.raf = raf;
+    this.map = map;
+    this.width = width;
+    this.height = height;
+    this.tiles = tiles;
+    this.smooth = smooth;
+    this.flagsOffset = HEADER_BYTES;
+    this.countsOffset = flagsOffset + ((tiles + 7) & ~7);
+    this.smoothOffset = countsOffset + 4 * width * height;
+    this.lastForce = System.nanoTime();
+  }
+
+  // Opens (or creates) the cache file of the render described by key, whose results go to buffer in `tiles` tiles of
+  // tileSize pixels. Returns null if caching is off or the file can't be used; the render then just isn't cached.
+  public static RenderCache open(String key, IterationBuffer buffer, int tileSize, int tiles) {
+    if(!enabled) {
+      return null;
+    }
+    final boolean smooth = buffer.smooth != null;
+    final long size = HEADER_BYTES + ((tiles + 7) & ~7) + (smooth ? 8L : 4L) * buffer.width * buffer.height;
+    if(size > Integer.MAX_VALUE) {
+      System.out.println("Render cache: render too large to cache (" + (size >> 20) + " MB).");
+      return null;
+    }
+
+    final File dir = new File(directory);
+    if(!dir.isDirectory() && !dir.mkdirs()) {
+      System.out.println("ERROR: Couldn't create render cache directory " + dir.getAbsolutePath());
+      return null;
+    }
+    final File file = new File(dir, hash(key) + SUFFIX);
+
+    try {
+      boolean exists = file.isFile() && file.length() == size;
+      if(!exists) {
+        evict(dir, size);
+      }
+      RandomAccessFile raf = new RandomAccessFile(file, "rw");
+      raf.setLength(size);
+      MappedByteBuffer map = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+      file.setLastModified(System.currentTimeMillis()); // Most recently used
+
+      if(!exists || map.getInt(0) != MAGIC || map.getInt(4) != VERSION || map.getInt(8) != buffer.width
+          || map.getInt(12) != buffer.height || map.getInt(16) != tileSize || map.getInt(20) != buffer.maxIterations
+          || map.getInt(24) != (smooth ? 1 : 0)) { // New, or not what this render would write: start over
+        for(int i = 0; i < tiles; i++) {
+          map.put(HEADER_BYTES + i, (byte)0);
+        }
+        map.putInt(0, MAGIC);
+        map.putInt(4, VERSION);
+        map.putInt(8, buffer.width);
+        map.putInt(12, buffer.height);
+        map.putInt(16, tileSize);
+        map.putInt(20, buffer.maxIterations);
+        map.putInt(24, smooth ? 1 : 0);
+      }
+      return new RenderCache(file, raf, map, buffer.width, buffer.height, tiles, smooth);
+    } catch(IOException e) {
+      System.out.println("ERROR: Couldn't open render cache file " + file.getAbsolutePath() + ". Details:\n" + e.getMessage());
+      return null;
+    }
+  }
+
+  // Copies everything the file has into the buffer and returns how many tiles that is
+  public int load(IterationBuffer buffer) {
+    int done = 0;
+    for(int i = 0; i < tiles; i++) {
+      if(isDone(i)) {
+        done++;
+      }
+    }
+    if(done > 0) { // Tiles that aren't done are zeros, and will be overwritten when they're rendered
+      map.slice(countsOffset, 4 * width * height).asIntBuffer().get(buffer.counts);
+      if(smooth) {
+        map.slice(smoothOffset, 4 * width * height).asFloatBuffer().get(buffer.smooth);
+      }
+    }
+    return done;
+  }
+
+  public boolean isDone(int tile) {
+    return map.get(flagsOffset + tile) != 0;
+  }
+
+  // Copies the finished tile [x0, x1) x [y0, y1) out of the buffer into the file, then marks it done. Workers call this
+  // concurrently for different tiles; absolute gets and puts don't touch the mapping's shared position.
+  public void storeTile(int tile, IterationBuffer buffer, int x0, int y0, int x1, int y1) {
+    for(int y = y0; y < y1; y++) {
+      for(int x = x0; x < x1; x++) {
+        final int i = y * width + x;
+        map.putInt(countsOffset + 4 * i, buffer.counts[i]);
+        if(smooth) {
+          map.putFloat(smoothOffset + 4 * i, buffer.smooth[i]);
+        }
+      }
+    }
+    map.put(flagsOffset + tile, (byte)1);
+
+    if(System.nanoTime() - lastForce > checkpointSeconds * 1_000_000_000L) {
+      checkpoint();
+    }
+  }
+
+  // Copies the whole finished buffer into the file and marks every tile done
+  public void storeAll(IterationBuffer buffer) {
+    map.slice(countsOffset, 4 * width * height).asIntBuffer().put(buffer.counts);
+    if(smooth) {
+      map.slice(smoothOffset, 4 * width * height).asFloatBuffer().put(buffer.smooth);
+    }
+    for(int i = 0; i < tiles; i++) {
+      map.put(flagsOffset + i, (byte)1);
+    }
+  }
+
+  // Forces everything written so far out to the disk
+  public synchronized void checkpoint() {
+    map.force();
+    lastForce = System.nanoTime();
+  }
+
+  // Checkpoints and closes the file. The cache can't be used afterwards.
+  public void close() {
+    checkpoint();
+    try {
+      raf.close();
+    } catch(IOException e) {
+      System.out.println("ERROR: Couldn't close render cache file " + file.getAbsolutePath() + ". Details:\n" + e.getMessage());
+    }
+  }
+
+  // Deletes the least recently used files until a new one of `size` bytes fits under the cap
+  private static void evict(File dir, long size) {
+    File[] files = dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+    if(files == null) {
+      return;
+    }
+    long total = size;
+    for(File f : files) {
+      total += f.length();
+    }
+    Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+    for(File f : files) {
+      if(total <= maxMegabytes << 20) {
+        break;
+      }
+      long length = f.length();
+      if(f.delete()) {
+        total -= length;
+        System.out.println("Render cache: evicted " + f.getName() + " (" + (length >> 20) + " MB).");
+      }
+    }
+  }
+
+  private static String hash(String key) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8)));
+    } catch(NoSuchAlgorithmException e) {
+      throw new IllegalStateException("\nERROR: SHA-256 isn't available", e); // Every JVM is required to have it
+    }
+  }
+}
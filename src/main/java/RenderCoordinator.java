@@ -0,0 +1,497 @@
+/*** RenderCoordinator.java ***************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Splits a render into tiles and has RenderWorker processes  *
+ *                 on this machine or others render them.                     *
+\******************************************************************************/
+
+import org.apfloat.Apfloat;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+
+
+/* One arbitrary precision render can keep a Pi busy for days, so a render can be spread over several: one runs the
+   coordinator, every other one (and the coordinator's own, if it should help) runs a RenderWorker that connects to it.
+   Workers can come and go at any time, including in the middle of a render.
+
+   The coordinator sets the render up like any other (RenderEngine.begin()), so it owns the IterationBuffer and, with
+   RenderCache enabled, resumes from whatever tiles an earlier attempt finished. Every worker gets the job as text:
+   RenderJob.describe() of the fractal and view, plus every setting the counts depend on and timeoutSeconds (see
+   settings()). The coordinator reads that text back itself before it starts, so all of them render exactly the same
+   fractal, view and precision. Each worker then sets up its own engine for the job, and renders whichever tiles it's
+   sent on all its cores; the counts (and smooth values) stream back into the coordinator's buffer tile by tile.
+
+   Every worker is kept tilesPerThread tiles per thread ahead, so it never waits for the network. Tiles in flight on a
+   worker whose connection drops, or that sends nothing (not even a heartbeat) for timeoutSeconds, go back to the front
+   of the queue for the next free worker. A tile the worker itself reports as failed is retried too, but after
+   maxAttempts failures the whole render fails, since it's then the tile and not the worker. Results that arrive for a
+   render that's over (because it failed) are read and dropped. A worker that sends anything malformed, such as a tile
+   index outside the render or a result of the wrong size, is dropped like one whose connection broke.
+
+   Messages to a worker are queued and written by a thread of its own, so the coordinator's lock is never held across
+   a socket write, and a worker that stops reading can't hold up the others.
+
+   The protocol is a stream of messages over TCP, each one a type byte and its fields (DataOutputStream encoding):
+
+     worker -> coordinator
+       HELLO      int threads                        first message of a connection
+       RESULT     int job, int tile, int pixels, boolean smooth, the tile's counts row by row as ints, then its smooth
+                  values as floats if smooth is true
+       FAILED     int job, int tile, UTF message
+     coordinator -> worker
+       JOB        int job, int length, bytes         the job's properties, sent before its first tile
+       TILE       int job, int tile
+       DONE       int job                            every tile of the job is in, the worker can drop it
+     either way
+       HEARTBEAT                                     sent every timeoutSeconds / 4
+*/
+public class RenderCoordinator implements Closeable {
+  public static int port = 7057;
+  public static int timeoutSeconds = 60; // Silence after which a worker is taken for dead
+  public static int tilesPerThread = 2; // Tiles a worker gets ahead of what it's rendering, per thread
+  public static int maxAttempts = 3; // Failures of one tile before the render gives up
+
+  static final byte HELLO = 'H', HEARTBEAT = 'B', JOB = 'J', TILE = 'T', RESULT = 'R', FAILED = 'F', DONE = 'D';
+
+  private static final int PROGRESS_SECONDS = 10; // How often a render in progress reports on the workers
+
+  private final ServerSocket server;
+  private final List<Connection> connections = new ArrayList<>(); // Guarded by this
+  private Job job; // The render in progress, if any. Guarded by this.
+  private int jobs; // Renders started so far, which numbers them
+
+  // A render in progress. Guarded by the coordinator's lock, except for the fields that never change.
+  private static class Job {
+    final int id;
+    final byte[] definition; // The job's properties, as sent to the workers
+    final RenderEngine.Render render;
+    final ArrayDeque<Integer> pending = new ArrayDeque<>(); // Tiles nobody is rendering
+    final boolean[] finished;
+    final int[] attempts; // Failures of each tile
+    int remaining; // Tiles that aren't finished
+    String error; // Why the render failed, if it did
+
+    Job(int id, byte[] definition, RenderEngine.Render render) {
+      this.id = id;
+      this.definition = definition;
+      this.render = render;
+      this.finished = new boolean[render.tiles];
+      this.attempts = new int[render.tiles];
+    }
+  }
+
+  // A connected worker. Everything but the streams and the queue is guarded by the coordinator's lock; only its reader
+  // thread reads `in`, and only its writer thread writes `out`.
+  private static class Connection {
+    private static final byte[] STOP = new byte[0]; // Queued by close() to end the writer thread
+
+    final Socket socket;
+    final DataInputStream in;
+    final DataOutputStream out;
+    final LinkedBlockingQueue<byte[]> outgoing = new LinkedBlockingQueue<>(); // Encoded messages, see send()
+    final String name;
+    final Set<Integer> tiles = new HashSet<>(); // Tiles of the current job it's rendering
+    int threads; // 0 until it said hello
+    int job = -1; // The last job it was sent
+    long tilesDone;
+
+    Connection(Socket socket) throws IOException {
+      this.socket = socket;
+      this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      this.name = socket.getRemoteSocketAddress().toString();
+    }
+
+    void close() {
+      try {
+        socket.close();
+      } catch(IOException e) {
+        // Closing anyway
+      }
+      outgoing.add(STOP);
+    }
+  }
+
+  // Starts accepting workers on `port`
+  public RenderCoordinator(int port) throws IOException {
+    this.server = new ServerSocket(port);
+    Thread acceptor = new Thread(this::accept, "coordinator-accept");
+    acceptor.setDaemon(true);
+    acceptor.start();
+    Thread heartbeat = new Thread(this::heartbeat, "coordinator-heartbeat");
+    heartbeat.setDaemon(true);
+    heartbeat.start();
+    System.out.println("Coordinator: waiting for workers on port " + port + ".");
+  }
+
+  // Renders the view of the fractal on the connected workers (waiting for one if there are none yet) and returns the
+  // counts. Blocks until every tile is in. Throws IOException if a tile keeps failing.
+  public IterationBuffer render(FractalIterator fractal, RenderView view) throws IOException {
+    final Properties definition = RenderJob.describe(fractal, view);
+    definition.putAll(settings());
+    final RenderJob parsed = RenderJob.parse(definition, "distributed", null, 0, fractal.perturbation, ColorMapper.Mode.LINEAR, null);
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    definition.store(bytes, null);
+
+    final RenderEngine engine = new RenderEngine(parsed.fractal, Math.max(threads(), 1));
+    final RenderEngine.Render render = engine.begin(parsed.view, null, null);
+    final Job current;
+    synchronized(this) {
+      current = new Job(++jobs, bytes.toByteArray(), render);
+      for(int tile = 0; tile < render.tiles; tile++) {
+        if(render.isDone(tile)) {
+          current.finished[tile] = true;
+        } else {
+          current.pending.add(tile);
+          current.remaining++;
+        }
+      }
+      job = current;
+      dispatch();
+
+      long lastProgress = System.currentTimeMillis();
+      try {
+        while(current.remaining > 0 && current.error == null) {
+          wait(1000);
+          if(System.currentTimeMillis() - lastProgress >= PROGRESS_SECONDS * 1000L) {
+            System.out.println("Coordinator: " + (render.tiles - current.remaining) + " of " + render.tiles + " tiles done, "
+                + connections.size() + " workers (" + threads() + " threads).");
+            lastProgress = System.currentTimeMillis();
+          }
+        }
+      } catch(InterruptedException e) {
+        Thread.currentThread().interrupt();
+        current.error = "Interrupted.";
+      } finally {
+        job = null;
+        for(Connection connection : connections) {
+          connection.tiles.clear();
+          if(connection.job == current.id) {
+            send(connection, DONE, current.id, -1, null);
+          }
+        }
+      }
+    }
+
+    final IterationBuffer buffer = render.finish();
+    engine.shutdown();
+    if(current.error != null) {
+      throw new IOException(current.error);
+    }
+    return buffer;
+  }
+
+  // Stops accepting workers and disconnects the ones there are
+  @Override
+  public void close() throws IOException {
+    server.close();
+    synchronized(this) {
+      for(Connection connection : connections) {
+        connection.close();
+      }
+      connections.clear(); // So drop() doesn't report them as lost
+    }
+  }
+
+  // The settings every node of a render has to share: the ones the counts depend on, and the heartbeat timeout
+  public static Properties settings() {
+    final Properties settings = new Properties();
+    settings.setProperty("settings.maxIterations", Integer.toString(FractalIterator.maxIterations));
+    settings.setProperty("settings.maxPrecision", Integer.toString(FractalIterator.maxPrecision));
+    settings.setProperty("settings.escapeThreshold2", FractalIterator.escapeThreshold2.toString(true));
+    settings.setProperty("settings.interiorChecks", Boolean.toString(FractalIterator.interiorChecks));
+    settings.setProperty("settings.periodicityChecks", Boolean.toString(FractalIterator.periodicityChecks));
+    settings.setProperty("settings.guardBits", Integer.toString(PrecisionTier.guardBits));
+    settings.setProperty("settings.tileSize", Integer.toString(RenderEngine.tileSize));
+    settings.setProperty("settings.autoPrecisionTier", Boolean.toString(RenderEngine.autoPrecisionTier));
+    settings.setProperty("settings.adaptivePrecision", Boolean.toString(RenderEngine.adaptivePrecision));
+    settings.setProperty("settings.precisionMargin", Integer.toString(RenderEngine.precisionMargin));
+    settings.setProperty("settings.precisionStep", Integer.toString(RenderEngine.precisionStep));
+    settings.setProperty("settings.seriesApproximation", Boolean.toString(RenderEngine.seriesApproximation));
+    settings.setProperty("settings.boundaryTracing", Boolean.toString(RenderEngine.boundaryTracing));
+    settings.setProperty("settings.boundaryVerify", Boolean.toString(RenderEngine.boundaryVerify));
+    settings.setProperty("settings.smoothValues", Boolean.toString(RenderEngine.smoothValues));
+    settings.setProperty("settings.timeoutSeconds", Integer.toString(timeoutSeconds)); // Heartbeats have to agree too
+    return settings;
+  }
+
+  // Adopts the settings() of a coordinator
+  public static void applySettings(Properties settings) {
+    FractalIterator.maxIterations = Integer.parseInt(settings.getProperty("settings.maxIterations"));
+    FractalIterator.maxPrecision = Integer.parseInt(settings.getProperty("settings.maxPrecision"));
+    FractalIterator.escapeThreshold2 = new Apfloat(settings.getProperty("settings.escapeThreshold2"));
+    FractalIterator.interiorChecks = Boolean.parseBoolean(settings.getProperty("settings.interiorChecks"));
+    FractalIterator.periodicityChecks = Boolean.parseBoolean(settings.getProperty("settings.periodicityChecks"));
+    PrecisionTier.guardBits = Integer.parseInt(settings.getProperty("settings.guardBits"));
+    RenderEngine.tileSize = Integer.parseInt(settings.getProperty("settings.tileSize"));
+    RenderEngine.autoPrecisionTier = Boolean.parseBoolean(settings.getProperty("settings.autoPrecisionTier"));
+    RenderEngine.adaptivePrecision = Boolean.parseBoolean(settings.getProperty("settings.adaptivePrecision"));
+    RenderEngine.precisionMargin = Integer.parseInt(settings.getProperty("settings.precisionMargin"));
+    RenderEngine.precisionStep = Integer.parseInt(settings.getProperty("settings.precisionStep"));
+    RenderEngine.seriesApproximation = Boolean.parseBoolean(settings.getProperty("settings.seriesApproximation"));
+    RenderEngine.boundaryTracing = Boolean.parseBoolean(settings.getProperty("settings.boundaryTracing"));
+    RenderEngine.boundaryVerify = Boolean.parseBoolean(settings.getProperty("settings.boundaryVerify"));
+    RenderEngine.smoothValues = Boolean.parseBoolean(settings.getProperty("settings.smoothValues"));
+    timeoutSeconds = Integer.parseInt(settings.getProperty("settings.timeoutSeconds"));
+  }
+
+  private void accept() {
+    while(!server.isClosed()) {
+      final Connection connection;
+      try {
+        final Socket socket = server.accept();
+        socket.setSoTimeout(timeoutSeconds * 1000);
+        socket.setTcpNoDelay(true);
+        connection = new Connection(socket);
+      } catch(IOException e) {
+        if(!server.isClosed()) {
+          System.out.println("ERROR: Couldn't accept a worker. Details:\n" + e.getMessage());
+        }
+        continue;
+      }
+      synchronized(this) {
+        connections.add(connection);
+      }
+      new Thread(() -> read(connection), "coordinator-" + connection.name).start();
+      final Thread writer = new Thread(() -> write(connection), "coordinator-write-" + connection.name);
+      writer.setDaemon(true);
+      writer.start();
+    }
+  }
+
+  // Handles everything a worker sends until its connection drops
+  private void read(Connection connection) {
+    try {
+      while(true) {
+        final byte type = connection.in.readByte();
+        switch(type) {
+          case HELLO:
+            final int threads = connection.in.readInt();
+            synchronized(this) {
+              connection.threads = Math.max(threads, 1);
+              System.out.println("Coordinator: worker " + connection.name + " joined with " + threads + " threads.");
+              dispatch();
+            }
+            break;
+          case HEARTBEAT:
+            break;
+          case RESULT:
+            receive(connection);
+            break;
+          case FAILED:
+            failed(connection, connection.in.readInt(), connection.in.readInt(), connection.in.readUTF());
+            break;
+          default:
+            throw new IOException("Unknown message type " + type);
+        }
+      }
+    } catch(IOException e) {
+      drop(connection, e);
+    }
+  }
+
+  // Reads a RESULT and stores it in the buffer, unless the tile is finished already or belongs to another job
+  private void receive(Connection connection) throws IOException {
+    final int id = connection.in.readInt(), tile = connection.in.readInt(), pixels = connection.in.readInt();
+    final boolean smooth = connection.in.readBoolean();
+    final Job current;
+    synchronized(this) {
+      current = job != null && job.id == id ? job : null;
+    }
+    if(current != null && (tile < 0 || tile >= current.render.tiles)) {
+      throw new IOException("Result for tile " + tile + " of a render with " + current.render.tiles + " tiles");
+    }
+    if(current == null) { // A late result of a render that's over
+      connection.in.skipNBytes((long)pixels * (smooth ? 8 : 4));
+      synchronized(this) {
+        connection.tiles.remove(tile);
+      }
+      return;
+    }
+    final int[] bounds = current.render.tileBounds(tile);
+    final int width = bounds[2] - bounds[0];
+    if(pixels != width * (bounds[3] - bounds[1])) { // Not this render's tile; drop() gives it to another worker
+      throw new IOException("Result of " + pixels + " pixels for tile " + tile + ", which has "
+          + width * (bounds[3] - bounds[1]));
+    }
+
+    final int[] counts = new int[pixels];
+    for(int i = 0; i < pixels; i++) {
+      counts[i] = connection.in.readInt();
+    }
+    final float[] values = smooth ? new float[pixels] : null;
+    for(int i = 0; smooth && i < pixels; i++) {
+      values[i] = connection.in.readFloat();
+    }
+
+    synchronized(this) {
+      connection.tiles.remove(tile);
+      if(current.finished[tile] || current != job) { // The render failed in the meantime, or it's a duplicate
+        return;
+      }
+      final IterationBuffer buffer = current.render.buffer;
+      for(int y = bounds[1]; y < bounds[3]; y++) {
+        final int row = (y - bounds[1]) * width;
+        System.arraycopy(counts, row, buffer.counts, y * buffer.width + bounds[0], width);
+        if(values != null && buffer.smooth != null) {
+          System.arraycopy(values, row, buffer.smooth, y * buffer.width + bounds[0], width);
+        }
+      }
+      current.render.tileFinished(tile);
+      current.finished[tile] = true;
+      current.remaining--;
+      connection.tilesDone++;
+      dispatch();
+      notifyAll();
+    }
+  }
+
+  // A worker couldn't render a tile: give it to someone else, unless it has failed too often
+  private synchronized void failed(Connection connection, int id, int tile, String message) throws IOException {
+    connection.tiles.remove(tile);
+    if(job == null || job.id != id) {
+      return;
+    }
+    if(tile < 0 || tile >= job.render.tiles) {
+      throw new IOException("Failure of tile " + tile + " of a render with " + job.render.tiles + " tiles");
+    }
+    if(job.finished[tile]) {
+      return;
+    }
+    System.out.println("ERROR: Worker " + connection.name + " failed on tile " + tile + ". Details:\n" + message);
+    if(++job.attempts[tile] >= maxAttempts) {
+      job.error = "Tile " + tile + " failed " + job.attempts[tile] + " times. Last error: " + message;
+      notifyAll();
+      return;
+    }
+    job.pending.addFirst(tile);
+    dispatch();
+  }
+
+  // Forgets a worker whose connection dropped, and hands its tiles to the others
+  private void drop(Connection connection, IOException e) {
+    connection.close();
+    synchronized(this) {
+      if(!connections.remove(connection)) {
+        return;
+      }
+      int reassigned = 0;
+      if(job != null) {
+        for(int tile : connection.tiles) {
+          if(!job.finished[tile] && !job.pending.contains(tile)) {
+            job.pending.addFirst(tile);
+            reassigned++;
+          }
+        }
+      }
+      connection.tiles.clear();
+      System.out.println("Coordinator: lost worker " + connection.name + " after " + connection.tilesDone + " tiles ("
+          + (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()) + ")" + (reassigned > 0 ? ", reassigning " + reassigned + " tiles." : "."));
+      dispatch();
+      notifyAll();
+    }
+  }
+
+  // Hands out pending tiles until every worker has tilesPerThread per thread. Caller holds the lock.
+  private void dispatch() {
+    if(job == null) {
+      return;
+    }
+    for(Connection connection : connections) {
+      while(connection.threads > 0 && !connection.socket.isClosed() && !job.pending.isEmpty()
+          && connection.tiles.size() < connection.threads * Math.max(tilesPerThread, 1)) {
+        final int tile = job.pending.poll();
+        connection.tiles.add(tile); // The tile goes back to the queue if the connection drops before it's done
+        if(connection.job != job.id) {
+          connection.job = job.id;
+          send(connection, JOB, job.id, -1, job.definition);
+        }
+        send(connection, TILE, job.id, tile, null);
+      }
+    }
+  }
+
+  // Queues one message for the worker's writer thread; definition is the job's, for JOB. Never blocks.
+  private static void send(Connection connection, byte type, int id, int tile, byte[] definition) {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream message = new DataOutputStream(bytes);
+    try {
+      message.writeByte(type);
+      if(type != HEARTBEAT) {
+        message.writeInt(id);
+      }
+      if(type == JOB) {
+        message.writeInt(definition.length);
+        message.write(definition);
+      } else if(type == TILE) {
+        message.writeInt(tile);
+      }
+    } catch(IOException e) { // A ByteArrayOutputStream doesn't throw
+      throw new UncheckedIOException(e);
+    }
+    connection.outgoing.add(bytes.toByteArray());
+  }
+
+  // Writes the messages queued for a worker until its connection closes. A write that fails closes the connection, and
+  // its reader then drops it.
+  private void write(Connection connection) {
+    try {
+      while(true) {
+        final byte[] message = connection.outgoing.take();
+        if(message == Connection.STOP) {
+          return;
+        }
+        connection.out.write(message);
+        if(connection.outgoing.isEmpty()) { // Flush once per burst, e.g. after a JOB and all its first TILEs
+          connection.out.flush();
+        }
+      }
+    } catch(IOException e) {
+      connection.close();
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void heartbeat() {
+    while(!server.isClosed()) {
+      try {
+        Thread.sleep(Math.max(timeoutSeconds / 4, 1) * 1000L);
+      } catch(InterruptedException e) {
+        return;
+      }
+      final List<Connection> snapshot;
+      synchronized(this) {
+        snapshot = new ArrayList<>(connections);
+      }
+      for(Connection connection : snapshot) {
+        send(connection, HEARTBEAT, 0, -1, null);
+      }
+    }
+  }
+
+  // Threads of every worker that said hello
+  private synchronized int threads() {
+    int threads = 0;
+    for(Connection connection : connections) {
+      threads += connection.threads;
+    }
+    return threads;
+  }
+}
@@ -0,0 +1,590 @@
+/*** RenderEngine.java ********************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Renders a view on all available cores by splitting the     *
+ *                 image into tiles and iterating them on a work-stealing     *
+ *                 thread pool.                                               *
+\******************************************************************************/
+
+import org.apfloat.Apcomplex;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/* The image is cut into square tiles (the ones on the right and bottom edges may be smaller). A ForkJoinPool with one
+   platform thread per core recursively splits the list of tiles in half until each task is a single tile; idle workers
+   steal the other halves, so a tile full of expensive interior points doesn't leave the other cores waiting.
+
+   FractalIterators (and the Slots inside them) hold mutable PairCoefficient state while they iterate, so they can't be
+   shared between threads. Each worker thread lazily takes its own copy of the prototype iterator the first time it
+   renders a tile and keeps it for the rest of the engine's life. Tiles never overlap, so workers write their counts
+   (and smooth values) straight into a shared IterationBuffer; coloring them is up to ColorMapper.
+
+   begin() settles everything that's the same for every tile: the PrecisionTier and the digits the view needs, the
+   reference orbit and series approximation of a perturbation render, and the kernel KernelSelector picks. Each tile
+   then goes to that kernel, or through BoundaryTracer with boundaryTracing on. On the way, tiles are read from and
+   written to the RenderCache, wait for the ThermalGovernor if one is set, and are counted in RenderMetrics.
+
+   render() runs a whole render on the engine's own pool, which is only started when it's first needed; with a
+   RenderListener it renders progressively (see renderProgressive()), and with a seed buffer it only iterates the
+   pixels that aren't known yet (see ZoomSequence). A render can also be driven from outside: the Render that begin()
+   returns takes its tiles one at a time from any threads, in any order, or written into its buffer from elsewhere
+   before tileFinished() is called on them, until finish() (see RenderQueue and RenderCoordinator).
+*/
+public class RenderEngine {
+  public static int tileSize = 32; // Edge length of a tile in pixels
+  public static boolean seriesApproximation = true; // Skip the first iterations of perturbation renders with a series
+  public static boolean autoPrecisionTier = true; // Pick the precision tier from each view instead of the iterator's `fast` flag
+  public static boolean adaptivePrecision = true; // Size Apcomplex numbers to each view instead of always using maxPrecision
+  public static int precisionMargin = 10; // Digits added on top of what a view strictly needs
+  public static int precisionStep = 8; // Adaptive precision is rounded up to a multiple of this, so similar views share it
+  public static boolean vectorKernel = true; // Use SIMD for the double precision Mandelbrot path when it's available
+  public static boolean boundaryTracing = false; // Fill in rectangles with uniform borders instead of iterating them
+  public static boolean boundaryVerify = true; // Iterate the center of each such rectangle before filling it
+  public static int progressiveStep = 8; // Grid spacing of the first pass of progressive renders; a power of two
+  public static boolean smoothValues = true; // Keep a smooth iteration value per pixel next to its count
+  public static ThermalGovernor governor; // Limits how many workers iterate at once, if set
+
+  // Was the Vector API module loaded? VectorMandelbrotKernel can't even be loaded without it.
+  public static final boolean VECTOR_API = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+  // Counts the bytes each thread allocates; null if the JVM can't
+  private static final com.sun.management.ThreadMXBean ALLOCATIONS = allocationCounter();
+
+  private ForkJoinPool pool; // Started by the first render() that needs it
+  private final FractalIterator prototype;
+  private final ThreadLocal<FractalIterator> workerIterator;
+  private final int threads;
+
+  // Settings of the render in progress, copied into each worker's iterator before it starts a tile
+  private volatile PrecisionTier tier;
+  private volatile boolean fast;
+  private volatile boolean perturbation; // Does this render use a reference orbit?
+  private volatile long precision; // Digits of the Apcomplex numbers in this render
+  private volatile ReferenceOrbit reference; // Reference orbit of the render in progress, if any
+  private volatile SeriesApproximation series; // Series approximation of the render in progress, if any
+  private volatile KernelSelector.Kernel kernel; // What every worker calls on its tiles in the render in progress
+  private volatile RenderCache cache; // On-disk copy of the render in progress, if it's cached
+  private volatile BitSet known; // Pixels of the render in progress whose counts were given, if any
+  private ReferenceOrbit sharedReference; // Reference orbit every perturbation render on its center uses, if any
+  private long sharedPrecision; // Digits sharedReference was computed with
+  private final LongAdder rebases = new LongAdder();
+  private final LongAdder interiorPixels = new LongAdder(), periodicPixels = new LongAdder(); // Points resolved by shortcuts
+  private final LongAdder filledPixels = new LongAdder(), rejectedFills = new LongAdder(); // Boundary tracing statistics
+  private final LongAdder allocatedBytes = new LongAdder(); // Bytes the workers allocated while rendering tiles
+
+  public RenderEngine(FractalIterator prototype, int threads) {
+    this.prototype = prototype;
+    this.workerIterator = ThreadLocal.withInitial(prototype::copy);
+    this.threads = threads;
+  }
+
+  // Renders every pixel of the view and returns their iteration counts. Blocks until the whole image is done.
+  public IterationBuffer render(RenderView view) {
+    return render(view, null);
+  }
+
+  // Same as render(view), but if listener isn't null the image is rendered progressively and the listener is shown the
+  // buffer after every pass
+  public IterationBuffer render(RenderView view, RenderListener listener) {
+    return render(view, listener, null, null);
+  }
+
+  // Same as render(view), but the pixels set in `known` already have their counts in `seed` (which must come from
+  // newBuffer(view)) and aren't iterated again. The rest of the pixels are rendered into seed, which is returned. Such
+  // renders aren't cached, since their counts depend on where the known ones came from.
+  public IterationBuffer render(RenderView view, IterationBuffer seed, BitSet known) {
+    if(seed.width != view.width || seed.height != view.height) {
+      throw new IllegalArgumentException("\nERROR: Seed buffer is " + seed.width + "x" + seed.height + " but the view is "
+          + view.width + "x" + view.height);
+    }
+    return render(view, null, seed, known);
+  }
+
+  private IterationBuffer render(RenderView view, RenderListener listener, IterationBuffer seed, BitSet known) {
+    final Render render = begin(view, seed, known);
+    if(render.fromCache) {
+      if(listener != null) {
+        listener.passComplete(render.buffer, 1, render.view.pixelCount());
+      }
+    } else if(listener != null && progressiveStep > 1) {
+      renderProgressive(render, listener);
+      if(cache != null) { // Passes don't finish tiles one at a time, so the cache only gets the finished image
+        cache.storeAll(render.buffer);
+      }
+    } else {
+      pool().invoke(new TileRangeTask(render, 0, render.tiles, 1, true));
+    }
+    return render.finish();
+  }
+
+  // Sets up a render of the view (see render(view, seed, known); seed and known may both be null) without rendering any
+  // of its tiles. Whoever calls this must then call renderTile() on every tile of the returned Render, from any threads,
+  // and finish() once they're all done. An engine only runs one render at a time.
+  public Render begin(RenderView view, IterationBuffer seed, BitSet known) {
+    if(adaptivePrecision) {
+      view = view.withPrecision(workingPrecision(view));
+    }
+    precision = view.precision;
+    System.out.println("Working precision: " + precision + " digits (at most " + FractalIterator.maxPrecision + ").");
+
+    final IterationBuffer buffer = seed != null ? seed : newBuffer(view);
+    this.known = known;
+    final int tilesX = (view.width + tileSize - 1) / tileSize;
+    final int tilesY = (view.height + tileSize - 1) / tileSize;
+
+    if(autoPrecisionTier) {
+      tier = PrecisionTier.forView(view);
+      fast = tier == PrecisionTier.DOUBLE;
+    } else {
+      tier = prototype.tier;
+      fast = prototype.fast;
+    }
+    perturbation = prototype.isMandelbrot() && prototype.perturbation && !fast;
+    kernel = KernelSelector.select(prototype, tier, fast, perturbation, useVectorKernel());
+    System.out.println("Precision tier: " + tier + " (" + PrecisionTier.bitsNeeded(view) + " bits needed)"
+        + (perturbation ? ", using perturbation" : ""));
+    System.out.println("Kernel: " + kernel + " - " + kernel.description());
+    RenderMetrics.renderStarted(precision, tier, kernel);
+
+    final int tiles = tilesX * tilesY;
+    cache = known == null ? RenderCache.open(cacheKey(view), buffer, tileSize, tiles) : null;
+    if(cache != null) {
+      final int cached = cache.load(buffer);
+      if(cached == tiles) {
+        System.out.println("Render cache: all " + tiles + " tiles cached, nothing to render.");
+        return new Render(view, buffer, tilesX, tiles, known, true);
+      } else if(cached > 0) {
+        System.out.println("Render cache: resuming with " + cached + " of " + tiles + " tiles already done.");
+      }
+    }
+
+    interiorPixels.reset();
+    periodicPixels.reset();
+    filledPixels.reset();
+    rejectedFills.reset();
+    allocatedBytes.reset();
+    final Render render = new Render(view, buffer, tilesX, tiles, known, false);
+    if(perturbation) {
+      rebases.reset();
+      if(sharesReference(view)) {
+        reference = sharedReference;
+        System.out.println("Using the shared reference orbit (" + reference.length + " iterations).");
+      } else {
+        reference = new ReferenceOrbit(view.center(), view.precision);
+        System.out.println("Reference orbit computed in " + ((System.nanoTime() - render.start) / 1_000_000) + " ms ("
+            + reference.length + " iterations).");
+      }
+
+      series = seriesApproximation ? SeriesApproximation.compute(reference, view) : null;
+      if(series != null) {
+        System.out.println("Series approximation skips " + series.skipped + " of " + FractalIterator.maxIterations
+            + " iterations per pixel (" + ((long)series.skipped * view.pixelCount()) + " iterations in total).");
+      }
+    }
+    return render;
+  }
+
+  // Digits the Apcomplex numbers of a render of the view get with adaptive precision: what the view needs plus
+  // precisionMargin, rounded up to a multiple of precisionStep and capped at maxPrecision and the view's own precision.
+  // Apfloat's multiplication cost grows faster than linearly with the digits, so a shallow render on 30 digits is much
+  // faster than the same render on 1408.
+  public static long workingPrecision(RenderView view) {
+    final long step = Math.max(precisionStep, 1);
+    final long digits = (PrecisionTier.digitsNeeded(view) + precisionMargin + step - 1) / step * step;
+    return Math.min(digits, Math.min(view.precision, FractalIterator.maxPrecision));
+  }
+
+  // An empty buffer of the kind render() fills for the view
+  public IterationBuffer newBuffer(RenderView view) {
+    return new IterationBuffer(view.width, view.height, smoothValues ? Math.max(prototype.multibrotDegree(), 2) : 0);
+  }
+
+  // Makes every following perturbation render whose view is centered on `center` (to well within a pixel) and needs at
+  // most `precision` digits use one reference orbit, computed here, instead of its own. Does nothing if the prototype
+  // never uses perturbation; a null center stops sharing.
+  public void shareReference(Apcomplex center, long precision) {
+    sharedReference = null;
+    if(center == null || !prototype.isMandelbrot() || !prototype.perturbation) {
+      return;
+    }
+    final long start = System.nanoTime();
+    sharedReference = new ReferenceOrbit(center, precision);
+    sharedPrecision = precision;
+    System.out.println("Shared reference orbit computed in " + ((System.nanoTime() - start) / 1_000_000) + " ms ("
+        + sharedReference.length + " iterations, " + precision + " digits).");
+  }
+
+  // Can a render of the view use the shared reference orbit?
+  private boolean sharesReference(RenderView view) {
+    if(sharedReference == null || view.precision > sharedPrecision) {
+      return false;
+    }
+    final Apcomplex offset = view.center().subtract(sharedReference.center);
+    return Math.max(ScaledDouble.exponent(offset.real()), ScaledDouble.exponent(offset.imag())) < view.deltaExponent - 20
+        || (offset.real().signum() == 0 && offset.imag().signum() == 0);
+  }
+
+  // Everything the counts of a render depend on, for RenderCache. Settings that only change how fast the counts are
+  // computed (threads, vectorKernel, adaptive precision as such) are left out.
+  private String cacheKey(RenderView view) {
+    return prototype.definition()
+        + " view=" + view.xmin + "," + view.xmax + "," + view.ymin + "," + view.ymax + " " + view.width + "x" + view.height
+        + " precision=" + view.precision + " maxIterations=" + FractalIterator.maxIterations
+        + " escapeThreshold2=" + FractalIterator.escapeThreshold2 + " tier=" + tier + " perturbation=" + perturbation
+        + " series=" + (perturbation && seriesApproximation) + " interiorChecks=" + FractalIterator.interiorChecks
+        + " periodicityChecks=" + FractalIterator.periodicityChecks + " boundaryTracing=" + boundaryTracing
+        + " boundaryVerify=" + boundaryVerify + " smooth=" + (smoothValues ? Math.max(prototype.multibrotDegree(), 2) : 0)
+        + " tileSize=" + tileSize;
+  }
+
+  // Runs one pass per grid spacing from progressiveStep down to 1. Each pass only iterates the pixels on its grid that
+  // the coarser passes haven't, so every pixel is still iterated exactly once. Between passes, the pixels that haven't
+  // been iterated yet are filled with the count of the grid pixel above and to the left of them; the next passes
+  // overwrite them. Every pass still waits for its slowest tile, and the passes never use boundary tracing, so the
+  // whole render takes longer than a normal one.
+  private void renderProgressive(Render render, RenderListener listener) {
+    final RenderView view = render.view;
+    for(int step = Integer.highestOneBit(progressiveStep); step >= 1; step >>= 1) {
+      final long passStart = System.nanoTime();
+      pool().invoke(new TileRangeTask(render, 0, render.tiles, step, step == Integer.highestOneBit(progressiveStep)));
+      if(step > 1) {
+        fillBlocks(render.buffer, step);
+      }
+
+      final long pixelsDone = (long)((view.width + step - 1) / step) * ((view.height + step - 1) / step);
+      System.out.println("Pass with 1 pixel in " + (step * step) + " done in " + ((System.nanoTime() - passStart) / 1_000_000)
+          + " ms (" + pixelsDone + " of " + view.pixelCount() + " pixels).");
+      listener.passComplete(render.buffer, step, pixelsDone);
+    }
+  }
+
+  // Gives every pixel the count (and smooth value) of the pixel at the top left corner of its step x step block
+  private static void fillBlocks(IterationBuffer buffer, int step) {
+    final int[] counts = buffer.counts;
+    final float[] smooth = buffer.smooth;
+    for(int y = 0; y < buffer.height; y++) {
+      final int source = (y - y % step) * buffer.width;
+      final int row = y * buffer.width;
+      for(int x = 0; x < buffer.width; x++) {
+        counts[row + x] = counts[source + x - x % step];
+        if(smooth != null) {
+          smooth[row + x] = smooth[source + x - x % step];
+        }
+      }
+    }
+  }
+
+  private static com.sun.management.ThreadMXBean allocationCounter() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if(threads instanceof com.sun.management.ThreadMXBean counter && counter.isThreadAllocatedMemorySupported()) {
+      counter.setThreadAllocatedMemoryEnabled(true);
+      return counter;
+    }
+    return null;
+  }
+
+  // Collections so far, summed over all collectors
+  private static long gcCount() {
+    long count = 0;
+    for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      count += Math.max(gc.getCollectionCount(), 0); // -1 if a collector doesn't say
+    }
+    return count;
+  }
+
+  // Milliseconds spent collecting so far, summed over all collectors
+  private static long gcTime() {
+    long time = 0;
+    for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      time += Math.max(gc.getCollectionTime(), 0);
+    }
+    return time;
+  }
+
+  private static boolean useVectorKernel() {
+    return vectorKernel && VECTOR_API;
+  }
+
+  private synchronized ForkJoinPool pool() {
+    if(pool == null) {
+      pool = new ForkJoinPool(threads);
+    }
+    return pool;
+  }
+
+  // Stops the worker threads. The engine can't be used afterwards.
+  public synchronized void shutdown() {
+    if(pool != null) {
+      pool.shutdown();
+    }
+  }
+
+  // Iterates the pixels of one tile that belong to a pass with the calling worker's own iterator: the pixels whose
+  // coordinates are both multiples of step, except (unless it's the first pass) the ones of the previous pass, whose
+  // coordinates are both multiples of 2 * step. A first pass with step 1 is every pixel of the tile.
+  private void renderTile(RenderView view, IterationBuffer buffer, int x0, int y0, int x1, int y1, int step, boolean first) {
+    final ThermalGovernor governor = RenderEngine.governor;
+    final RenderMetrics.Worker metrics = RenderMetrics.worker();
+    final long pixels = (long)((x1 - x0 + step - 1) / step) * ((y1 - y0 + step - 1) / step); // Roughly, for passes
+    if(governor != null) {
+      governor.enter();
+    }
+    final long start = metrics != null ? System.nanoTime() : 0;
+    try {
+      if(metrics != null) {
+        metrics.tileStarted(x0, y0, kernel);
+      }
+      iterateTile(view, buffer, x0, y0, x1, y1, step, first, metrics);
+    } finally {
+      if(governor != null) {
+        governor.exit(pixels);
+      }
+    }
+    if(metrics != null) {
+      metrics.tileFinished(System.nanoTime() - start);
+    }
+  }
+
+  // Counts the pixels of a tile that renderTile() iterates in a pass, and the iterations they took, in the metrics
+  private static void countIterated(RenderMetrics.Worker metrics, IterationBuffer buffer, int x0, int y0, int x1, int y1,
+                                    int step, boolean first) {
+    long pixels = 0, sum = 0;
+    for(int y = nextOnGrid(y0, step, 0); y < y1; y += step) {
+      final boolean half = !first && y % (2 * step) == 0; // Every other pixel of this row was in the previous pass
+      final int row = y * buffer.width;
+      for(int x = half ? nextOnGrid(x0, 2 * step, step) : nextOnGrid(x0, step, 0); x < x1; x += half ? 2 * step : step) {
+        sum += buffer.counts[row + x];
+        pixels++;
+      }
+    }
+    metrics.iterated(pixels, sum);
+  }
+
+  // renderTile() without the governor. metrics is the calling worker's, or null.
+  private void iterateTile(RenderView view, IterationBuffer buffer, int x0, int y0, int x1, int y1, int step, boolean first,
+                           RenderMetrics.Worker metrics) {
+    final FractalIterator iterator = workerIterator.get();
+    iterator.tier = tier;
+    iterator.fast = fast;
+    if(iterator.precision != precision) {
+      iterator.setPrecision(precision);
+    }
+    if(perturbation) {
+      iterator.reference = reference;
+      iterator.series = series;
+    }
+    final long rebasesBefore = iterator.rebases;
+    final long interiorBefore = iterator.interiorPixels, periodicBefore = iterator.periodicPixels;
+    final long allocatedBefore = ALLOCATIONS != null ? ALLOCATIONS.getCurrentThreadAllocatedBytes() : 0;
+
+    if(step > 1 || !first) {
+      for(int y = nextOnGrid(y0, step, 0); y < y1; y += step) {
+        if(!first && y % (2 * step) == 0) { // Every other pixel of this row was in the previous pass
+          kernel.renderRow(iterator, view, buffer, y, nextOnGrid(x0, 2 * step, step), x1, 2 * step);
+        } else {
+          kernel.renderRow(iterator, view, buffer, y, nextOnGrid(x0, step, 0), x1, step);
+        }
+      }
+      if(metrics != null) {
+        countIterated(metrics, buffer, x0, y0, x1, y1, step, first);
+      }
+    } else if(known != null) {
+      renderUnknown(iterator, view, buffer, x0, y0, x1, y1, metrics);
+    } else if(boundaryTracing) {
+      BoundaryTracer tracer = new BoundaryTracer(kernel, iterator, view, buffer, boundaryVerify);
+      tracer.renderTile(x0, y0, x1, y1);
+      filledPixels.add(tracer.filledPixels);
+      rejectedFills.add(tracer.rejectedFills);
+      if(metrics != null) {
+        metrics.iterated(tracer.iteratedPixels, tracer.iterations);
+      }
+    } else {
+      kernel.renderTile(iterator, view, buffer, x0, y0, x1, y1);
+      if(metrics != null) {
+        countIterated(metrics, buffer, x0, y0, x1, y1, 1, true);
+      }
+    }
+    final long interior = iterator.interiorPixels - interiorBefore;
+    if(metrics != null && interior > 0) { // Counted above with maxIterations, but the cardioid/bulb test took none
+      metrics.iterated(-interior, -interior * buffer.maxIterations);
+    }
+
+    rebases.add(iterator.rebases - rebasesBefore);
+    interiorPixels.add(interior);
+    periodicPixels.add(iterator.periodicPixels - periodicBefore);
+    if(ALLOCATIONS != null) {
+      allocatedBytes.add(ALLOCATIONS.getCurrentThreadAllocatedBytes() - allocatedBefore);
+    }
+  }
+
+  // Iterates the pixels of the tile [x0, x1) x [y0, y1) that aren't in `known`, a run of neighbouring ones at a time,
+  // and counts them in metrics unless it's null
+  private void renderUnknown(FractalIterator iterator, RenderView view, IterationBuffer buffer, int x0, int y0, int x1, int y1,
+                             RenderMetrics.Worker metrics) {
+    for(int y = y0; y < y1; y++) {
+      final int row = y * view.width;
+      int x = x0;
+      while(x < x1) {
+        final int from = known.nextClearBit(row + x) - row;
+        if(from >= x1) {
+          break;
+        }
+        final int next = known.nextSetBit(row + from); // -1 if there's no known pixel left at all
+        final int to = next < 0 ? x1 : Math.min(next - row, x1);
+        kernel.renderRow(iterator, view, buffer, y, from, to, 1);
+        if(metrics != null) {
+          long sum = 0;
+          for(int i = row + from; i < row + to; i++) {
+            sum += buffer.counts[i];
+          }
+          metrics.iterated(to - from, sum);
+        }
+        x = to;
+      }
+    }
+  }
+
+  // The smallest x >= from with x % step == offset
+  private static int nextOnGrid(int from, int step, int offset) {
+    return from + Math.floorMod(offset - from, step);
+  }
+
+  // Renders one pass over tiles [from, to) by splitting the range in half until only one tile is left
+  private class TileRangeTask extends RecursiveAction {
+    private final Render render;
+    private final int from, to;
+    private final int step; // Grid spacing of the pass
+    private final boolean first; // Is this the first pass, i.e. there aren't any pixels from a coarser one yet?
+
+    TileRangeTask(Render render, int from, int to, int step, boolean first) {
+      this.render = render;
+      this.from = from;
+      this.to = to;
+      this.step = step;
+      this.first = first;
+    }
+
+    @Override
+    protected void compute() {
+      if(to - from > 1) {
+        int mid = (from + to) >>> 1;
+        invokeAll(new TileRangeTask(render, from, mid, step, first), new TileRangeTask(render, mid, to, step, first));
+        return;
+      }
+      render.renderTile(from, step, first);
+    }
+  }
+
+  // A render set up by begin(). Its tiles are numbered row by row from 0 to tiles - 1.
+  public class Render {
+    public final RenderView view; // The view as it's rendered, i.e. with its working precision
+    public final IterationBuffer buffer;
+    public final int tiles;
+    public final boolean fromCache; // Was every tile in the render cache already? Then there's nothing left to render.
+    private final int tilesX;
+    private final BitSet known;
+    private final long start = System.nanoTime();
+    private final long collectionsBefore = gcCount(), gcTimeBefore = gcTime();
+    private final LongAdder tilesDone = new LongAdder();
+
+    private Render(RenderView view, IterationBuffer buffer, int tilesX, int tiles, BitSet known, boolean fromCache) {
+      this.view = view;
+      this.buffer = buffer;
+      this.tilesX = tilesX;
+      this.tiles = tiles;
+      this.known = known;
+      this.fromCache = fromCache;
+    }
+
+    // Renders every pixel of one tile with the calling thread's own iterator
+    public void renderTile(int tile) {
+      renderTile(tile, 1, true);
+    }
+
+    // Renders the pixels of one tile that belong to a pass (see RenderEngine.renderTile())
+    private void renderTile(int tile, int step, boolean first) {
+      final boolean whole = step == 1 && first; // A normal render, which finishes tiles one at a time
+      if(fromCache || (whole && cache != null && cache.isDone(tile))) { // Loaded from the cache already
+        tilesDone.increment();
+        return;
+      }
+
+      final int[] bounds = tileBounds(tile);
+      RenderEngine.this.renderTile(view, buffer, bounds[0], bounds[1], bounds[2], bounds[3], step, first);
+      if(whole && cache != null) {
+        cache.storeTile(tile, buffer, bounds[0], bounds[1], bounds[2], bounds[3]);
+      }
+      if(whole) {
+        tilesDone.increment();
+      }
+    }
+
+    // The pixels of a tile, as {x0, y0, x1, y1} for [x0, x1) x [y0, y1)
+    public int[] tileBounds(int tile) {
+      final int x0 = (tile % tilesX) * tileSize;
+      final int y0 = (tile / tilesX) * tileSize;
+      return new int[] {x0, y0, Math.min(x0 + tileSize, view.width), Math.min(y0 + tileSize, view.height)};
+    }
+
+    // Was the tile done before the render started, i.e. loaded from the cache?
+    public boolean isDone(int tile) {
+      return fromCache || (cache != null && cache.isDone(tile));
+    }
+
+    // Counts a tile whose pixels were written into the buffer by someone else as finished, and caches it
+    public void tileFinished(int tile) {
+      if(cache != null) {
+        final int[] bounds = tileBounds(tile);
+        cache.storeTile(tile, buffer, bounds[0], bounds[1], bounds[2], bounds[3]);
+      }
+      tilesDone.increment();
+    }
+
+    // Tiles finished so far, counting the ones that came from the cache. Progressive passes don't count.
+    public long tilesDone() {
+      return tilesDone.sum();
+    }
+
+    // Closes the render's cache file, reports its statistics and returns the finished buffer
+    public IterationBuffer finish() {
+      if(cache != null) {
+        cache.close();
+        cache = null;
+      }
+      RenderEngine.this.known = null;
+      if(fromCache) {
+        return buffer;
+      }
+      long elapsed = System.nanoTime() - start;
+
+      // Allocations and GC time are where allocation-heavy arithmetic like Apcomplex shows its cost on a small heap
+      System.out.println("Rendered " + view.width + "x" + view.height + " (" + tiles + " tiles) on " + threads
+          + " threads in " + (elapsed / 1_000_000) + " ms ("
+          + Math.round(view.pixelCount() / (elapsed / 1e9)) + " px/s).");
+      System.out.println((ALLOCATIONS != null ? "Workers allocated " + (allocatedBytes.sum() >> 20) + " MB ("
+          + Math.round((allocatedBytes.sum() >> 20) / (elapsed / 1e9)) + " MB/s), " : "") + "GC: "
+          + (gcCount() - collectionsBefore) + " collections, " + (gcTime() - gcTimeBefore) + " ms.");
+      if(perturbation) {
+        System.out.println("Perturbation rebases: " + rebases.sum());
+      } else if(prototype.multibrotDegree() != 0 && (FractalIterator.interiorChecks || FractalIterator.periodicityChecks)) {
+        System.out.println("Interior shortcuts: " + interiorPixels.sum() + " pixels by cardioid/bulb test, "
+            + periodicPixels.sum() + " by periodicity detection.");
+      }
+      if(known != null) {
+        System.out.println("Carried over " + known.cardinality() + " of " + view.pixelCount() + " pixels without iterating them.");
+      }
+      if(boundaryTracing && known == null) {
+        System.out.println("Boundary tracing: " + filledPixels.sum() + " of " + view.pixelCount() + " pixels filled in"
+            + (boundaryVerify ? ", " + rejectedFills.sum() + " fills rejected by verification." : "."));
+      }
+      return buffer;
+    }
+  }
+}
@@ -0,0 +1,252 @@
+/*** RenderJob.java ***********************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Describes one render submitted to the RenderQueue, as      *
+ *                 read from a properties file in the spool directory.        *
+\******************************************************************************/
+
+import org.apfloat.Apcomplex;
+import org.apfloat.Apfloat;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+
+/* A job file is a properties file. Only the view is required:
+
+     centerReal=-0.75         center of the view
+     centerImag=0
+     scale=2.5                height of the view in the complex plane
+     width=1024               size in pixels (defaults: 1024x768)
+     height=768
+     precision=1408           most digits the render may use (default: fv.defaults.maxPrecision)
+     priority=0               higher priorities are rendered first and preempt lower ones (default: 0)
+     perturbation=true        (default: fv.defaults.perturbation)
+     fast=true                iterate the Mandelbrot Set in doubles; only matters with autoPrecisionTier off (default: true)
+     color.mode=smooth        as fv.color.mode, fv.color.palette and fv.color.interior (defaults: the same)
+     color.palette=ultra
+     color.interior=000000
+
+   The fractal defaults to the Mandelbrot Set. Any other one is given slot by slot, in the terms of the general fractal
+   equation (Mockups/fractal_eqn.png). Complex numbers are written like Apcomplex does, without spaces: 2, (0.5,-1)
+   They get the job's precision, like the view.
+
+     s1=pow                   function of slot 1; slots without a function are empty
+     s1.B=1                   B, A, t, p and q of slot 1 (default: 1 each)
+     s1.p=2
+     s1.params=3              further function parameters, separated by spaces
+     s1.z=t                   variables of slot 1 that are z instead of a constant: any of B A t p q and the indices
+                              0, 1, ... of the further parameters, separated by spaces
+     J=1                      J and K (default: 1 each)
+     K=1
+     z=                       which of J and K are z, separated by spaces
+
+   Instead of its center and scale, a view can also be given by its bounds, xmin, xmax, ymin and ymax, which is how
+   describe() writes it: that way a view with pixels that aren't quite square comes back exactly as it was.
+*/
+public class RenderJob {
+  private static final String[] VARIABLES = {"B", "A", "t", "p", "q"}; // Order of Slot's zPositions
+
+  public final String name; // File name without ".properties"
+  public final File file;
+  public final int priority;
+  public final long sequence; // Order of submission, which breaks ties between equal priorities
+  public final FractalIterator fractal;
+  public final RenderView view;
+  public final ColorMapper.Mode colorMode;
+  public final Palette palette;
+
+  private RenderJob(String name, File file, int priority, long sequence, FractalIterator fractal, RenderView view,
+                    ColorMapper.Mode colorMode, Palette palette) {
+    this.name = name;
+    this.file = file;
+    this.priority = priority;
+    this.sequence = sequence;
+    this.fractal = fractal;
+    this.view = view;
+    this.colorMode = colorMode;
+    this.palette = palette;
+  }
+
+  // Reads a job file. Settings it leaves out get the given defaults. Throws IllegalArgumentException if the file
+  // doesn't describe a valid render.
+  public static RenderJob read(File file, long sequence, boolean perturbation, ColorMapper.Mode colorMode, Palette palette)
+      throws IOException {
+    Properties job = new Properties();
+    try (InputStream in = new FileInputStream(file)) {
+      job.load(in);
+    }
+    return parse(job, file.getName().substring(0, file.getName().length() - ".properties".length()), file, sequence,
+        perturbation, colorMode, palette);
+  }
+
+  // Same as read(), for a job that's already loaded. file may be null if it didn't come from one.
+  public static RenderJob parse(Properties job, String name, File file, long sequence, boolean perturbation,
+                                ColorMapper.Mode colorMode, Palette palette) {
+    try {
+      final long precision = Long.parseLong(job.getProperty("precision", Long.toString(FractalIterator.maxPrecision)).trim());
+      if(precision < 1) {
+        throw new IllegalArgumentException("\nERROR: precision must be positive. Got: " + precision);
+      }
+      final int width = Integer.parseInt(job.getProperty("width", "1024").trim());
+      final int height = Integer.parseInt(job.getProperty("height", "768").trim());
+      final RenderView view;
+      if(job.getProperty("xmin") != null) {
+        final String xmax = job.getProperty("xmax"), ymin = job.getProperty("ymin"), ymax = job.getProperty("ymax");
+        if(xmax == null || ymin == null || ymax == null) {
+          throw new IllegalArgumentException("\nERROR: A job with xmin needs xmax, ymin and ymax as well.");
+        }
+        view = new RenderView(new Apfloat(job.getProperty("xmin").trim(), precision), new Apfloat(xmax.trim(), precision),
+            new Apfloat(ymin.trim(), precision), new Apfloat(ymax.trim(), precision), width, height, precision);
+      } else {
+        final String centerReal = job.getProperty("centerReal"), centerImag = job.getProperty("centerImag");
+        final String scale = job.getProperty("scale");
+        if(centerReal == null || centerImag == null || scale == null) {
+          throw new IllegalArgumentException("\nERROR: A job needs centerReal, centerImag and scale.");
+        }
+        view = RenderView.centered(
+            new Apcomplex(new Apfloat(centerReal.trim(), precision), new Apfloat(centerImag.trim(), precision)),
+            new Apfloat(scale.trim(), precision), width, height, precision);
+      }
+
+      final boolean mandelbrot = job.getProperty("s1") == null && job.getProperty("s2") == null && job.getProperty("s3") == null;
+      final FractalIterator fractal = new FractalIterator(mandelbrot ? FractalIterator.mandelbrotSet : slot(job, "s1", precision),
+          slot(job, "s2", precision), slot(job, "s3", precision), complex(job, "J", precision), complex(job, "K", precision),
+          positions(job.getProperty("z", ""), new String[] {"J", "K"}), Boolean.parseBoolean(job.getProperty("fast", "true").trim()));
+      fractal.perturbation = Boolean.parseBoolean(job.getProperty("perturbation", Boolean.toString(perturbation)).trim());
+
+      if(job.getProperty("color.mode") != null) {
+        colorMode = ColorMapper.Mode.valueOf(job.getProperty("color.mode").trim().toUpperCase());
+      }
+      final String interior = job.getProperty("color.interior");
+      if(job.getProperty("color.palette") != null) {
+        palette = Palette.parse(job.getProperty("color.palette"), interior != null ? Integer.parseInt(interior.trim(), 16)
+            : palette != null ? palette.interior : 0);
+      } else if(interior != null) { // The default palette, with only its interior color changed
+        palette = (palette != null ? palette : Palette.parse("gray", 0)).withInterior(Integer.parseInt(interior.trim(), 16));
+      }
+
+      return new RenderJob(name, file, Integer.parseInt(job.getProperty("priority", "0").trim()), sequence, fractal, view,
+          colorMode, palette);
+    } catch(NumberFormatException e) { // Includes Apfloat's, which extends it
+      throw new IllegalArgumentException("\nERROR: Bad number in job " + name + ": " + e.getMessage(), e);
+    }
+  }
+
+  // The properties of a job that renders `view` of the fractal, in the format read() reads. The numbers are written
+  // with all their digits, so parse() gives back the same fractal and view. Priority and colors are left out.
+  public static Properties describe(FractalIterator fractal, RenderView view) {
+    final Properties job = new Properties();
+    job.setProperty("xmin", view.xmin.toString(true));
+    job.setProperty("xmax", view.xmax.toString(true));
+    job.setProperty("ymin", view.ymin.toString(true));
+    job.setProperty("ymax", view.ymax.toString(true));
+    job.setProperty("width", Integer.toString(view.width));
+    job.setProperty("height", Integer.toString(view.height));
+    job.setProperty("precision", Long.toString(view.precision));
+    job.setProperty("perturbation", Boolean.toString(fractal.perturbation));
+    job.setProperty("fast", Boolean.toString(fractal.fast));
+
+    final Slot[] slots = {fractal.s1, fractal.s2, fractal.s3};
+    for(int s = 0; s < slots.length; s++) { // Empty slots too, so a fractal without any never reads back as the Mandelbrot Set
+      final String key = "s" + (s + 1);
+      job.setProperty(key, slots[s].functionName());
+      final Apcomplex[] constants = slots[s].constants();
+      for(int i = 0; i < VARIABLES.length; i++) {
+        job.setProperty(key + "." + VARIABLES[i], format(constants[i]));
+      }
+      final Apcomplex[] params = slots[s].paramConstants();
+      final StringBuilder values = new StringBuilder();
+      for(Apcomplex param : params) {
+        values.append(values.length() > 0 ? " " : "").append(format(param));
+      }
+      job.setProperty(key + ".params", values.toString());
+
+      final boolean[] positions = slots[s].zPositions();
+      final StringBuilder z = new StringBuilder();
+      for(int i = 0; i < positions.length; i++) {
+        if(positions[i]) {
+          z.append(z.length() > 0 ? " " : "").append(i < VARIABLES.length ? VARIABLES[i] : Integer.toString(i - VARIABLES.length));
+        }
+      }
+      job.setProperty(key + ".z", z.toString());
+    }
+
+    job.setProperty("J", format(fractal.J.constant()));
+    job.setProperty("K", format(fractal.K.constant()));
+    job.setProperty("z", (fractal.zPositions[0] ? "J" : "") + (fractal.zPositions[0] && fractal.zPositions[1] ? " " : "")
+        + (fractal.zPositions[1] ? "K" : ""));
+    return job;
+  }
+
+  // A complex number the way complex() reads it, with all its digits
+  private static String format(Apcomplex value) {
+    if(value.imag().signum() == 0) {
+      return value.real().toString(true);
+    }
+    return "(" + value.real().toString(true) + "," + value.imag().toString(true) + ")";
+  }
+
+  // The slot `key` (s1, s2 or s3) of a job, or an empty slot if the job doesn't give it a function
+  private static Slot slot(Properties job, String key, long precision) {
+    final String function = job.getProperty(key);
+    if(function == null) {
+      return FractalIterator.emptySlot;
+    }
+
+    final String[] params = job.getProperty(key + ".params", "").trim().split("\\s+");
+    final Apcomplex[] values = new Apcomplex[params[0].isEmpty() ? 0 : params.length];
+    for(int i = 0; i < values.length; i++) {
+      values[i] = complex(params[i], precision);
+    }
+
+    final String[] names = new String[VARIABLES.length + values.length];
+    for(int i = 0; i < names.length; i++) {
+      names[i] = i < VARIABLES.length ? VARIABLES[i] : Integer.toString(i - VARIABLES.length);
+    }
+
+    return new Slot(function.trim(), complex(job, key + ".B", precision), complex(job, key + ".A", precision),
+        complex(job, key + ".t", precision), complex(job, key + ".p", precision), complex(job, key + ".q", precision), values,
+        positions(job.getProperty(key + ".z", ""), names));
+  }
+
+  // A complex constant of the job, 1 if it isn't given
+  private static Apcomplex complex(Properties job, String key, long precision) {
+    final String value = job.getProperty(key);
+    return value == null ? Apcomplex.ONE : complex(value.trim(), precision);
+  }
+
+  // A complex number written as a real number or as (real,imag), with `precision` digits. Apcomplex's own parser
+  // would give it only as many digits as are written, which would cut down everything it's multiplied with.
+  private static Apcomplex complex(String value, long precision) {
+    if(value.startsWith("(") && value.endsWith(")") && value.indexOf(',') > 0) {
+      final int comma = value.indexOf(',');
+      return new Apcomplex(new Apfloat(value.substring(1, comma).trim(), precision),
+          new Apfloat(value.substring(comma + 1, value.length() - 1).trim(), precision));
+    }
+    return new Apcomplex(new Apfloat(value, precision));
+  }
+
+  // Which of the named variables are listed (separated by spaces) in `spec`
+  private static boolean[] positions(String spec, String[] names) {
+    final boolean[] positions = new boolean[names.length];
+    for(String variable : spec.trim().split("\\s+")) {
+      if(variable.isEmpty()) {
+        continue;
+      }
+      int i = 0;
+      while(i < names.length && !names[i].equals(variable)) {
+        i++;
+      }
+      if(i == names.length) {
+        throw new IllegalArgumentException("\nERROR: Unknown variable \"" + variable + "\" for z. Expected one of: "
+            + String.join(" ", names));
+      }
+      positions[i] = true;
+    }
+    return positions;
+  }
+}
@@ -0,0 +1,13 @@
+/*** RenderListener.java ******************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Receives the partial images of a progressive render.       *
+\******************************************************************************/
+
+@FunctionalInterface
+public interface RenderListener {
+  // Called on the rendering thread after each pass of a progressive render, the last one having step 1. Every pixel of
+  // the buffer already holds a count (the exact one, or that of a nearby pixel if it hasn't been iterated yet), so it can
+  // be drawn as is. pixelsDone is how many pixels have been iterated so far, out of buffer.width * buffer.height.
+  void passComplete(IterationBuffer buffer, int step, long pixelsDone);
+}
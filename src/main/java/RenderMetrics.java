@@ -0,0 +1,356 @@
+/*** RenderMetrics.java *******************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Collects live statistics of the render workers and makes   *
+ *                 them available to the display, over JMX and in the log.    *
+\******************************************************************************/
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/* Every thread that renders tiles gets its own Worker the first time it does, and is the only one that ever writes to
+   it, so counting never takes a lock or contends on a cache line with another worker. Counters are updated once per
+   tile (or per strip, for boundary tracing and zoom frames), never per pixel or iteration: two nanoTime() calls, a
+   dozen stores and one pass over the counts just iterated, a few hundred nanoseconds against the hundreds of
+   microseconds a typical tile of the double path takes.
+
+   Per worker, it keeps the pixels, iterations and tiles done, the tile it's on and the kernel it uses, plus a histogram
+   of tile latencies in power-of-two microsecond buckets. Only pixels that were actually iterated count, with their
+   counts as the iterations: not the ones boundary tracing filled in, a zoom frame carried over from the one before or
+   the cardioid/bulb test resolved up front. Points stopped by periodicity detection count as maxIterations, though.
+   The position is the tile's top left pixel, not the pixel being iterated: tracking that would put a store in every
+   kernel's per-pixel loop (and the vector kernel iterates a whole row of lanes at once), and a tile is small enough to
+   tell where in the image a slow worker is.
+
+   A sampler thread sums the workers up every sampleSeconds into a Snapshot with the rates since the previous one
+   (pixels and iterations per second, seconds per pixel, allocation rate, GC time per second), the heap usage and the
+   settings of the latest render (precision, tier, kernel). snapshot() returns the latest one, every logSeconds it's
+   printed, and with jmx on the RenderMetricsMXBean registered as FractalVoyager:type=RenderMetrics exposes it over JMX.
+*/
+public class RenderMetrics implements RenderMetricsMXBean {
+  public static boolean enabled = true;
+  public static boolean jmx = false; // Register the MXBean
+  public static int sampleSeconds = 1;
+  public static int logSeconds = 30; // 0 = don't log
+
+  public static final int LATENCY_BUCKETS = 32; // Bucket i holds tiles that took [2^(i-1), 2^i) microseconds
+
+  private static final RenderMetrics INSTANCE = new RenderMetrics();
+  private static final ThreadLocal<Worker> WORKER = ThreadLocal.withInitial(INSTANCE::register);
+
+  // Counts the bytes each thread allocates; null if the JVM can't
+  private static final com.sun.management.ThreadMXBean ALLOCATIONS = allocationCounter();
+
+  private final List<Worker> workers = new CopyOnWriteArrayList<>();
+  private volatile Snapshot latest = new Snapshot();
+  private volatile long renderPrecision; // Settings of the latest render to begin
+  private volatile String renderTier = "", renderKernel = "";
+  private Thread sampler; // Guarded by the class
+
+  private RenderMetrics() {} // Only INSTANCE
+
+  // What one worker thread has done. Only its own thread writes to it.
+  public static final class Worker {
+    private static final int PIXELS = 0, ITERATIONS = 1, TILES = 2, X = 3, Y = 4;
+
+    public final String name;
+    private final Thread thread;
+    private final AtomicLongArray counters = new AtomicLongArray(5);
+    private final AtomicLongArray latencies = new AtomicLongArray(LATENCY_BUCKETS);
+    private volatile String kernel = "";
+    private long allocatedBytes; // Last value read for the thread, kept once it has died. Only the sampler uses it.
+
+    private Worker(Thread thread) {
+      this.name = thread.getName();
+      this.thread = thread;
+    }
+
+    // The worker starts the tile whose top left pixel is (x, y)
+    public void tileStarted(int x, int y, KernelSelector.Kernel kernel) {
+      counters.lazySet(X, x);
+      counters.lazySet(Y, y);
+      if(kernel != null) {
+        this.kernel = kernel.name();
+      }
+    }
+
+    // The worker iterated `pixels` pixels of its tile, which took `iterations` iterations in all. May be called more than
+    // once per tile, with negative numbers to take back pixels that turned out not to be iterated.
+    public void iterated(long pixels, long iterations) {
+      add(PIXELS, pixels); // Single writer: a plain read and an ordered write are enough, no CAS
+      add(ITERATIONS, iterations);
+    }
+
+    // The worker finished its tile in `nanos` ns
+    public void tileFinished(long nanos) {
+      add(TILES, 1);
+      final int bucket = Math.min(64 - Long.numberOfLeadingZeros(nanos / 1000), LATENCY_BUCKETS - 1);
+      latencies.lazySet(bucket, latencies.get(bucket) + 1);
+    }
+
+    private void add(int counter, long value) {
+      counters.lazySet(counter, counters.get(counter) + value);
+    }
+
+    @Override
+    public String toString() {
+      return name + ": tile (" + counters.get(X) + ", " + counters.get(Y) + "), " + kernel + ", "
+          + counters.get(PIXELS) + " px, " + counters.get(ITERATIONS) + " it";
+    }
+  }
+
+  // Everything the metrics know at one point in time. Totals are since the JVM started.
+  public static final class Snapshot {
+    public final long time = System.currentTimeMillis();
+    public final long nanos = System.nanoTime();
+    public long pixels, iterations, tiles, allocatedBytes, gcMillis;
+    public double pixelsPerSecond, iterationsPerSecond, secondsPerPixel, allocatedBytesPerSecond, gcMillisPerSecond;
+    public long heapUsed, heapMax;
+    public long precision;
+    public String tier = "", kernel = "";
+    public String[] workers = new String[0];
+    public long[] tileLatencies = new long[LATENCY_BUCKETS];
+
+    // Microseconds within which the given fraction of all tiles finished, rounded up to a power of two
+    public long tileLatencyPercentile(double fraction) {
+      long total = 0;
+      for(long count : tileLatencies) {
+        total += count;
+      }
+      long seen = 0;
+      for(int i = 0; i < LATENCY_BUCKETS; i++) {
+        seen += tileLatencies[i];
+        if(total > 0 && seen >= fraction * total) {
+          return 1L << i;
+        }
+      }
+      return 0;
+    }
+
+    @Override
+    public String toString() {
+      return Math.round(pixelsPerSecond) + " px/s (" + String.format("%.3g", secondsPerPixel) + " s/px), "
+          + Math.round(iterationsPerSecond) + " it/s, tiles p50 " + tileLatencyPercentile(0.5) + " us, p99 "
+          + tileLatencyPercentile(0.99) + " us, " + precision + " digits " + tier + " " + kernel + ", heap "
+          + (heapUsed >> 20) + "/" + (heapMax >> 20) + " MB, "
+          + (allocatedBytes >= 0 ? Math.round(allocatedBytesPerSecond / (1 << 20)) + " MB/s allocated, " : "")
+          + "GC " + Math.round(gcMillisPerSecond) + " ms/s";
+    }
+  }
+
+  // Starts the sampler (and registers the MXBean) unless metrics are disabled. Safe to call more than once.
+  public static synchronized void start() {
+    if(!enabled || INSTANCE.sampler != null) {
+      return;
+    }
+    if(jmx) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE,
+            new javax.management.ObjectName("FractalVoyager:type=RenderMetrics"));
+      } catch(javax.management.JMException e) {
+        System.out.println("ERROR: Couldn't register the metrics MXBean. Details:\n" + e.getMessage());
+      }
+    }
+    INSTANCE.sampler = new Thread(INSTANCE::sample, "render-metrics");
+    INSTANCE.sampler.setDaemon(true);
+    INSTANCE.sampler.start();
+  }
+
+  // The calling thread's Worker, or null if metrics are disabled
+  public static Worker worker() {
+    return enabled ? WORKER.get() : null;
+  }
+
+  // A render began with the given settings
+  public static void renderStarted(long precision, PrecisionTier tier, KernelSelector.Kernel kernel) {
+    INSTANCE.renderPrecision = precision;
+    INSTANCE.renderTier = tier.toString();
+    INSTANCE.renderKernel = kernel.toString();
+  }
+
+  // The latest snapshot; empty until the sampler has run once
+  public static Snapshot snapshot() {
+    return INSTANCE.latest;
+  }
+
+  private Worker register() {
+    Worker worker = new Worker(Thread.currentThread());
+    workers.add(worker);
+    return worker;
+  }
+
+  private void sample() {
+    long lastLog = System.nanoTime();
+    while(true) {
+      try {
+        Thread.sleep(sampleSeconds * 1000L);
+      } catch(InterruptedException e) {
+        return;
+      }
+      final Snapshot previous = latest, next = collect();
+      final double seconds = (next.nanos - previous.nanos) / 1e9;
+      next.pixelsPerSecond = (next.pixels - previous.pixels) / seconds;
+      next.iterationsPerSecond = (next.iterations - previous.iterations) / seconds;
+      next.secondsPerPixel = next.pixelsPerSecond > 0 ? 1 / next.pixelsPerSecond : 0;
+      next.allocatedBytesPerSecond = (next.allocatedBytes - previous.allocatedBytes) / seconds;
+      next.gcMillisPerSecond = (next.gcMillis - previous.gcMillis) / seconds;
+      latest = next;
+
+      if(logSeconds > 0 && next.nanos - lastLog >= logSeconds * 1_000_000_000L) {
+        System.out.println("Metrics: " + next);
+        lastLog = next.nanos;
+      }
+    }
+  }
+
+  // Sums up the workers. Rates are left to sample().
+  private Snapshot collect() {
+    Snapshot snapshot = new Snapshot();
+    final List<Worker> all = List.copyOf(workers);
+    final List<String> alive = new ArrayList<>(); // Pool threads come and go; the ones that are gone still count
+    final long[] ids = new long[all.size()];
+    for(int i = 0; i < all.size(); i++) {
+      final Worker worker = all.get(i);
+      snapshot.pixels += worker.counters.get(Worker.PIXELS);
+      snapshot.iterations += worker.counters.get(Worker.ITERATIONS);
+      snapshot.tiles += worker.counters.get(Worker.TILES);
+      for(int b = 0; b < LATENCY_BUCKETS; b++) {
+        snapshot.tileLatencies[b] += worker.latencies.get(b);
+      }
+      if(worker.thread.isAlive()) {
+        alive.add(worker.toString());
+      }
+      ids[i] = worker.thread.threadId();
+    }
+    snapshot.workers = alive.toArray(new String[0]);
+
+    snapshot.allocatedBytes = -1;
+    if(ALLOCATIONS != null) {
+      snapshot.allocatedBytes = 0;
+      final long[] allocated = ALLOCATIONS.getThreadAllocatedBytes(ids);
+      for(int i = 0; i < all.size(); i++) {
+        if(allocated[i] >= 0) { // -1 for threads that have died, whose last value still counts
+          all.get(i).allocatedBytes = allocated[i];
+        }
+        snapshot.allocatedBytes += all.get(i).allocatedBytes;
+      }
+    }
+    for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      snapshot.gcMillis += Math.max(gc.getCollectionTime(), 0);
+    }
+    final Runtime runtime = Runtime.getRuntime();
+    snapshot.heapUsed = runtime.totalMemory() - runtime.freeMemory();
+    snapshot.heapMax = runtime.maxMemory();
+    snapshot.precision = renderPrecision;
+    snapshot.tier = renderTier;
+    snapshot.kernel = renderKernel;
+    return snapshot;
+  }
+
+  private static com.sun.management.ThreadMXBean allocationCounter() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if(threads instanceof com.sun.management.ThreadMXBean counter && counter.isThreadAllocatedMemorySupported()) {
+      counter.setThreadAllocatedMemoryEnabled(true);
+      return counter;
+    }
+    return null;
+  }
+
+  // RenderMetricsMXBean, all from the latest snapshot
+
+  @Override
+  public long getPixels() {
+    return latest.pixels;
+  }
+
+  @Override
+  public long getIterations() {
+    return latest.iterations;
+  }
+
+  @Override
+  public long getTiles() {
+    return latest.tiles;
+  }
+
+  @Override
+  public double getPixelsPerSecond() {
+    return latest.pixelsPerSecond;
+  }
+
+  @Override
+  public double getIterationsPerSecond() {
+    return latest.iterationsPerSecond;
+  }
+
+  @Override
+  public double getSecondsPerPixel() {
+    return latest.secondsPerPixel;
+  }
+
+  @Override
+  public double getAllocatedBytesPerSecond() {
+    return latest.allocatedBytesPerSecond;
+  }
+
+  @Override
+  public long getGcMillis() {
+    return latest.gcMillis;
+  }
+
+  @Override
+  public double getGcMillisPerSecond() {
+    return latest.gcMillisPerSecond;
+  }
+
+  @Override
+  public long getHeapUsed() {
+    return latest.heapUsed;
+  }
+
+  @Override
+  public long getHeapMax() {
+    return latest.heapMax;
+  }
+
+  @Override
+  public long getPrecision() {
+    return latest.precision;
+  }
+
+  @Override
+  public String getTier() {
+    return latest.tier;
+  }
+
+  @Override
+  public String getKernel() {
+    return latest.kernel;
+  }
+
+  @Override
+  public String[] getWorkers() {
+    return latest.workers.clone();
+  }
+
+  @Override
+  public long[] getTileLatencies() {
+    return latest.tileLatencies.clone();
+  }
+
+  @Override
+  public long getTileLatencyP50() {
+    return latest.tileLatencyPercentile(0.5);
+  }
+
+  @Override
+  public long getTileLatencyP99() {
+    return latest.tileLatencyPercentile(0.99);
+  }
+}
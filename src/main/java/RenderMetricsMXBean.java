@@ -0,0 +1,30 @@
+/*** RenderMetricsMXBean.java *************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    JMX view of RenderMetrics.                                 *
+\******************************************************************************/
+
+
+/* Every attribute comes from the latest RenderMetrics.Snapshot, so they're at most sampleSeconds old and consistent
+   with each other. Totals count since the JVM started, rates are over the last sample.
+*/
+public interface RenderMetricsMXBean {
+  long getPixels();
+  long getIterations();
+  long getTiles();
+  double getPixelsPerSecond();
+  double getIterationsPerSecond();
+  double getSecondsPerPixel();
+  double getAllocatedBytesPerSecond();
+  long getGcMillis();
+  double getGcMillisPerSecond();
+  long getHeapUsed();
+  long getHeapMax();
+  long getPrecision(); // Digits of the latest render
+  String getTier();
+  String getKernel();
+  String[] getWorkers(); // What each worker is doing, one line per worker
+  long[] getTileLatencies(); // Tiles per power-of-two microsecond bucket
+  long getTileLatencyP50(); // Microseconds, rounded up to a power of two
+  long getTileLatencyP99();
+}
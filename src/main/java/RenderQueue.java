@@ -0,0 +1,431 @@
+/*** RenderQueue.java *********************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Runs the device unattended: picks up render jobs from a    *
+ *                 spool directory and renders them by priority on one shared *
+ *                 set of worker threads.                                     *
+\******************************************************************************/
+
+import javax.imageio.ImageIO;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+
+/* Jobs are properties files (see RenderJob) dropped into the spool directory as <name>.properties. Write them under
+   another name and rename them when they're complete, so the queue never reads half a job. For every job the queue
+   writes back
+
+     <name>.status   state (QUEUED, PREPARING, RENDERING, DONE, FAILED or CANCELLED), progress and timings
+     <name>.png      the finished image
+
+   and it keeps queue.status up to date with the number of queued renders and what every worker is doing, which is what
+   the display shows. Status files are replaced atomically, so they can be read at any time.
+
+   Every job gets its own RenderEngine, set up with begin() and never started: the queue's own worker threads render
+   the engines' tiles. Whenever a worker is free it takes the next tile of the job with the highest priority (the
+   earliest submitted, among equal ones), so a job submitted with a higher priority than the one in progress preempts it
+   as soon as the tiles in flight are done. The preempted job keeps its state and carries on from where it was once
+   nothing more important is left. The first worker to pick a new job sets it up (precision, kernel, reference orbit)
+   while the others keep rendering.
+
+   Deleting a job file cancels the job. Jobs whose status isn't final when the queue starts (because the device went
+   down while they were queued or rendering) are picked up again, and resume from the render cache if it's enabled.
+   A job with a final status is only rendered again once its .status file is deleted.
+*/
+public class RenderQueue {
+  public static String directory = "spool";
+  public static int pollSeconds = 2; // How often the spool is rescanned even if the file system reports no changes
+  public static int statusSeconds = 5; // How often the status files of running jobs are rewritten
+
+  private static final String JOB_SUFFIX = ".properties";
+
+  private enum State { QUEUED, PREPARING, RENDERING, DONE, FAILED, CANCELLED }
+
+  // A job and its progress. Everything but job and engine is guarded by the queue's lock.
+  private static class Entry {
+    final RenderJob job;
+    final RenderEngine engine;
+    RenderEngine.Render render;
+    State state = State.QUEUED;
+    int nextTile; // Next tile to hand out
+    int inFlight; // Tiles handed out that aren't finished yet
+    boolean cancelled; // Hand out no more tiles, and don't write the image
+    boolean completing; // Has someone started to complete() it?
+    String message = "";
+    long startedAt, finishedAt; // System.currentTimeMillis(), 0 if it hasn't happened yet
+
+    Entry(RenderJob job, int threads) {
+      this.job = job;
+      this.engine = new RenderEngine(job.fractal, threads);
+    }
+  }
+
+  private final File spool;
+  private final int threads;
+  private final boolean perturbation;
+  private final ColorMapper.Mode colorMode;
+  private final Palette palette;
+
+  // Jobs that aren't finished, most important first
+  private final List<Entry> jobs = new ArrayList<>();
+  private final String[] working; // What each worker is doing right now
+  private final long started = System.currentTimeMillis();
+  private long submitted; // Jobs accepted so far, which orders jobs of equal priority
+  private final Object statusLock = new Object(); // Serializes writes of status files
+
+  // Jobs that don't set them get the given perturbation setting, color mode and palette
+  public RenderQueue(File spool, int threads, boolean perturbation, ColorMapper.Mode colorMode, Palette palette) {
+    this.spool = spool;
+    this.threads = threads;
+    this.perturbation = perturbation;
+    this.colorMode = colorMode;
+    this.palette = palette;
+    this.working = new String[threads];
+  }
+
+  // Starts the workers and watches the spool directory for as long as the JVM runs
+  public void run() throws IOException, InterruptedException {
+    if(!spool.isDirectory() && !spool.mkdirs()) {
+      throw new IOException("Couldn't create the spool directory " + spool.getAbsolutePath());
+    }
+    System.out.println("Render queue: watching " + spool.getAbsolutePath() + " with " + threads + " workers.");
+
+    for(int i = 0; i < threads; i++) {
+      final int worker = i;
+      working[i] = "idle";
+      new Thread(() -> work(worker), "render-worker-" + i).start();
+    }
+
+    try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+      spool.toPath().register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+          StandardWatchEventKinds.ENTRY_MODIFY);
+      long lastStatus = 0;
+      while(true) {
+        scan();
+        if(System.currentTimeMillis() - lastStatus >= statusSeconds * 1000L) {
+          for(Entry entry : snapshot()) {
+            writeStatus(entry);
+          }
+          writeQueueStatus();
+          lastStatus = System.currentTimeMillis();
+        }
+
+        WatchKey key = watcher.poll(pollSeconds, TimeUnit.SECONDS); // Our own status files wake it up too; that's harmless
+        if(key != null) {
+          key.pollEvents();
+          key.reset();
+        }
+      }
+    }
+  }
+
+  // Accepts new jobs and cancels the ones whose files have been deleted
+  private void scan() {
+    final File[] files = spool.listFiles((d, name) -> name.endsWith(JOB_SUFFIX));
+    if(files == null) {
+      return;
+    }
+
+    final Set<String> present = new HashSet<>();
+    for(File file : files) {
+      final String name = file.getName().substring(0, file.getName().length() - JOB_SUFFIX.length());
+      present.add(name);
+      if(find(name) != null || isFinal(name)) {
+        continue;
+      }
+
+      final RenderJob job;
+      try {
+        job = RenderJob.read(file, submitted, perturbation, colorMode, palette);
+      } catch(IOException | IllegalArgumentException e) {
+        System.out.println("ERROR: Rejected render job " + name + ". Details:" + e.getMessage());
+        writeStatus(name, State.FAILED, e.getMessage().trim());
+        continue;
+      }
+      final Entry entry = new Entry(job, threads);
+      synchronized(this) {
+        submitted++;
+        jobs.add(entry);
+        jobs.sort(Comparator.comparingInt((Entry e) -> -e.job.priority).thenComparingLong(e -> e.job.sequence));
+        notifyAll();
+      }
+      System.out.println("Render queue: accepted " + name + " (priority " + job.priority + ", " + job.view.width + "x"
+          + job.view.height + ").");
+      writeStatus(entry);
+    }
+
+    for(Entry entry : snapshot()) {
+      if(!present.contains(entry.job.name)) {
+        cancel(entry);
+      }
+    }
+  }
+
+  // The worker loop: take the most important piece of work, do it, repeat
+  private void work(int worker) {
+    while(true) {
+      Entry entry;
+      int tile = -1;
+      synchronized(this) {
+        while((entry = next()) == null) {
+          working[worker] = "idle";
+          try {
+            wait();
+          } catch(InterruptedException e) {
+            return;
+          }
+        }
+        if(entry.state == State.QUEUED) {
+          entry.state = State.PREPARING;
+          entry.startedAt = System.currentTimeMillis();
+          working[worker] = "preparing " + entry.job.name;
+        } else {
+          tile = entry.nextTile++;
+          entry.inFlight++;
+          working[worker] = entry.job.name + " tile " + tile;
+        }
+      }
+
+      if(tile < 0) {
+        prepare(entry);
+        continue;
+      }
+      try {
+        entry.render.renderTile(tile);
+      } catch(RuntimeException e) {
+        System.out.println("ERROR: Render job " + entry.job.name + " failed on tile " + tile + ". Details:\n" + e);
+        synchronized(this) {
+          entry.cancelled = true;
+          entry.message = "Failed on tile " + tile + ": " + e;
+        }
+      }
+      boolean done;
+      synchronized(this) {
+        entry.inFlight--;
+        done = entry.inFlight == 0 && (entry.cancelled || entry.nextTile >= entry.render.tiles) && claim(entry);
+      }
+      if(done) {
+        complete(entry);
+      }
+    }
+  }
+
+  // The most important job with something for a worker to do, or null if there's none. Caller holds the lock.
+  private Entry next() {
+    for(Entry entry : jobs) {
+      if(entry.cancelled) {
+        continue;
+      }
+      if(entry.state == State.QUEUED || (entry.state == State.RENDERING && entry.nextTile < entry.render.tiles)) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  // Sets up the render of a job that was just taken off the queue
+  private void prepare(Entry entry) {
+    RenderEngine.Render render = null;
+    try {
+      render = entry.engine.begin(entry.job.view, null, null);
+    } catch(RuntimeException e) {
+      System.out.println("ERROR: Couldn't set up render job " + entry.job.name + ". Details:\n" + e);
+      synchronized(this) {
+        entry.cancelled = true;
+        entry.message = "Couldn't set up the render: " + e;
+      }
+    }
+
+    boolean done;
+    synchronized(this) {
+      entry.render = render;
+      entry.state = State.RENDERING;
+      done = entry.cancelled && claim(entry);
+      notifyAll(); // Its tiles are up for grabs
+    }
+    writeStatus(entry);
+    if(done) {
+      complete(entry);
+    }
+  }
+
+  // Cancels a job whose file was deleted. Tiles in flight still finish.
+  private void cancel(Entry entry) {
+    boolean done;
+    synchronized(this) {
+      if(entry.cancelled || entry.completing) {
+        return;
+      }
+      entry.cancelled = true;
+      entry.message = "Cancelled: the job file was deleted.";
+      done = (entry.state == State.QUEUED || (entry.state == State.RENDERING && entry.inFlight == 0)) && claim(entry);
+    }
+    System.out.println("Render queue: cancelled " + entry.job.name + ".");
+    if(done) {
+      complete(entry);
+    }
+  }
+
+  // Makes sure only one thread completes a job: true for the first caller, false for every other. Caller holds the lock.
+  private boolean claim(Entry entry) {
+    if(entry.completing) {
+      return false;
+    }
+    entry.completing = true;
+    return true;
+  }
+
+  // Finishes a job once no worker is on it anymore: writes its image (unless it was cancelled) and final status
+  private void complete(Entry entry) {
+    State state = State.DONE;
+    if(entry.render != null) {
+      final IterationBuffer buffer = entry.render.finish(); // Also keeps the finished tiles in the cache
+      if(!entry.cancelled) {
+        final File output = new File(spool, entry.job.name + ".png");
+        try {
+          ImageIO.write(ColorMapper.image(buffer, entry.job.colorMode, entry.job.palette), "png", output);
+          entry.message = "Written to " + output.getName();
+        } catch(IOException e) {
+          state = State.FAILED;
+          entry.message = "Couldn't write " + output.getName() + ": " + e.getMessage();
+        }
+      }
+    }
+    entry.engine.shutdown();
+
+    synchronized(this) {
+      if(entry.cancelled) {
+        state = entry.message.startsWith("Cancelled") ? State.CANCELLED : State.FAILED;
+      }
+      entry.state = state;
+      entry.finishedAt = System.currentTimeMillis();
+    }
+    System.out.println("Render queue: " + entry.job.name + " " + state + ". " + entry.message);
+    writeStatus(entry); // Before leaving the queue, so a scan() never sees the job as neither queued nor finished
+    synchronized(this) {
+      jobs.remove(entry);
+    }
+    writeQueueStatus();
+  }
+
+  private synchronized Entry find(String name) {
+    for(Entry entry : jobs) {
+      if(entry.job.name.equals(name)) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  private synchronized List<Entry> snapshot() {
+    return new ArrayList<>(jobs);
+  }
+
+  // Did a job of this name already finish (in this run or an earlier one)?
+  private boolean isFinal(String name) {
+    final File status = new File(spool, name + ".status");
+    if(!status.isFile()) {
+      return false;
+    }
+    Properties properties = new Properties();
+    try (InputStream in = new FileInputStream(status)) {
+      properties.load(in);
+    } catch(IOException e) {
+      return false;
+    }
+    final String state = properties.getProperty("state", "");
+    return state.equals("DONE") || state.equals("FAILED") || state.equals("CANCELLED");
+  }
+
+  private void writeStatus(Entry entry) {
+    Properties status = new Properties();
+    synchronized(this) {
+      status.setProperty("state", entry.state.toString());
+      status.setProperty("priority", Integer.toString(entry.job.priority));
+      status.setProperty("size", entry.job.view.width + "x" + entry.job.view.height);
+      if(entry.render != null) {
+        final long done = entry.render.tilesDone();
+        status.setProperty("precision", Long.toString(entry.render.view.precision));
+        status.setProperty("tiles", Integer.toString(entry.render.tiles));
+        status.setProperty("tilesDone", Long.toString(done));
+        status.setProperty("progress", String.format("%.1f%%", 100.0 * done / entry.render.tiles));
+      }
+      if(entry.startedAt != 0) {
+        final long end = entry.finishedAt != 0 ? entry.finishedAt : System.currentTimeMillis();
+        status.setProperty("elapsedSeconds", Long.toString((end - entry.startedAt) / 1000));
+      }
+      status.setProperty("message", entry.message);
+    }
+    write(new File(spool, entry.job.name + ".status"), status);
+  }
+
+  // Status of a job that never made it onto the queue
+  private void writeStatus(String name, State state, String message) {
+    Properties status = new Properties();
+    status.setProperty("state", state.toString());
+    status.setProperty("message", message);
+    write(new File(spool, name + ".status"), status);
+  }
+
+  private void writeQueueStatus() {
+    Properties status = new Properties();
+    synchronized(this) {
+      int queued = 0, running = 0;
+      for(Entry entry : jobs) {
+        if(entry.state == State.QUEUED) {
+          queued++;
+        } else {
+          running++;
+        }
+      }
+      status.setProperty("queued", Integer.toString(queued));
+      status.setProperty("running", Integer.toString(running));
+      status.setProperty("uptimeSeconds", Long.toString((System.currentTimeMillis() - started) / 1000));
+      for(int i = 0; i < threads; i++) {
+        status.setProperty("worker." + i, working[i]);
+      }
+      final ThermalGovernor governor = RenderEngine.governor;
+      if(governor != null) { // The display's temperature graph and throttling status
+        status.setProperty("temperature", Double.toString(governor.temperature()));
+        status.setProperty("throttled", "0x" + Integer.toHexString(governor.throttled()));
+        status.setProperty("allowedWorkers", Integer.toString(governor.allowed()));
+      }
+    }
+    write(new File(spool, "queue.status"), status);
+  }
+
+  // Replaces a status file atomically, so readers never see half of one
+  private void write(File file, Properties properties) {
+    synchronized(statusLock) {
+      final File temporary = new File(spool, file.getName() + ".tmp");
+      try (OutputStream out = new FileOutputStream(temporary)) {
+        properties.store(out, null);
+      } catch(IOException e) {
+        System.out.println("ERROR: Couldn't write " + temporary.getAbsolutePath() + ". Details:\n" + e.getMessage());
+        return;
+      }
+      try {
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch(IOException e) {
+        System.out.println("ERROR: Couldn't replace " + file.getAbsolutePath() + ". Details:\n" + e.getMessage());
+      }
+    }
+  }
+}
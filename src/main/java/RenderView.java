@@ -0,0 +1,139 @@
+/*** RenderView.java **********************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Describes which region of the complex plane is rendered    *
+ *                 and how it maps onto the pixels of the output image.       *
+\******************************************************************************/
+
+import org.apfloat.Apcomplex;
+import org.apfloat.Apfloat;
+
+
+/* A render view is the rectangle [xmin, xmax] x [ymin, ymax] of the complex plane, sampled on a width x height pixel
+   grid. Pixel (0, 0) sits on (xmin, ymax) and pixel (width-1, height-1) sits on (xmax, ymin), i.e. the top row of the
+   image is the top of the plane.
+
+   The bounds are kept as Apfloats so deep views don't lose their position, but double copies are cached as well so the
+   fast path never has to touch an Apfloat while rendering.
+
+   A band (see band()) is a range of rows of a larger view, rendered on its own. Its center() and its deltas stay those
+   of the whole view, so every band of it can share one perturbation reference orbit.
+*/
+public class RenderView {
+  public final Apfloat xmin, xmax, ymin, ymax;
+  public final int width, height;
+  public final long precision; // Digits used when mapping a pixel to an Apcomplex point
+
+  private final Apfloat dx, dy; // Distance between two neighbouring pixels on each axis
+  private final double xmin_fast, xmax_fast, ymin_fast, ymax_fast;
+
+  // Pixel spacing as scaled doubles (value = scaled * 2^deltaExponent), for iterators that work on offsets from the
+  // center of the view. Deep views have spacings far below what a plain double can hold.
+  public final int deltaExponent;
+  private final double dx_scaled, dy_scaled;
+
+  private final Apcomplex origin; // The point deltas are measured from, if it isn't the middle of the view (bands)
+  private final double originY; // Row of the origin, (height - 1) / 2 unless this is a band
+
+  public RenderView(Apfloat xmin, Apfloat xmax, Apfloat ymin, Apfloat ymax, int width, int height, long precision) {
+    this(xmin, xmax, ymin, ymax, width, height, precision, null, (height - 1) / 2.0);
+  }
+
+  private RenderView(Apfloat xmin, Apfloat xmax, Apfloat ymin, Apfloat ymax, int width, int height, long precision,
+                     Apcomplex origin, double originY) {
+    if(width < 2 || height < 2) {
+      throw new IllegalArgumentException("\nERROR: A render view must be at least 2x2 pixels. Got: " + width + "x" + height);
+    }
+
+    this.xmin = xmin.precision(precision);
+    this.xmax = xmax.precision(precision);
+    this.ymin = ymin.precision(precision);
+    this.ymax = ymax.precision(precision);
+    this.width = width;
+    this.height = height;
+    this.precision = precision;
+
+    this.dx = this.xmax.subtract(this.xmin).divide(new Apfloat(width - 1, precision));
+    this.dy = this.ymax.subtract(this.ymin).divide(new Apfloat(height - 1, precision));
+
+    this.deltaExponent = Math.max(ScaledDouble.exponent(dx), ScaledDouble.exponent(dy));
+    this.dx_scaled = ScaledDouble.mantissa(dx, deltaExponent);
+    this.dy_scaled = ScaledDouble.mantissa(dy, deltaExponent);
+
+    this.xmin_fast = xmin.doubleValue();
+    this.xmax_fast = xmax.doubleValue();
+    this.ymin_fast = ymin.doubleValue();
+    this.ymax_fast = ymax.doubleValue();
+
+    this.origin = origin;
+    this.originY = originY;
+  }
+
+  // The view `scale` high in the complex plane, centered on `center`. Pixels are square, so its width in the plane follows
+  // from the aspect ratio.
+  public static RenderView centered(Apcomplex center, Apfloat scale, int width, int height, long precision) {
+    final Apfloat halfHeight = scale.precision(precision).divide(new Apfloat(2, precision));
+    final Apfloat halfWidth = halfHeight.multiply(new Apfloat(width - 1, precision)).divide(new Apfloat(height - 1, precision));
+    final Apfloat cr = center.real().precision(precision), ci = center.imag().precision(precision);
+    return new RenderView(cr.subtract(halfWidth), cr.add(halfWidth), ci.subtract(halfHeight), ci.add(halfHeight),
+        width, height, precision);
+  }
+
+  // The same view with its bounds rounded to (or padded out to) `digits` digits
+  public RenderView withPrecision(long digits) {
+    return new RenderView(xmin, xmax, ymin, ymax, width, height, digits,
+        origin != null ? new Apcomplex(origin.real().precision(digits), origin.imag().precision(digits)) : null, originY);
+  }
+
+  // Rows [y0, y1) of this view as a view of their own, at least 2 rows high. Its pixel (x, y) samples this view's pixel
+  // (x, y0 + y), and its center() and deltas are still this view's.
+  public RenderView band(int y0, int y1) {
+    if(y0 < 0 || y1 > height || y1 - y0 < 2) {
+      throw new IllegalArgumentException("\nERROR: Band of rows " + y0 + " to " + y1 + " doesn't fit a view " + height
+          + " rows high.");
+    }
+    return new RenderView(xmin, xmax, ymax.subtract(dy.multiply(new Apfloat(y1 - 1))), ymax.subtract(dy.multiply(new Apfloat(y0))),
+        width, y1 - y0, precision, center(), originY - y0);
+  }
+
+  // Real coordinate of pixel column x as a double
+  public double real(int x) {
+    return xmin_fast + (x / (double)(width - 1)) * (xmax_fast - xmin_fast);
+  }
+
+  // Imaginary coordinate of pixel row y as a double (top -> ymax, bottom -> ymin)
+  public double imag(int y) {
+    return ymax_fast - (y / (double)(height - 1)) * (ymax_fast - ymin_fast);
+  }
+
+  // Exact (to the view's precision) point in the complex plane that pixel (x, y) samples
+  public Apcomplex point(int x, int y) {
+    return new Apcomplex(
+        xmin.add(dx.multiply(new Apfloat(x))),
+        ymax.subtract(dy.multiply(new Apfloat(y)))
+    );
+  }
+
+  // The point in the middle of the view, or of the whole view if this is a band
+  public Apcomplex center() {
+    if(origin != null) {
+      return origin;
+    }
+    Apfloat two = new Apfloat(2, precision);
+    return new Apcomplex(xmin.add(xmax).divide(two), ymin.add(ymax).divide(two));
+  }
+
+  // Real part of (point(x, y) - center()), scaled down by 2^deltaExponent
+  public double deltaReal(int x) {
+    return (x - (width - 1) / 2.0) * dx_scaled;
+  }
+
+  // Imaginary part of (point(x, y) - center()), scaled down by 2^deltaExponent
+  public double deltaImag(int y) {
+    return (originY - y) * dy_scaled;
+  }
+
+  public int pixelCount() {
+    return width * height;
+  }
+}
@@ -0,0 +1,227 @@
+/*** RenderWorker.java ********************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Renders tiles for a RenderCoordinator, possibly on another *
+ *                 machine.                                                   *
+\******************************************************************************/
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+/* A worker connects to the coordinator, says how many threads it has and renders the tiles it's sent, each one on the
+   first free thread, sending every tile back as soon as it's done (see RenderCoordinator for the protocol). Every job
+   it gets brings the coordinator's settings along, which the worker adopts, and gets an engine of its own, set up with
+   begin() like the coordinator's, so both agree on precision, kernel and reference orbit. If that setup fails, every
+   tile of the job is reported as FAILED, so the coordinator gives up on it after maxAttempts like on any failing tile.
+
+   If the connection drops, or the coordinator is silent for RenderCoordinator.timeoutSeconds, the worker abandons its
+   tiles (the coordinator reassigns them) and connects again every retrySeconds until it's back. Workers don't use the
+   render cache, since several of them may run on one machine; the coordinator's cache is what renders resume from.
+*/
+public class RenderWorker {
+  public static String coordinator = "localhost"; // Host of the coordinator
+  public static int retrySeconds = 5;
+
+  private final int threads;
+
+  public RenderWorker(int threads) {
+    this.threads = threads;
+  }
+
+  // Renders tiles for the coordinator for as long as the JVM runs
+  public void run() {
+    RenderCache.enabled = false;
+    System.out.println("Worker: connecting to " + coordinator + ":" + RenderCoordinator.port + " with " + threads + " threads.");
+    while(true) {
+      try (Socket socket = new Socket()) {
+        socket.connect(new InetSocketAddress(coordinator, RenderCoordinator.port), RenderCoordinator.timeoutSeconds * 1000);
+        socket.setSoTimeout(RenderCoordinator.timeoutSeconds * 1000);
+        socket.setTcpNoDelay(true);
+        System.out.println("Worker: connected to " + socket.getRemoteSocketAddress() + ".");
+        serve(socket);
+      } catch(IOException e) {
+        System.out.println("Worker: no connection to the coordinator ("
+            + (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()) + "), retrying in " + retrySeconds
+            + " s.");
+      }
+      try {
+        Thread.sleep(retrySeconds * 1000L);
+      } catch(InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  // Handles one connection until it drops
+  private void serve(Socket socket) throws IOException {
+    final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    final ExecutorService pool = Executors.newFixedThreadPool(threads);
+    final Thread heartbeat = new Thread(() -> heartbeat(socket, out), "worker-heartbeat");
+    heartbeat.setDaemon(true);
+
+    int jobId = -1;
+    String setupError = null; // Why the current job couldn't be set up, if it couldn't
+    RenderEngine engine = null;
+    RenderEngine.Render render = null;
+    try {
+      synchronized(out) {
+        out.writeByte(RenderCoordinator.HELLO);
+        out.writeInt(threads);
+        out.flush();
+      }
+      heartbeat.start();
+
+      while(true) {
+        final byte type = in.readByte();
+        switch(type) {
+          case RenderCoordinator.JOB: {
+            final int id = in.readInt();
+            final byte[] definition = new byte[in.readInt()];
+            in.readFully(definition);
+            final Properties job = new Properties();
+            job.load(new ByteArrayInputStream(definition));
+            jobId = id;
+            setupError = null;
+            try {
+              RenderCoordinator.applySettings(job);
+              socket.setSoTimeout(RenderCoordinator.timeoutSeconds * 1000);
+              final RenderJob parsed = RenderJob.parse(job, "distributed", null, 0, false, ColorMapper.Mode.LINEAR, null);
+              System.out.println("Worker: render " + id + ", " + parsed.view.width + "x" + parsed.view.height + ".");
+              engine = new RenderEngine(parsed.fractal, threads);
+              render = engine.begin(parsed.view, null, null);
+            } catch(RuntimeException e) { // Not a job this worker can render; its tiles fail, so maxAttempts ends it
+              setupError = "Couldn't set up render " + id + ": "
+                  + (e.getMessage() != null ? e.getMessage().trim() : e.toString());
+              System.out.println("ERROR: " + setupError);
+              if(engine != null) {
+                engine.shutdown();
+              }
+              engine = null;
+              render = null;
+            }
+            break;
+          }
+          case RenderCoordinator.TILE: {
+            final int id = in.readInt(), tile = in.readInt();
+            if(id != jobId) {
+              throw new IOException("Tile of render " + id + " before its job");
+            }
+            if(render == null) {
+              failed(out, id, tile, setupError);
+              break;
+            }
+            final RenderEngine.Render current = render;
+            pool.execute(() -> renderTile(socket, out, id, current, tile));
+            break;
+          }
+          case RenderCoordinator.DONE: {
+            final int id = in.readInt();
+            if(id == jobId) {
+              if(render != null) {
+                render.finish();
+                engine.shutdown();
+              }
+              jobId = -1;
+              setupError = null;
+              engine = null;
+              render = null;
+            }
+            break;
+          }
+          case RenderCoordinator.HEARTBEAT:
+            break;
+          default:
+            throw new IOException("Unknown message type " + type);
+        }
+      }
+    } finally {
+      pool.shutdownNow(); // Tiles in flight still finish, but their results have nowhere to go
+      heartbeat.interrupt();
+      if(engine != null) {
+        engine.shutdown();
+      }
+    }
+  }
+
+  // Renders one tile and sends it back, or tells the coordinator why it couldn't
+  private static void renderTile(Socket socket, DataOutputStream out, int id, RenderEngine.Render render, int tile) {
+    try {
+      try {
+        render.renderTile(tile);
+      } catch(RuntimeException e) {
+        failed(out, id, tile, e.toString());
+        return;
+      }
+
+      final int[] bounds = render.tileBounds(tile);
+      final IterationBuffer buffer = render.buffer;
+      synchronized(out) {
+        out.writeByte(RenderCoordinator.RESULT);
+        out.writeInt(id);
+        out.writeInt(tile);
+        out.writeInt((bounds[2] - bounds[0]) * (bounds[3] - bounds[1]));
+        out.writeBoolean(buffer.smooth != null);
+        for(int y = bounds[1]; y < bounds[3]; y++) {
+          for(int x = bounds[0]; x < bounds[2]; x++) {
+            out.writeInt(buffer.counts[y * buffer.width + x]);
+          }
+        }
+        for(int y = bounds[1]; buffer.smooth != null && y < bounds[3]; y++) {
+          for(int x = bounds[0]; x < bounds[2]; x++) {
+            out.writeFloat(buffer.smooth[y * buffer.width + x]);
+          }
+        }
+        out.flush();
+      }
+    } catch(IOException e) {
+      try {
+        socket.close(); // The reader notices and reconnects
+      } catch(IOException ignored) {
+        // Closing anyway
+      }
+    }
+  }
+
+  // Tells the coordinator a tile couldn't be rendered, and why
+  private static void failed(DataOutputStream out, int id, int tile, String message) throws IOException {
+    synchronized(out) {
+      out.writeByte(RenderCoordinator.FAILED);
+      out.writeInt(id);
+      out.writeInt(tile);
+      out.writeUTF(message);
+      out.flush();
+    }
+  }
+
+  private static void heartbeat(Socket socket, DataOutputStream out) {
+    while(!socket.isClosed()) {
+      try {
+        Thread.sleep(Math.max(RenderCoordinator.timeoutSeconds / 4, 1) * 1000L);
+        synchronized(out) {
+          out.writeByte(RenderCoordinator.HEARTBEAT);
+          out.flush();
+        }
+      } catch(InterruptedException e) {
+        return;
+      } catch(IOException e) {
+        try {
+          socket.close();
+        } catch(IOException ignored) {
+          // Closing anyway
+        }
+        return;
+      }
+    }
+  }
+}
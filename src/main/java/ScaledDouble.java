@@ -0,0 +1,45 @@
+/*** ScaledDouble.java ********************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Converts Apfloats into a double mantissa and a separate    *
+ *                 power-of-two exponent, so values far below the range of    *
+ *                 a double can still be worked with in hardware FP.          *
+\******************************************************************************/
+
+import org.apfloat.Apfloat;
+import org.apfloat.ApfloatMath;
+
+
+/* A double can't represent anything smaller than about 1e-308, but deep zooms easily go past that. A "scaled double" is
+   a plain double m together with an int exponent e, meaning m * 2^e. The exponent is kept outside of the double so it
+   can go as low as the view needs, and the mantissa keeps its full 53 bits no matter how tiny the value is.
+
+   Only the conversion from Apfloat lives here; the arithmetic on scaled doubles is done inline on primitives in the
+   iterators that use them, so the hot loops never allocate.
+*/
+public class ScaledDouble {
+  private ScaledDouble() {} // Prevent instantiation
+
+  private static final double LOG2_10 = Math.log(10) / Math.log(2);
+
+  // Returns an exponent e such that |x| / 2^e is close to 1 (zero maps to 0)
+  public static int exponent(Apfloat x) {
+    if(x.signum() == 0) {
+      return 0;
+    }
+
+    long scale = x.scale(); // |x| = 0.ddd... * 10^scale
+    double leading = Math.abs(ApfloatMath.scale(x.precision(20), -scale).doubleValue()); // In [0.1, 1)
+    return (int)Math.floor(scale * LOG2_10 + Math.log(leading) / Math.log(2));
+  }
+
+  // Returns x / 2^exponent as a double
+  public static double mantissa(Apfloat x, int exponent) {
+    if(x.signum() == 0) {
+      return 0;
+    }
+
+    Apfloat two = new Apfloat(2, 30);
+    return x.precision(30).multiply(ApfloatMath.pow(two, -(long)exponent)).doubleValue();
+  }
+}
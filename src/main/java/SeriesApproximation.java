@@ -0,0 +1,198 @@
+/*** SeriesApproximation.java *************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Approximates the first iterations of every pixel of a      *
+ *                 deep Mandelbrot view with a polynomial in the pixel's      *
+ *                 offset, so the perturbation iterator can skip them.        *
+\******************************************************************************/
+
+
+/* At deep zoom every pixel follows the reference orbit for a long time before they start to differ. During that stretch
+   the perturbation delta of a pixel is almost a polynomial in its offset dc from the reference point:
+
+     dz_n ~= A_n * dc + B_n * dc^2 + C_n * dc^3
+
+   with coefficients that only depend on the reference orbit:
+
+     A_(n+1) = 2 * Z_n * A_n + 1
+     B_(n+1) = 2 * Z_n * B_n + A_n^2
+     C_(n+1) = 2 * Z_n * C_n + 2 * A_n * B_n
+
+   Once per frame the coefficients are stepped along the reference orbit until the series stops being trustworthy. Every
+   pixel then evaluates the cubic once and starts iterating at that point instead of at 0.
+
+   Two checks decide how far the series can go:
+   - The coefficients themselves: the size of the first left-out (quartic) term is estimated as |C|^2 / |B| and must stay
+     tiny next to the linear term.
+   - Probe points on the corners and edges of the view are iterated for real and compared against the series at every
+     step. The series stops at the first step where any probe disagrees, needs rebasing or escapes.
+
+   The coefficients are stored in terms of u = dc / radius, where radius is the distance from the center to a corner of
+   the view, so |u| <= 1 for every pixel. Like the deltas in the perturbation iterator, they're scaled doubles sharing one
+   power-of-two exponent, because at deep zoom they don't fit in a plain double.
+*/
+public class SeriesApproximation {
+  private static final double COEFFICIENT_TOLERANCE = 0x1p-40; // Largest allowed |quartic term| / |linear term|
+  private static final double PROBE_TOLERANCE = 1e-6; // Largest allowed relative error of the series at a probe point
+
+  public final int skipped; // Iterations every pixel skips; 0 if the series couldn't be used
+  public final double ar, ai, br, bi, cr, ci; // Coefficients of u, u^2 and u^3 at iteration `skipped`...
+  public final int exponent; // ...scaled down by 2^exponent
+  public final double radius; // Distance from the center to a corner of the view...
+  public final int radiusExponent; // ...scaled down by 2^radiusExponent
+
+  private SeriesApproximation(int skipped, double[] coefficients, int exponent, double radius, int radiusExponent) {
+    this.skipped = skipped;
+    this.ar = coefficients[0];
+    this.ai = coefficients[1];
+    this.br = coefficients[2];
+    this.bi = coefficients[3];
+    this.cr = coefficients[4];
+    this.ci = coefficients[5];
+    this.exponent = exponent;
+    this.radius = radius;
+    this.radiusExponent = radiusExponent;
+  }
+
+  // Fits the series to the reference orbit for the pixels of the given view
+  public static SeriesApproximation compute(ReferenceOrbit reference, RenderView view) {
+    final double[] refr = reference.zr;
+    final double[] refi = reference.zi;
+    final int limit = Math.min(reference.length - 1, FractalIterator.maxIterations - 1);
+
+    final int radiusExponent = view.deltaExponent;
+    final double radius = Math.hypot(view.deltaReal(0), view.deltaImag(0));
+
+    // History of the coefficients at every step: a, b, c (re, im) and their shared exponent
+    double[][] history = new double[limit + 1][];
+    int[] exponents = new int[limit + 1];
+
+    double ar = 0, ai = 0, br = 0, bi = 0, cr = 0, ci = 0;
+    int f = radiusExponent;
+    history[0] = new double[6];
+    exponents[0] = f;
+
+    int n = 0;
+    while(n < limit) {
+      final double Zr = refr[n];
+      final double Zi = refi[n];
+      final double fScale = Math.scalb(1.0, f); // Weight of the products of two coefficients
+      final double radiusScale = Math.scalb(radius, radiusExponent - f);
+
+      // a = 2*Z*a + radius
+      double nar = 2.0 * (Zr * ar - Zi * ai) + radiusScale;
+      double nai = 2.0 * (Zr * ai + Zi * ar);
+      // b = 2*Z*b + a^2
+      double nbr = 2.0 * (Zr * br - Zi * bi) + fScale * (ar * ar - ai * ai);
+      double nbi = 2.0 * (Zr * bi + Zi * br) + fScale * 2.0 * ar * ai;
+      // c = 2*Z*c + 2*a*b
+      double ncr = 2.0 * (Zr * cr - Zi * ci) + fScale * 2.0 * (ar * br - ai * bi);
+      double nci = 2.0 * (Zr * ci + Zi * cr) + fScale * 2.0 * (ar * bi + ai * br);
+
+      ar = nar; ai = nai; br = nbr; bi = nbi; cr = ncr; ci = nci;
+
+      // Keep a near 1 and move the magnitude into the shared exponent
+      double size = Math.max(Math.abs(ar), Math.abs(ai));
+      if(size > 0x1p64 || (size < 0x1p-64 && size > 0)) {
+        int shift = Math.getExponent(size);
+        ar = Math.scalb(ar, -shift); ai = Math.scalb(ai, -shift);
+        br = Math.scalb(br, -shift); bi = Math.scalb(bi, -shift);
+        cr = Math.scalb(cr, -shift); ci = Math.scalb(ci, -shift);
+        f += shift;
+      }
+
+      // Stop once the estimated quartic term isn't negligible next to the linear term any more
+      double a = Math.hypot(ar, ai);
+      double b = Math.hypot(br, bi);
+      double c = Math.hypot(cr, ci);
+      double quartic = b > 0 ? c * c / b : c;
+      if(!Double.isFinite(quartic) || quartic > COEFFICIENT_TOLERANCE * a) {
+        break;
+      }
+
+      n++;
+      history[n] = new double[] {ar, ai, br, bi, cr, ci};
+      exponents[n] = f;
+    }
+
+    // Check the series against real iterations of points on the corners and edges of the view
+    final double left = view.deltaReal(0), right = view.deltaReal(view.width - 1);
+    final double top = view.deltaImag(0), bottom = view.deltaImag(view.height - 1);
+    final double[][] probes = {
+        {left, top}, {right, top}, {left, bottom}, {right, bottom}, // Corners
+        {0, top}, {0, bottom}, {left, 0}, {right, 0} // Edge midpoints
+    };
+    for(double[] probe : probes) {
+      n = Math.min(n, checkProbe(reference, probe[0], probe[1], radiusExponent, radius, history, exponents, n));
+    }
+
+    if(n < 1) {
+      return new SeriesApproximation(0, new double[6], 0, radius, radiusExponent);
+    }
+    return new SeriesApproximation(n, history[n], exponents[n], radius, radiusExponent);
+  }
+
+  // Iterates the probe at offset (dcr + dci*i) * 2^dcExponent for real and returns the last step <= maxStep at which the
+  // series still matches it
+  private static int checkProbe(ReferenceOrbit reference, double dcr, double dci, int dcExponent, double radius,
+                                double[][] history, int[] exponents, int maxStep) {
+    final double[] refr = reference.zr;
+    final double[] refi = reference.zi;
+    final double ur = dcr / radius;
+    final double ui = dci / radius;
+    final double escapeThreshold2_fast = FractalIterator.escapeThreshold2.doubleValue();
+
+    double wr = 0, wi = 0; // dz = w * 2^e
+    int e = dcExponent;
+
+    for(int n = 0; n < maxStep; n++) {
+      final double Zr = refr[n];
+      final double Zi = refi[n];
+      final double sqScale = Math.scalb(1.0, e);
+      final double dcScale = Math.scalb(1.0, dcExponent - e);
+
+      // w = 2*Z*w + 2^e * w^2 + dc * 2^(dcExponent - e)
+      double temp = 2.0 * (Zr * wr - Zi * wi) + sqScale * (wr * wr - wi * wi) + dcScale * dcr;
+      wi = 2.0 * (Zr * wi + Zi * wr) + sqScale * 2.0 * wr * wi + dcScale * dci;
+      wr = temp;
+
+      double size = Math.max(Math.abs(wr), Math.abs(wi));
+      if(size > 0x1p64 || (size < 0x1p-64 && size > 0)) {
+        int shift = Math.getExponent(size);
+        wr = Math.scalb(wr, -shift);
+        wi = Math.scalb(wi, -shift);
+        e += shift;
+      }
+
+      // The probe would escape or need rebasing here, which the series can't follow
+      double zr = refr[n + 1] + Math.scalb(wr, e);
+      double zi = refi[n + 1] + Math.scalb(wi, e);
+      double dzr = Math.scalb(wr, e);
+      double dzi = Math.scalb(wi, e);
+      if(zr * zr + zi * zi >= escapeThreshold2_fast || zr * zr + zi * zi < dzr * dzr + dzi * dzi) {
+        return n;
+      }
+
+      // Series at this step: ((c*u + b)*u + a)*u
+      double[] k = history[n + 1];
+      double sr = k[4] * ur - k[5] * ui + k[2];
+      double si = k[4] * ui + k[5] * ur + k[3];
+      double temp2 = sr * ur - si * ui + k[0];
+      si = sr * ui + si * ur + k[1];
+      sr = temp2;
+      temp2 = sr * ur - si * ui;
+      si = sr * ui + si * ur;
+      sr = temp2;
+
+      // Compare both with the same exponent
+      double tr = Math.scalb(wr, e - exponents[n + 1]);
+      double ti = Math.scalb(wi, e - exponents[n + 1]);
+      double magnitude = Math.hypot(tr, ti);
+      if(magnitude > 0 && Math.hypot(tr - sr, ti - si) > PROBE_TOLERANCE * magnitude) {
+        return n;
+      }
+    }
+
+    return maxStep;
+  }
+}
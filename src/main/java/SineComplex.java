@@ -0,0 +1,14 @@
+/*** SineComplex.java *********************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    A MutableComplex that can take its own sine.               *
+\******************************************************************************/
+
+
+/* Implemented by the MutableComplex types that have a sine, which ExtendedFractal checks for before it compiles a sin
+   slot for a type. The others (BigFloatComplex) leave sin fractals to Apcomplex.
+*/
+public interface SineComplex {
+  // this = sin(this)
+  void sin();
+}
@@ -6,6 +6,9 @@
 
 import org.apfloat.Apcomplex;
 import org.apfloat.ApcomplexMath;
+import org.apfloat.Apfloat;
+
+import java.util.Arrays;
 
 
 /* A z-slot is a (ideally non-constant) value that's added to the numerator of the general fractal
@@ -25,12 +28,14 @@ import org.apfloat.ApcomplexMath;
 */
 
 public class Slot {
+  private final String functionName;
   private final FractalFunction function;
   private final FractalFunctionExtendedParameters params; // Function parameters beyond t, which is always the first parameter
   private final boolean[] zPositions; // Variable indices in order: B, A, t, p, q, [math function args, if applicable]
   private PairCoefficient A, B, t, p, q;
 
   public Slot(String functionName, Apcomplex B, Apcomplex A, Apcomplex t, Apcomplex p, Apcomplex q, Apcomplex[] params, boolean[] zPositions) {
+    this.functionName = functionName;
     this.function = FunctionRegistry.FractalFunctions.get(functionName);
     if(this.function == null) {
       throw new IllegalArgumentException("\nERROR: Unknown function \"" + functionName + "\"");
@@ -49,6 +54,102 @@ public class Slot {
     this.params = new FractalFunctionExtendedParameters(params.clone());
   }
 
+  // Copy constructor. eval() writes z into the slot's PairCoefficients, so a slot can't be evaluated by two threads at
+  // once; every render worker gets its own copy instead. The constants themselves are immutable and shared.
+  public Slot(Slot other) {
+    this.functionName = other.functionName;
+    this.function = other.function;
+    this.B = new PairCoefficient(other.B.constant());
+    this.A = new PairCoefficient(other.A.constant());
+    this.t = new PairCoefficient(other.t.constant());
+    this.p = new PairCoefficient(other.p.constant());
+    this.q = new PairCoefficient(other.q.constant());
+    this.zPositions = other.zPositions; // Never modified after construction
+    this.params = new FractalFunctionExtendedParameters(other.params.constants());
+  }
+
+  // Accessors for code that needs to look at the structure of a slot rather than just evaluate it
+  public String functionName() {
+    return functionName;
+  }
+
+  // The constant parts of B, A, t, p, q in that order, at their original precision
+  public Apcomplex[] constants() {
+    return new Apcomplex[] {B.constant(), A.constant(), t.constant(), p.constant(), q.constant()};
+  }
+
+  public Apcomplex[] paramConstants() {
+    return params.constants();
+  }
+
+  public boolean[] zPositions() {
+    return zPositions.clone();
+  }
+
+  // Everything that determines what the slot evaluates to, as text; equal for equal slots
+  public String definition() {
+    return functionName + Arrays.toString(constants()) + Arrays.toString(paramConstants()) + Arrays.toString(zPositions);
+  }
+
+  // True if the slot evaluates to zero whatever z is, i.e. B is a constant zero
+  public boolean isZero() {
+    return !zPositions[0] && B.constant().equals(Apcomplex.ZERO);
+  }
+
+  // If the slot is exactly z^d, in any of the ways that can be written (t = z with p = d, pow with exponent d, q = d, or
+  // a combination of those), returns d. Returns 0 for anything else, or if d is larger than SlotPlan.MAX_EXPONENT.
+  public int powerOfZ() {
+    for(int i = 0; i < zPositions.length; i++) {
+      if(zPositions[i] != (i == 2)) { // z may only be in t
+        return 0;
+      }
+    }
+    if(!B.constant().equals(Apcomplex.ONE) || !A.constant().equals(Apcomplex.ONE) || !t.constant().equals(Apcomplex.ONE)) {
+      return 0;
+    }
+
+    long functionExponent;
+    if(functionName.equals("identity")) {
+      functionExponent = 1;
+    } else if(functionName.equals("pow") && params.length() >= 1) {
+      functionExponent = smallInteger(params.constants()[0]);
+    } else {
+      return 0;
+    }
+
+    long d = smallInteger(p.constant()) * smallInteger(q.constant()) * functionExponent;
+    return d <= SlotPlan.MAX_EXPONENT ? (int)d : 0;
+  }
+
+  // x as a long if it's a real integer in [1, SlotPlan.MAX_EXPONENT], otherwise 0
+  private static long smallInteger(Apcomplex x) {
+    if(x.imag().signum() != 0 || !x.real().isInteger() || x.real().signum() <= 0
+        || x.real().compareTo(new Apfloat(SlotPlan.MAX_EXPONENT)) > 0) {
+      return 0;
+    }
+    return x.real().longValue();
+  }
+
+  // Rounds every constant of the slot to at most `digits` digits
+  public void setPrecision(long digits) {
+    B.setPrecision(digits);
+    A.setPrecision(digits);
+    t.setPrecision(digits);
+    p.setPrecision(digits);
+    q.setPrecision(digits);
+    params.setPrecision(digits);
+  }
+
+  // Compiles the slot, with its constants at their current precision, into a plan that only does the work this
+  // particular slot needs. Must be done again after setPrecision().
+  public SlotPlan compile() {
+    Apcomplex[] paramValues = new Apcomplex[params.length()];
+    for(int i = 0; i < paramValues.length; i++) {
+      paramValues[i] = params.params[i].pair[0];
+    }
+    return new SlotPlan(functionName, function, B.pair[0], A.pair[0], t.pair[0], p.pair[0], q.pair[0], paramValues, zPositions);
+  }
+
   public Apcomplex eval(Apcomplex z) {
     // Insert z into the positions where it's supposed to be
     B.insertz(z, zPositions[0]);
@@ -0,0 +1,207 @@
+/*** SlotPlan.java ************************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Evaluates a z-slot with only the operations that its       *
+ *                 z-positions and constants actually require.                *
+\******************************************************************************/
+
+import org.apfloat.Apcomplex;
+import org.apfloat.ApcomplexMath;
+import org.apfloat.Apfloat;
+
+
+/* Slot.eval() treats every slot the same way: z is inserted into all five coefficients (or 1 is, which then gets
+   compared with 1 again), and t^p and (...)^q always go through ApcomplexMath.pow. But a slot's z-positions and
+   constants never change during a render, so most of that work has the same outcome every time. A plan decides it all
+   once, when it's compiled:
+
+   - A coefficient without z is just its constant, and a constant of exactly 1 isn't multiplied at all
+   - A * t^p is computed once if none of A, t or p contain z, and so is the whole slot if nothing in it does
+   - Constant integer exponents from 1 to MAX_EXPONENT (p, q, the exponent of pow, and the fractal's K) become repeated
+     multiplication; anything else still goes through ApcomplexMath.pow
+   - identity isn't called, and function parameters without z are computed once
+
+   Factor and Power are also used by FractalIterator for J and K. A plan is immutable and captures the slot's constants
+   at the precision they had when it was compiled, so it has to be recompiled whenever that changes.
+*/
+public class SlotPlan {
+  public static final long MAX_EXPONENT = 64; // Larger integer exponents are left to ApcomplexMath.pow
+
+  private final Factor B, A, t;
+  private final Power p, q;
+  private final FractalFunction function; // null if nothing has to be called
+  private final Power functionPower; // Replaces function if it's pow with a constant integer exponent
+  private final Factor[] params;
+  private final Apcomplex[] constantParams; // The parameters, if none of them contain z
+  private final Apcomplex constantInner; // A * t^p, if none of A, t, p contain z
+  private final Apcomplex constantValue; // The whole slot, if nothing in it contains z
+
+  public SlotPlan(String functionName, FractalFunction function, Apcomplex B, Apcomplex A, Apcomplex t, Apcomplex p,
+                  Apcomplex q, Apcomplex[] params, boolean[] zPositions) {
+    this.B = new Factor(B, zPositions[0]);
+    this.A = new Factor(A, zPositions[1]);
+    this.t = new Factor(t, zPositions[2]);
+    this.p = new Power(new Factor(p, zPositions[3]));
+    this.q = new Power(new Factor(q, zPositions[4]));
+
+    this.params = new Factor[params.length];
+    boolean paramsConstant = true;
+    for(int i = 0; i < params.length; i++) {
+      this.params[i] = new Factor(params[i], zPositions[i + 5]);
+      paramsConstant &= !zPositions[i + 5];
+    }
+    this.constantParams = paramsConstant ? evalParams(null) : null;
+
+    Power exponent = functionName.equals("pow") && params.length >= 1 ? new Power(this.params[0]) : null;
+    if(functionName.equals("identity")) {
+      this.function = null;
+      this.functionPower = null;
+    } else if(exponent != null && exponent.isInteger()) {
+      this.function = null;
+      this.functionPower = exponent;
+    } else {
+      this.function = function;
+      this.functionPower = null;
+    }
+
+    this.constantInner = this.A.isConstant() && this.t.isConstant() && this.p.isConstant() ? evalInner(null) : null;
+
+    boolean constant = true;
+    for(boolean position : zPositions) {
+      constant &= !position;
+    }
+    this.constantValue = constant ? evalSlot(null) : null;
+  }
+
+  // B * func(A * t^p [,...] )^q
+  public Apcomplex eval(Apcomplex z) {
+    return constantValue != null ? constantValue : evalSlot(z);
+  }
+
+  private Apcomplex evalSlot(Apcomplex z) {
+    Apcomplex x = constantInner != null ? constantInner : evalInner(z);
+    if(functionPower != null) {
+      x = functionPower.apply(x, z);
+    } else if(function != null) {
+      x = function.apply(x, constantParams != null ? constantParams : evalParams(z));
+    }
+    return B.times(q.apply(x, z), z);
+  }
+
+  // A * t^p
+  private Apcomplex evalInner(Apcomplex z) {
+    return A.times(p.apply(t.value(z), z), z);
+  }
+
+  private Apcomplex[] evalParams(Apcomplex z) {
+    Apcomplex[] result = new Apcomplex[params.length];
+    for(int i = 0; i < params.length; i++) {
+      result[i] = params[i].value(z);
+    }
+    return result;
+  }
+
+  // x^n for 1 <= n, by binary exponentiation
+  public static Apcomplex integerPow(Apcomplex x, long n) {
+    if(n == 2) { // Optimization: the most common exponent by far
+      return x.multiply(x);
+    }
+
+    Apcomplex result = null;
+    Apcomplex square = x;
+    while(true) {
+      if((n & 1) != 0) {
+        result = result == null ? square : result.multiply(square);
+      }
+      n >>= 1;
+      if(n == 0) {
+        return result;
+      }
+      square = square.multiply(square);
+    }
+  }
+
+  // A compiled PairCoefficient: a constant, z, or z multiplied by a constant
+  public static class Factor {
+    private final Apcomplex constant; // null if it's exactly 1
+    private final boolean z;
+    private final Apcomplex inverse; // 1 / constant, if this factor doesn't contain z and isn't 1 (or an exact integer)
+
+    public Factor(Apcomplex constant, boolean z) {
+      this.constant = constant.equals(Apcomplex.ONE) ? null : constant;
+      this.z = z;
+      // The inverse of a number with infinite precision generally doesn't exist as an Apcomplex
+      this.inverse = !z && this.constant != null && this.constant.precision() != Apcomplex.INFINITE
+          ? Apcomplex.ONE.divide(this.constant) : null;
+    }
+
+    public boolean isConstant() {
+      return !z;
+    }
+
+    public boolean isOne() {
+      return !z && constant == null;
+    }
+
+    public Apcomplex value(Apcomplex z) {
+      if(!this.z) {
+        return constant == null ? Apcomplex.ONE : constant;
+      }
+      return constant == null ? z : constant.multiply(z);
+    }
+
+    // this * x, same order of operations as PairCoefficient.computeScalar().multiply(x)
+    public Apcomplex times(Apcomplex x, Apcomplex z) {
+      return isOne() ? x : value(z).multiply(x);
+    }
+
+    // x / this
+    public Apcomplex divide(Apcomplex x, Apcomplex z) {
+      if(isOne()) {
+        return x;
+      }
+      return inverse != null ? x.multiply(inverse) : x.divide(value(z));
+    }
+  }
+
+  // Raises numbers to a compiled exponent
+  public static class Power {
+    private final Factor exponent;
+    private final long n; // The exponent if it's a constant integer in [1, MAX_EXPONENT], 0 otherwise
+
+    public Power(Factor exponent) {
+      this.exponent = exponent;
+      long n = 0;
+      if(exponent.isConstant()) {
+        Apcomplex value = exponent.value(null);
+        if(value.imag().signum() == 0 && value.real().isInteger()
+            && value.real().signum() > 0 && value.real().compareTo(new Apfloat(MAX_EXPONENT)) <= 0) {
+          n = value.real().longValue();
+        }
+      }
+      this.n = n;
+    }
+
+    public boolean isConstant() {
+      return exponent.isConstant();
+    }
+
+    public boolean isInteger() {
+      return n != 0;
+    }
+
+    // The exponent if isInteger(), otherwise 0
+    public long integer() {
+      return n;
+    }
+
+    public Apcomplex apply(Apcomplex base, Apcomplex z) {
+      if(n == 1) {
+        return base;
+      } else if(n != 0) {
+        return integerPow(base, n);
+      }
+      return ApcomplexMath.pow(base, exponent.value(z));
+    }
+  }
+}
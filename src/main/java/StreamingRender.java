@@ -0,0 +1,82 @@
+/*** StreamingRender.java *****************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Renders images too large for the heap a band of rows at a  *
+ *                 time, straight into a PNG file.                            *
+\******************************************************************************/
+
+import java.io.File;
+import java.io.IOException;
+
+
+/* A normal render keeps an IterationBuffer (8 bytes per pixel with smooth values) and then a whole image for the
+   whole view, so a 32k x 32k print needs over 12 GB before the PNG encoder even starts. A streaming render cuts the
+   view into bands of bandTiles tile rows and renders them top to bottom, each as a view of its own (RenderView.band()).
+   Each finished band is colored and handed to PngWriter, which compresses it on its own thread while the engine renders
+   the next one. Only about two bands are ever in memory, so the size of the image is limited by the disk instead.
+
+   - Perturbation: bands keep the center and deltas of the whole view, so one reference orbit, computed up front at the
+     precision the whole view needs, serves every band (see RenderEngine.shareReference()).
+   - Colors: LINEAR only depends on each pixel's own count. HISTOGRAM and SMOOTH spread the colors by how the counts are
+     distributed over the whole image, which isn't known until the last band is done, so they use the histogram of a
+     preview of the same view at most previewWidth pixels wide instead. That's a close estimate for any image large
+     enough to need streaming, and costs a tiny fraction of the render.
+   - Cache: every band is a render of its own, so with RenderCache enabled, an interrupted render finds the bands it
+     had already done (as long as the cache is big enough to keep them). The PNG itself is written again from the top.
+
+   Progressive rendering doesn't apply; the bands come out in order, one finished band at a time.
+*/
+public class StreamingRender {
+  public static int bandTiles = 4; // Tile rows per band
+  public static int previewWidth = 1024; // Width of the preview that HISTOGRAM and SMOOTH take their histogram from
+
+  private final RenderEngine engine;
+  private final ColorMapper.Mode colorMode;
+  private final Palette palette;
+
+  public StreamingRender(RenderEngine engine, ColorMapper.Mode colorMode, Palette palette) {
+    this.engine = engine;
+    this.colorMode = colorMode;
+    this.palette = palette;
+  }
+
+  // Renders the view into a PNG file, band by band. Blocks until the file is written.
+  public void render(RenderView view, File output) {
+    final long start = System.nanoTime();
+    final int bandRows = Math.max(Math.max(bandTiles, 1) * RenderEngine.tileSize, 2);
+    final int bands = (view.height + bandRows - 1) / bandRows;
+    engine.shareReference(view.center(), RenderEngine.adaptivePrecision ? RenderEngine.workingPrecision(view) : view.precision);
+
+    try (PngWriter png = new PngWriter(output, view.width, view.height)) {
+      final long[] histogram = colorMode != ColorMapper.Mode.LINEAR ? previewHistogram(view) : null;
+      int band = 0;
+      for(int y0 = 0; y0 < view.height; band++) {
+        int y1 = Math.min(y0 + bandRows, view.height);
+        if(view.height - y1 == 1) { // A band needs at least 2 rows, so a single row left over joins this one
+          y1 = view.height;
+        }
+        System.out.println("Band " + (band + 1) + " of " + bands + " (rows " + y0 + " to " + (y1 - 1) + "):");
+        final IterationBuffer buffer = engine.render(view.band(y0, y1));
+        png.writeRows(ColorMapper.color(buffer, colorMode, palette, histogram), buffer.height);
+        y0 = y1;
+      }
+    } catch(IOException e) {
+      System.out.println("ERROR: Couldn't write " + output.getAbsolutePath() + ". Details:\n" + e.getMessage());
+      return;
+    } finally {
+      engine.shareReference(null, 0);
+    }
+
+    System.out.println("Streamed " + view.width + "x" + view.height + " in " + bands + " bands to " + output.getAbsolutePath()
+        + " in " + ((System.nanoTime() - start) / 1_000_000) + " ms.");
+  }
+
+  // Histogram of a render of the same view at most previewWidth pixels wide, with the same aspect ratio
+  private long[] previewHistogram(RenderView view) {
+    final int width = Math.max(Math.min(previewWidth, view.width), 2);
+    final int height = Math.max((int)Math.round((double)view.height * width / view.width), 2);
+    System.out.println("Preview for the color histogram (" + width + "x" + height + "):");
+    return ColorMapper.histogram(engine.render(
+        new RenderView(view.xmin, view.xmax, view.ymin, view.ymax, width, height, view.precision)));
+  }
+}
@@ -0,0 +1,226 @@
+/*** ThermalGovernor.java *****************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Keeps the CPU under a target temperature by limiting how   *
+ *                 many render workers may iterate tiles at once, and logs    *
+ *                 the throughput every worker count sustains.                *
+\******************************************************************************/
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/* A Pi under sustained load on all cores heats up until the firmware caps its clock, and from then on throughput drops
+   by however much the firmware sees fit. Running fewer workers at full clock often renders faster than running all of
+   them throttled, and it's predictable. That only matters on the Pi itself, so the governor is off unless
+   fv.thermal.enabled turns it on.
+
+   Every sampleSeconds, the governor reads the temperature (in millidegrees, as /sys/class/thermal exposes it) and the
+   firmware's throttle flags (hex, as get_throttled exposes it; optional) from their paths, which can point at plain
+   files for testing. If the CPU is above targetCelsius, or the firmware says it's throttling right now, one worker
+   fewer is allowed; if it's more than `hysteresis` degrees below the target, one more is, up to the number of threads.
+   After every change the governor waits settleSeconds for the temperature to follow before it changes anything again.
+
+   RenderEngine calls enter() before and exit() after every tile, so at most allowed() workers iterate at a time across
+   every engine and the render queue; the others wait at the start of their next tile.
+
+   Every logSeconds, a line of
+
+     time, temperature, throttle flags, allowed workers, pixels per second
+
+   is appended to logFile (CSV). Pixel rates of samples taken once a worker count has settled are also summed up per
+   worker count, and every change prints the sustained rate of each count seen so far, which is the number to pick a
+   configuration by: the best peak rate usually isn't the one the Pi can keep up.
+*/
+public class ThermalGovernor {
+  public static boolean enabled = false;
+  public static String temperaturePath = "/sys/class/thermal/thermal_zone0/temp";
+  public static String throttledPath = "/sys/devices/platform/soc/soc:firmware/get_throttled";
+  public static double targetCelsius = 75;
+  public static double hysteresis = 5; // Degrees below the target before a worker is added back
+  public static int minWorkers = 1;
+  public static int sampleSeconds = 1;
+  public static int settleSeconds = 15; // Time between two changes of the worker count
+  public static int logSeconds = 10;
+  public static String logFile = "thermal.csv";
+
+  private static final int THROTTLING_NOW = 0x6; // get_throttled bits: ARM frequency capped (1), currently throttled (2)
+
+  private final int maxWorkers;
+  private final Path temperatureFile, throttledFile;
+  private final LongAdder pixels = new LongAdder(); // Pixels of the tiles finished so far
+  private final long[] sustainedPixels, sustainedNanos; // Per allowed worker count, over settled samples only
+
+  private int allowed; // Workers that may iterate at once. Guarded by this.
+  private int active; // Workers iterating right now. Guarded by this.
+  private volatile double temperature;
+  private volatile int throttled;
+
+  private ThermalGovernor(int maxWorkers, Path temperatureFile, Path throttledFile) {
+    this.maxWorkers = maxWorkers;
+    this.allowed = maxWorkers;
+    this.temperatureFile = temperatureFile;
+    this.throttledFile = throttledFile;
+    this.sustainedPixels = new long[maxWorkers + 1];
+    this.sustainedNanos = new long[maxWorkers + 1];
+  }
+
+  // Starts governing `maxWorkers` workers on a daemon thread. Returns null if it's disabled or there's no temperature to
+  // read, in which case nothing is throttled.
+  public static ThermalGovernor start(int maxWorkers) {
+    if(!enabled) {
+      return null;
+    }
+    final Path temperatureFile = Paths.get(temperaturePath);
+    if(!Files.isReadable(temperatureFile)) {
+      System.out.println("Thermal governor: no temperature at " + temperaturePath + ", not throttling.");
+      return null;
+    }
+    final Path throttledFile = Files.isReadable(Paths.get(throttledPath)) ? Paths.get(throttledPath) : null;
+
+    ThermalGovernor governor = new ThermalGovernor(maxWorkers, temperatureFile, throttledFile);
+    governor.sample();
+    Thread thread = new Thread(governor::run, "thermal-governor");
+    thread.setDaemon(true);
+    thread.start();
+    System.out.println("Thermal governor: keeping " + temperaturePath + " under " + targetCelsius + " C, now "
+        + governor.temperature + " C.");
+    return governor;
+  }
+
+  // Waits until the calling worker may iterate a tile
+  public synchronized void enter() {
+    boolean interrupted = false;
+    while(active >= allowed) {
+      try {
+        wait();
+      } catch(InterruptedException e) {
+        interrupted = true; // Finish the tile anyway, the caller decides what an interrupt means
+      }
+    }
+    active++;
+    if(interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // The calling worker finished a tile of `pixelCount` pixels
+  public void exit(long pixelCount) {
+    pixels.add(pixelCount);
+    synchronized(this) {
+      active--;
+      notifyAll();
+    }
+  }
+
+  public double temperature() {
+    return temperature;
+  }
+
+  public int throttled() {
+    return throttled;
+  }
+
+  public synchronized int allowed() {
+    return allowed;
+  }
+
+  private void run() {
+    long lastChange = System.nanoTime(), lastLog = System.nanoTime();
+    long pixelsAtLog = pixels.sum();
+    long lastSample = System.nanoTime(), pixelsAtSample = pixels.sum();
+
+    while(true) {
+      try {
+        Thread.sleep(sampleSeconds * 1000L);
+      } catch(InterruptedException e) {
+        return;
+      }
+      sample();
+      final long now = System.nanoTime(), done = pixels.sum();
+
+      int workers = allowed();
+      final boolean settled = now - lastChange >= settleSeconds * 1_000_000_000L;
+      if(settled && done > pixelsAtSample) { // Only count samples where something was rendered
+        synchronized(this) {
+          sustainedPixels[workers] += done - pixelsAtSample;
+          sustainedNanos[workers] += now - lastSample;
+        }
+      }
+      lastSample = now;
+      pixelsAtSample = done;
+
+      if(settled) {
+        int next = workers;
+        if((temperature > targetCelsius || (throttled & THROTTLING_NOW) != 0) && workers > minWorkers) {
+          next = workers - 1;
+        } else if(temperature < targetCelsius - hysteresis && (throttled & THROTTLING_NOW) == 0 && workers < maxWorkers) {
+          next = workers + 1;
+        }
+        if(next != workers) {
+          setAllowed(next);
+          lastChange = now;
+          System.out.println("Thermal governor: " + workers + " -> " + next + " workers at " + temperature + " C"
+              + (throttled != 0 ? " (throttle flags 0x" + Integer.toHexString(throttled) + ")" : "") + ". " + summary());
+        }
+      }
+
+      if(now - lastLog >= logSeconds * 1_000_000_000L) {
+        log(done - pixelsAtLog, now - lastLog, workers);
+        lastLog = now;
+        pixelsAtLog = done;
+      }
+    }
+  }
+
+  private synchronized void setAllowed(int workers) {
+    allowed = workers;
+    notifyAll();
+  }
+
+  // Sustained pixels per second of every worker count that has settled samples
+  public synchronized String summary() {
+    StringBuilder summary = new StringBuilder("Sustained:");
+    for(int workers = 1; workers <= maxWorkers; workers++) {
+      if(sustainedNanos[workers] > 0) {
+        summary.append(' ').append(workers).append(" workers ")
+            .append(Math.round(sustainedPixels[workers] / (sustainedNanos[workers] / 1e9))).append(" px/s,");
+      }
+    }
+    if(summary.charAt(summary.length() - 1) != ',') {
+      return "No sustained rates yet.";
+    }
+    summary.setCharAt(summary.length() - 1, '.');
+    return summary.toString();
+  }
+
+  private void sample() {
+    try {
+      temperature = Long.parseLong(Files.readString(temperatureFile).trim()) / 1000.0;
+    } catch(IOException | NumberFormatException e) {
+      System.out.println("ERROR: Couldn't read the temperature from " + temperatureFile + ". Details:\n" + e.getMessage());
+    }
+    if(throttledFile != null) {
+      try {
+        String flags = Files.readString(throttledFile).trim();
+        throttled = Integer.parseUnsignedInt(flags.startsWith("0x") ? flags.substring(2) : flags, 16);
+      } catch(IOException | NumberFormatException e) {
+        System.out.println("ERROR: Couldn't read the throttle flags from " + throttledFile + ". Details:\n" + e.getMessage());
+      }
+    }
+  }
+
+  private void log(long pixelCount, long nanos, int workers) {
+    try (PrintWriter out = new PrintWriter(new FileWriter(logFile, true))) {
+      out.println(System.currentTimeMillis() / 1000 + "," + temperature + ",0x" + Integer.toHexString(throttled) + ","
+          + workers + "," + Math.round(pixelCount / (nanos / 1e9)));
+    } catch(IOException e) {
+      System.out.println("ERROR: Couldn't write " + logFile + ". Details:\n" + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/*** VectorMandelbrotKernel.java **********************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Iterates a whole row of Mandelbrot pixels at once using    *
+ *                 the SIMD units of the CPU through the JDK Vector API.      *
+\******************************************************************************/
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+
+/* This is FractalIterator.iterate_mandelbrot_fast() spread over the lanes of a SIMD register: 4 doubles per vector with
+   AVX2, 8 with AVX-512, 2 with NEON on the Pi. Every lane is its own pixel with its own c and z, and they're all
+   iterated in lockstep. A lane that escapes gets its iteration count written out and is masked off; the loop ends once
+   every lane has escaped or maxIterations is reached.
+
+   The lane arithmetic is exactly the scalar version's (same operations, same order, no fused multiply-adds), so both
+   produce identical counts and the scalar method remains the reference this is checked against. The interior shortcuts
+   carry over as well: lanes inside the main cardioid or the period-2 bulb are masked off before the loop starts, and
+   periodicity detection saves all lanes at the same iterations, so a lane that repeats its saved point is masked off
+   like an escaped one (but with maxIterations as its count). Periodic points may take a few more iterations to be
+   caught than in the scalar version, which doesn't change their count.
+
+   jdk.incubator.vector has to be added at both compile and run time (--add-modules jdk.incubator.vector). This class
+   must not be touched unless that module is present; check RenderEngine.VECTOR_API first, since merely loading this
+   class without the module throws NoClassDefFoundError.
+*/
+public class VectorMandelbrotKernel {
+  private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+  // Lanes are only compared with their saved points every this many iterations; comparing on every one costs more than
+  // it saves. Must be a power of two, so the checkpoints stay on the stride and every period is still found eventually.
+  private static final int PERIODICITY_STRIDE = 8;
+
+  private VectorMandelbrotKernel() {} // Prevent instantiation
+
+  public static int lanes() {
+    return SPECIES.length();
+  }
+
+  // Iterates the pixels c = cr[i] + ci*i for i in [from, to) and writes their iteration counts to
+  // out[outOffset + (i - from)]. Points resolved by the interior shortcuts are counted in the iterator's statistics.
+  // If magnitudes isn't null, the |z|^2 every escaping pixel escaped with goes to the same index in it.
+  public static void iterateRow(FractalIterator iterator, double[] cr, int from, int to, double ci, int[] out, int outOffset,
+                                double[] magnitudes) {
+    final int maxIterations = FractalIterator.maxIterations;
+    final DoubleVector escapeThreshold2_fast = DoubleVector.broadcast(SPECIES, FractalIterator.escapeThreshold2.doubleValue());
+    final DoubleVector ci_fast = DoubleVector.broadcast(SPECIES, ci);
+    final DoubleVector two = DoubleVector.broadcast(SPECIES, 2.0);
+    final double ci2 = ci * ci;
+    final double[] lanes = magnitudes != null ? new double[SPECIES.length()] : null;
+
+    for(int i = from; i < to; i += SPECIES.length()) {
+      VectorMask<Double> active = SPECIES.indexInRange(i, to); // Lanes past the end of the row start out finished
+      final DoubleVector cr_fast = DoubleVector.fromArray(SPECIES, cr, i, active);
+      DoubleVector zr = DoubleVector.zero(SPECIES);
+      DoubleVector zi = DoubleVector.zero(SPECIES);
+
+      if(FractalIterator.interiorChecks) { // Same test as FractalIterator.insideCardioidOrBulb() with no margin
+        DoubleVector xr = cr_fast.sub(0.25);
+        DoubleVector q = xr.mul(xr).add(ci2);
+        DoubleVector br = cr_fast.add(1.0);
+        VectorMask<Double> interior = q.mul(q.add(xr)).compare(VectorOperators.LT, 0.25 * ci2)
+            .or(br.mul(br).add(ci2).compare(VectorOperators.LT, 0.0625)).and(active);
+        if(interior.anyTrue()) {
+          iterator.interiorPixels += interior.trueCount();
+          store(interior, maxIterations, out, outOffset + (i - from));
+          active = active.andNot(interior);
+        }
+      }
+
+      // Periodicity detection: point of each lane's orbit the following ones are compared with. Kept in arrays because a
+      // vector reassigned inside the loop gets boxed on every iteration.
+      final double[] savedr = new double[SPECIES.length()], savedi = new double[SPECIES.length()];
+      int checkpoint = PERIODICITY_STRIDE; // Iteration the next points are saved at
+
+      for(int n = 0; n < maxIterations && active.anyTrue(); n++) {
+        // z = z^2 + c
+        DoubleVector temp = zr.mul(zr).sub(zi.mul(zi)).add(cr_fast);
+        zi = two.mul(zr).mul(zi).add(ci_fast);
+        zr = temp;
+
+        // If real^2 + imag^2 >= (escape threshold)^2 then the point is outside the set
+        DoubleVector magnitude2 = zr.mul(zr).add(zi.mul(zi));
+        VectorMask<Double> escaped = magnitude2.compare(VectorOperators.GE, escapeThreshold2_fast).and(active);
+        if(escaped.anyTrue()) {
+          store(escaped, n, out, outOffset + (i - from));
+          if(magnitudes != null) {
+            magnitude2.intoArray(lanes, 0);
+            store(escaped, lanes, magnitudes, outOffset + (i - from));
+          }
+          active = active.andNot(escaped);
+        }
+
+        if(FractalIterator.periodicityChecks && n % PERIODICITY_STRIDE == 0) {
+          VectorMask<Double> periodic = zr.compare(VectorOperators.EQ, DoubleVector.fromArray(SPECIES, savedr, 0))
+              .and(zi.compare(VectorOperators.EQ, DoubleVector.fromArray(SPECIES, savedi, 0))).and(active);
+          if(periodic.anyTrue()) { // Exactly the same doubles again, so these orbits repeat forever
+            iterator.periodicPixels += periodic.trueCount();
+            store(periodic, maxIterations, out, outOffset + (i - from));
+            active = active.andNot(periodic);
+          }
+          if(n == checkpoint) {
+            zr.intoArray(savedr, 0);
+            zi.intoArray(savedi, 0);
+            checkpoint <<= 1;
+          }
+        }
+      }
+
+      // The escape threshold was never reached, so these points are stable within maxIterations.
+      store(active, maxIterations, out, outOffset + (i - from));
+    }
+  }
+
+  // Writes count to out[offset + lane] for every lane set in the mask
+  private static void store(VectorMask<Double> lanes, int count, int[] out, int offset) {
+    long bits = lanes.toLong();
+    while(bits != 0) {
+      out[offset + Long.numberOfTrailingZeros(bits)] = count;
+      bits &= bits - 1;
+    }
+  }
+
+  // Writes values[lane] to out[offset + lane] for every lane set in the mask
+  private static void store(VectorMask<Double> lanes, double[] values, double[] out, int offset) {
+    long bits = lanes.toLong();
+    while(bits != 0) {
+      int lane = Long.numberOfTrailingZeros(bits);
+      out[offset + lane] = values[lane];
+      bits &= bits - 1;
+    }
+  }
+}
@@ -0,0 +1,174 @@
+/*** ZoomSequence.java ********************************************************\
+ * Author:         twisted_nematic57                                          *
+ * Date Created:   2026-10-16                                                 *
+ * Description:    Renders the frames of a zoom video into one point, reusing *
+ *                 as much work as it can from one frame to the next.         *
+\******************************************************************************/
+
+import org.apfloat.Apcomplex;
+import org.apfloat.Apfloat;
+import org.apfloat.ApfloatMath;
+
+import javax.imageio.ImageIO;
+import java.io.File;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+/* A zoom is `frames` views centered on the same point, whose height in the complex plane shrinks geometrically from
+   startScale to endScale (pixels are square, so the width follows from the aspect ratio). Frame k has the scale
+
+     startScale * r^k,   r = (endScale / startScale)^(1 / (frames - 1))
+
+   Rendering them one after the other with RenderEngine would redo a lot of work, so the sequence shares it:
+
+   - Reference orbit: every frame is centered on the same point, so one reference orbit, computed up front at the
+     precision of the deepest frame, serves every frame that uses perturbation (see RenderEngine.shareReference()).
+   - Precision: each frame still only gets the digits it needs (RenderEngine.workingPrecision()), rounded up to a
+     multiple of RenderEngine.precisionStep, so the iterators only recompile when the zoom crosses a step.
+   - Pixels: frame k's grid is frame k-1's scaled by r around the same center. Wherever a pixel of frame k lands within
+     reuseTolerance pixels of a pixel of frame k-1 on both axes, it takes that pixel's count instead of being iterated.
+     A tolerance of 0 only carries over pixels whose sample points coincide exactly; larger tolerances skip more pixels
+     at the cost of shifting them by up to that fraction of a pixel. Only pixels that frame k-1 actually iterated are
+     carried over, never ones it carried over itself, so the shifts can't add up over several frames.
+   - Pipelining: coloring and PNG encoding of a frame run on their own thread while the engine renders the next one.
+     At most one frame is being written at any time, so memory stays at about three buffers.
+
+   Frames are written to the output directory as frame_00000.png, frame_00001.png, ...
+*/
+public class ZoomSequence {
+  public static double reuseTolerance = 0.25; // How far (in pixels) a carried over pixel may be from where it's sampled
+
+  private static final int SCALE_DIGITS = 30; // Significant digits of the scales; only their ratios matter
+
+  private final RenderEngine engine;
+  private final ColorMapper.Mode colorMode;
+  private final Palette palette;
+
+  public ZoomSequence(RenderEngine engine, ColorMapper.Mode colorMode, Palette palette) {
+    this.engine = engine;
+    this.colorMode = colorMode;
+    this.palette = palette;
+  }
+
+  // Renders every frame of the zoom into `directory`. Blocks until the last frame is written.
+  public void render(Apcomplex center, Apfloat startScale, Apfloat endScale, int frames, int width, int height, File directory) {
+    if(frames < 1) {
+      throw new IllegalArgumentException("\nERROR: A zoom needs at least 1 frame. Got: " + frames);
+    }
+    if(startScale.signum() <= 0 || endScale.signum() <= 0) {
+      throw new IllegalArgumentException("\nERROR: Zoom scales must be positive. Got: " + startScale + " and " + endScale);
+    }
+    if(!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IllegalArgumentException("\nERROR: Couldn't create the zoom's output directory " + directory.getAbsolutePath());
+    }
+
+    final Apfloat start = startScale.precision(SCALE_DIGITS);
+    final Apfloat ratio = frames > 1 ? ApfloatMath.pow(endScale.precision(SCALE_DIGITS).divide(start),
+        new Apfloat(1.0 / (frames - 1), SCALE_DIGITS)) : new Apfloat(1, SCALE_DIGITS);
+    final double zoom = ratio.doubleValue(); // Frame k's pixel spacing over frame k-1's
+
+    // The deepest frame needs the most digits, and its reference orbit is good enough for all the others
+    final RenderView deepest = RenderView.centered(center, start.multiply(ApfloatMath.pow(ratio, frames - 1)), width, height,
+        FractalIterator.maxPrecision);
+    engine.shareReference(center, RenderEngine.adaptivePrecision ? RenderEngine.workingPrecision(deepest) : deepest.precision);
+
+    final ExecutorService writer = Executors.newSingleThreadExecutor();
+    Future<?> writing = null;
+    IterationBuffer previous = null;
+    BitSet previousKnown = null; // Pixels of the previous frame that were carried over rather than iterated
+    try {
+      for(int k = 0; k < frames; k++) {
+        final long frameStart = System.nanoTime();
+        final RenderView view = RenderView.centered(center, start.multiply(ApfloatMath.pow(ratio, k)), width, height,
+            FractalIterator.maxPrecision);
+        System.out.println("Frame " + (k + 1) + " of " + frames + ":");
+
+        final IterationBuffer buffer;
+        if(previous != null) {
+          final IterationBuffer seed = engine.newBuffer(view);
+          final BitSet known = carryOver(previous, previousKnown, seed, zoom);
+          buffer = engine.render(view, seed, known);
+          previousKnown = known;
+        } else {
+          buffer = engine.render(view);
+          previousKnown = new BitSet();
+        }
+        System.out.println("Frame " + (k + 1) + " rendered in " + ((System.nanoTime() - frameStart) / 1_000_000) + " ms.");
+
+        if(writing != null) { // Don't let the writer fall more than one frame behind
+          writing.get();
+        }
+        final File output = new File(directory, String.format("frame_%05d.png", k));
+        writing = writer.submit(() -> write(buffer, output));
+        previous = buffer;
+      }
+      if(writing != null) {
+        writing.get();
+      }
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      System.out.println("ERROR: Zoom interrupted.");
+    } catch(ExecutionException e) {
+      System.out.println("ERROR: Couldn't write a frame of the zoom. Details:\n" + e.getCause());
+    } finally {
+      writer.shutdown();
+      engine.shareReference(null, 0);
+    }
+  }
+
+  // Copies the pixels of `previous` that land close enough to a pixel of the next frame into `seed`, and returns which
+  // pixels of seed those are. Pixels in previousKnown were themselves carried over and are skipped. zoom is the next
+  // frame's pixel spacing over the previous one's.
+  private static BitSet carryOver(IterationBuffer previous, BitSet previousKnown, IterationBuffer seed, double zoom) {
+    final int[] columns = sources(seed.width, previous.width, zoom);
+    final int[] rows = sources(seed.height, previous.height, zoom);
+    final BitSet known = new BitSet(seed.width * seed.height);
+
+    for(int y = 0; y < seed.height; y++) {
+      if(rows[y] < 0) {
+        continue;
+      }
+      final int row = y * seed.width, sourceRow = rows[y] * previous.width;
+      for(int x = 0; x < seed.width; x++) {
+        if(columns[x] < 0 || previousKnown.get(sourceRow + columns[x])) {
+          continue;
+        }
+        seed.counts[row + x] = previous.counts[sourceRow + columns[x]];
+        if(seed.smooth != null && previous.smooth != null) {
+          seed.smooth[row + x] = previous.smooth[sourceRow + columns[x]];
+        }
+        known.set(row + x);
+      }
+    }
+    return known;
+  }
+
+  // For every pixel along one axis of the next frame, the pixel of the previous frame within reuseTolerance of it, or
+  // -1 if there isn't one. Both frames are centered on the same point.
+  private static int[] sources(int size, int previousSize, double zoom) {
+    final int[] sources = new int[size];
+    final double middle = (size - 1) / 2.0, previousMiddle = (previousSize - 1) / 2.0;
+    for(int i = 0; i < size; i++) {
+      final double position = previousMiddle + (i - middle) * zoom; // Where pixel i lies on the previous frame's grid
+      final long nearest = Math.round(position);
+      final double distance = Math.abs(position - nearest) / zoom; // In pixels of the next frame
+      sources[i] = nearest >= 0 && nearest < previousSize && distance <= reuseTolerance ? (int)nearest : -1;
+    }
+    return sources;
+  }
+
+  // Colors one frame and saves it as a PNG
+  private void write(IterationBuffer buffer, File output) {
+    try {
+      ImageIO.write(ColorMapper.image(buffer, colorMode, palette), "png", output);
+      System.out.println("Frame written to " + output.getAbsolutePath());
+    } catch(IOException e) {
+      System.out.println("ERROR: Could not write PNG file " + output.getAbsolutePath() + ": " + e.getMessage());
+    }
+  }
+}